@@ -0,0 +1,104 @@
+package net.sourceforge.jwbf.core.actions;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Limits the request rate between a lower and an upper bound (additive increase, multiplicative
+ * decrease). Every healthy response raises the rate by a fixed step; every response that asks the
+ * client to back off (maxlag, {@code Retry-After}, HTTP 429/503) halves it and suspends all
+ * requests for the requested time.
+ */
+@Beta
+public class AdaptiveRateLimiter {
+
+  private static final Logger log = LoggerFactory.getLogger(AdaptiveRateLimiter.class);
+
+  private static final double DECREASE_FACTOR = 0.5;
+  private static final int STEPS_TO_MAX = 20;
+
+  private final RateLimiter rateLimiter;
+  private final double minRate;
+  private final double maxRate;
+  private final double increment;
+  private final Ticker ticker;
+
+  private volatile long pausedUntilNanos;
+
+  /**
+   * @param minRate lowest rate in requests per second
+   * @param maxRate highest and initial rate in requests per second
+   */
+  public AdaptiveRateLimiter(double minRate, double maxRate) {
+    this(minRate, maxRate, Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  AdaptiveRateLimiter(double minRate, double maxRate, Ticker ticker) {
+    if (minRate <= 0 || maxRate < minRate) {
+      throw new IllegalArgumentException(
+          "rates must be 0 < min <= max, but were " + minRate + " and " + maxRate);
+    }
+    this.minRate = minRate;
+    this.maxRate = maxRate;
+    this.increment = (maxRate - minRate) / STEPS_TO_MAX;
+    this.ticker = ticker;
+    this.rateLimiter = RateLimiter.create(maxRate);
+    this.pausedUntilNanos = ticker.read();
+  }
+
+  /**
+   * Blocks until a request may be sent.
+   */
+  public void acquire() {
+    long waitNanos = pausedUntilNanos - ticker.read();
+    if (waitNanos > 0) {
+      Uninterruptibles.sleepUninterruptibly(waitNanos, TimeUnit.NANOSECONDS);
+    }
+    rateLimiter.acquire();
+  }
+
+  /**
+   * Called for every response the server handled without asking for a slower rate.
+   */
+  public synchronized void onSuccess() {
+    double rate = rateLimiter.getRate();
+    if (rate < maxRate) {
+      rateLimiter.setRate(Math.min(maxRate, rate + increment));
+    }
+  }
+
+  /**
+   * @param retryAfterMillis time to wait before the next request; not positive if the server gave
+   *                         no hint
+   */
+  public synchronized void onThrottle(long retryAfterMillis) {
+    double rate = Math.max(minRate, rateLimiter.getRate() * DECREASE_FACTOR);
+    rateLimiter.setRate(rate);
+    if (retryAfterMillis > 0) {
+      pausedUntilNanos = Math.max(pausedUntilNanos,
+          ticker.read() + TimeUnit.MILLISECONDS.toNanos(retryAfterMillis));
+    }
+    log.warn("server requested a lower rate; now {} requests per second, retry after {} ms", rate,
+        retryAfterMillis);
+  }
+
+  /**
+   * @return current rate in requests per second
+   */
+  public double getRate() {
+    return rateLimiter.getRate();
+  }
+
+  @VisibleForTesting
+  long getPausedNanos() {
+    return Math.max(0, pausedUntilNanos - ticker.read());
+  }
+}
@@ -0,0 +1,116 @@
+package net.sourceforge.jwbf.core.actions;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import com.google.common.util.concurrent.RateLimiter;
+import net.sourceforge.jwbf.core.actions.util.HttpAction;
+
+/**
+ * Retries with an exponentially growing delay; the delay of each retry is chosen at random
+ * between half and all of its exponential value, so concurrent clients do not retry in lockstep.
+ * An optional retry budget limits the retries of all requests together, so a broken server is
+ * not flooded with retries.
+ */
+@Beta
+public class ExponentialBackoffRetryPolicy implements RetryPolicy {
+
+  private final int maxRetries;
+  private final long initialDelayMillis;
+  private final long maxDelayMillis;
+  private final Optional<RateLimiter> retryBudget;
+  private final Random random;
+
+  private ExponentialBackoffRetryPolicy(Builder builder) {
+    this(builder, new Random());
+  }
+
+  @VisibleForTesting
+  ExponentialBackoffRetryPolicy(Builder builder, Random random) {
+    this.maxRetries = builder.maxRetries;
+    this.initialDelayMillis = builder.initialDelayMillis;
+    this.maxDelayMillis = builder.maxDelayMillis;
+    if (builder.retriesPerSecond > 0) {
+      this.retryBudget = Optional.of(RateLimiter.create(builder.retriesPerSecond));
+    } else {
+      this.retryBudget = Optional.absent();
+    }
+    this.random = random;
+  }
+
+  @Override
+  public long retryDelayMillis(HttpAction action, int retry, RuntimeException cause) {
+    if (retry > maxRetries) {
+      return -1;
+    }
+    if (retryBudget.isPresent() && !retryBudget.get().tryAcquire()) {
+      return -1;
+    }
+    long delay = Math.min(maxDelayMillis, initialDelayMillis << Math.min(retry - 1, 30));
+    long half = delay / 2;
+    return half + (long) (random.nextDouble() * (delay - half));
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static class Builder {
+
+    private int maxRetries = 3;
+    private long initialDelayMillis = TimeUnit.SECONDS.toMillis(1);
+    private long maxDelayMillis = TimeUnit.MINUTES.toMillis(1);
+    private double retriesPerSecond = -1;
+
+    /**
+     * @param maxRetries per request; default is 3
+     */
+    public Builder withMaxRetries(int maxRetries) {
+      if (maxRetries < 0) {
+        throw new IllegalArgumentException("maxRetries must not be negative");
+      }
+      this.maxRetries = maxRetries;
+      return this;
+    }
+
+    /**
+     * @param initialDelay before the first retry, doubled for every following retry; default is
+     *                     one second
+     */
+    public Builder withInitialDelay(long initialDelay, TimeUnit unit) {
+      this.initialDelayMillis = unit.toMillis(initialDelay);
+      return this;
+    }
+
+    /**
+     * @param maxDelay upper bound of the delay between two retries; default is one minute
+     */
+    public Builder withMaxDelay(long maxDelay, TimeUnit unit) {
+      this.maxDelayMillis = unit.toMillis(maxDelay);
+      return this;
+    }
+
+    /**
+     * @param retriesPer number of retries of all requests together; further failures are not
+     *                   retried until the budget has recovered
+     */
+    public Builder withRetryBudget(double retriesPer, TimeUnit unit) {
+      if (!(retriesPer > 0)) {
+        throw new IllegalArgumentException("retry budget must be positive, but was " + retriesPer);
+      }
+      this.retriesPerSecond = retriesPer * TimeUnit.SECONDS.toNanos(1) / unit.toNanos(1);
+      return this;
+    }
+
+    public ExponentialBackoffRetryPolicy build() {
+      if (initialDelayMillis <= 0 || maxDelayMillis < initialDelayMillis) {
+        throw new IllegalArgumentException("delays must be 0 < initial <= max, but were " +
+            initialDelayMillis + " ms and " + maxDelayMillis + " ms");
+      }
+      return new ExponentialBackoffRetryPolicy(this);
+    }
+  }
+}
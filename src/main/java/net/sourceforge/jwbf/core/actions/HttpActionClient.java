@@ -21,11 +21,10 @@ package net.sourceforge.jwbf.core.actions;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.net.URI;
 import java.net.URL;
 import java.nio.charset.Charset;
@@ -33,7 +32,13 @@ import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
 
 import com.google.common.annotations.Beta;
 import com.google.common.annotations.VisibleForTesting;
@@ -42,50 +47,118 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicates;
 import com.google.common.base.Strings;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
-import com.google.common.io.CharStreams;
-import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingInputStream;
+import com.google.common.net.HttpHeaders;
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.AtomicLongMap;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 import net.sourceforge.jwbf.JWBF;
 import net.sourceforge.jwbf.core.Transform;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.core.internal.Checked;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
 import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
 import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.StatusLine;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.DeflateInputStream;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientVersion;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * The main interaction class.
+ * The main interaction class. Instances are thread safe; actions passed to {@link
+ * #performAction(ContentProcessable)} or {@link #performActionAsync(ContentProcessable)} keep
+ * their own state and must not be shared between concurrent calls. A client, that is no longer
+ * used, should be {@link #close() closed}.
  *
  * @author Thomas Stock
  */
-public class HttpActionClient {
+public class HttpActionClient implements Closeable {
 
   private static final Logger log = LoggerFactory.getLogger(HttpActionClient.class);
 
+  static final int DEFAULT_MAX_CONNECTIONS = 64;
+  static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 32;
+
+  private static final int SC_TOO_MANY_REQUESTS = 429;
+  private static final String MEDIAWIKI_API_ERROR = "MediaWiki-API-Error";
+
+  /**
+   * Shared by all clients without an own executor; the pool has daemon threads, which end after
+   * being idle for a minute, so it never has to be shut down.
+   */
+  private static final Supplier<ListeningExecutorService> DEFAULT_EXECUTOR =
+      Suppliers.memoize(new Supplier<ListeningExecutorService>() {
+        @Override
+        public ListeningExecutorService get() {
+          ThreadFactoryBuilder threadFactory = new ThreadFactoryBuilder() //
+              .setNameFormat("jwbf-http-%d") //
+              .setDaemon(true);
+          ExecutorService pool = Executors.newCachedThreadPool(threadFactory.build());
+          return MoreExecutors.listeningDecorator(pool);
+        }
+      });
+
   private final HttpClient client;
 
+  private final Supplier<ListeningExecutorService> executor;
+
   private final String path;
 
   private final HttpHost host;
 
-  private final Optional<RateLimiter> rateLimiter;
+  private final Optional<AdaptiveRateLimiter> rateLimiter;
+
+  private final Optional<Integer> maxlag;
+
+  private final Optional<RetryPolicy> retryPolicy;
+
+  private final AtomicLong retryCount = new AtomicLong();
+
+  private final AtomicLong retriesExhaustedCount = new AtomicLong();
+
+  private final Optional<PoolingHttpClientConnectionManager> connectionManager;
+
+  private final Optional<ScheduledExecutorService> evictionScheduler;
+
+  private final Optional<Closeable> ownedClient;
 
   private final URL url;
 
+  private final AtomicLongMap<String> compressedBytes = AtomicLongMap.create();
+
+  private final AtomicLongMap<String> uncompressedBytes = AtomicLongMap.create();
+
   public HttpActionClient(final URL url) {
     this(HttpClientBuilder.create(), url);
   }
@@ -98,7 +171,14 @@ public class HttpActionClient {
     path = pathOf(url);
     host = newHost(url);
     rateLimiter = Optional.absent();
-    this.client = clientBuilder.build();
+    maxlag = Optional.absent();
+    retryPolicy = Optional.absent();
+    connectionManager = Optional.absent();
+    evictionScheduler = Optional.absent();
+    CloseableHttpClient httpClient = clientBuilder.build();
+    this.client = httpClient;
+    ownedClient = Optional.<Closeable>of(httpClient);
+    executor = DEFAULT_EXECUTOR;
   }
 
   public HttpActionClient(Builder builder) {
@@ -106,12 +186,75 @@ public class HttpActionClient {
     host = newHost(builder.url);
     path = pathOf(builder.url);
     if (builder.requestsPerSecond > 0) {
-      rateLimiter = Optional.of(RateLimiter.create(builder.requestsPerSecond));
+      rateLimiter = Optional.of(new AdaptiveRateLimiter( //
+          builder.minRequestsPerSecond, builder.requestsPerSecond));
     } else {
       rateLimiter = Optional.absent();
     }
+    maxlag = builder.maxlag;
+    retryPolicy = builder.retryPolicy;
 
     this.client = builder.client;
+    connectionManager = builder.connectionManager;
+    if (builder.ownsClient && client instanceof Closeable) {
+      ownedClient = Optional.of((Closeable) client);
+    } else {
+      ownedClient = Optional.absent();
+    }
+    if (connectionManager.isPresent() && builder.idleEvictionMillis > 0) {
+      evictionScheduler = Optional.of( //
+          startIdleConnectionEviction(connectionManager.get(), builder.idleEvictionMillis));
+    } else {
+      evictionScheduler = Optional.absent();
+    }
+    if (builder.executorService.isPresent()) {
+      executor = Suppliers.ofInstance( //
+          MoreExecutors.listeningDecorator(builder.executorService.get()));
+    } else {
+      executor = DEFAULT_EXECUTOR;
+    }
+  }
+
+  private static ScheduledExecutorService startIdleConnectionEviction(
+      final PoolingHttpClientConnectionManager manager, final long idleMillis) {
+    ThreadFactoryBuilder threadFactory = new ThreadFactoryBuilder() //
+        .setNameFormat("jwbf-evict-%d") //
+        .setDaemon(true);
+    ScheduledExecutorService scheduler =
+        Executors.newSingleThreadScheduledExecutor(threadFactory.build());
+    scheduler.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        manager.closeExpiredConnections();
+        manager.closeIdleConnections(idleMillis, TimeUnit.MILLISECONDS);
+      }
+    }, idleMillis, idleMillis, TimeUnit.MILLISECONDS);
+    return scheduler;
+  }
+
+  /**
+   * Stops the eviction of idle connections and shuts down the connection pool of a client
+   * created by this class. Clients and executors passed to the {@link Builder} are left open.
+   */
+  @Override
+  public void close() throws IOException {
+    if (evictionScheduler.isPresent()) {
+      evictionScheduler.get().shutdownNow();
+    }
+    try {
+      if (ownedClient.isPresent()) {
+        ownedClient.get().close();
+      }
+    } finally {
+      if (connectionManager.isPresent()) {
+        connectionManager.get().shutdown();
+      }
+    }
+  }
+
+  @VisibleForTesting
+  boolean isEvictionRunning() {
+    return evictionScheduler.isPresent() && !evictionScheduler.get().isShutdown();
   }
 
   private HttpHost newHost(final URL url) {
@@ -131,7 +274,7 @@ public class HttpActionClient {
    * @return message, never null
    */
   @Nonnull
-  public synchronized String performAction(ContentProcessable contentProcessable) {
+  public String performAction(ContentProcessable contentProcessable) {
     String out = "";
     while (contentProcessable.hasMoreMessages()) {
       HttpAction httpAction = contentProcessable.getNextMessage();
@@ -142,13 +285,43 @@ public class HttpActionClient {
   }
 
   @Beta
-  public synchronized void performAction(ActionHandler actionHandler) {
+  public void performAction(ActionHandler actionHandler) {
     while (actionHandler.hasMoreActions()) {
       HttpAction httpAction = actionHandler.popAction();
       processAction(httpAction, new ResponseHandler(actionHandler));
     }
   }
 
+  /**
+   * Performs the given action on a background thread. The messages of one action are still sent
+   * one after another, but different actions are executed concurrently.
+   *
+   * @return the message of the last response, see {@link #performAction(ContentProcessable)}
+   */
+  @Beta
+  public ListenableFuture<String> performActionAsync(
+      final ContentProcessable contentProcessable) {
+    Checked.nonNull(contentProcessable, "action");
+    return executor.get().submit(new Callable<String>() {
+      @Override
+      public String call() {
+        return performAction(contentProcessable);
+      }
+    });
+  }
+
+  @Beta
+  public ListenableFuture<Void> performActionAsync(final ActionHandler actionHandler) {
+    Checked.nonNull(actionHandler, "action");
+    return executor.get().submit(new Callable<Void>() {
+      @Override
+      public Void call() {
+        performAction(actionHandler);
+        return null;
+      }
+    });
+  }
+
   @VisibleForTesting
   protected String processAction(HttpAction httpAction, ReturningTextProcessor answerParser) {
     final String requestString = makeRequestString(httpAction);
@@ -173,6 +346,19 @@ public class HttpActionClient {
     } else {
       requestString = httpAction.getRequest();
     }
+    return withMaxlag(requestString);
+  }
+
+  private String withMaxlag(String requestString) {
+    if (maxlag.isPresent()) {
+      final String separator;
+      if (requestString.contains("?")) {
+        separator = "&";
+      } else {
+        separator = "?";
+      }
+      return requestString + separator + "maxlag=" + maxlag.get();
+    }
     return requestString;
   }
 
@@ -239,59 +425,234 @@ public class HttpActionClient {
     log.debug("message {} is: " + //
         "\n\t hostPath : {} " + //
         "\n\t queryPath: {}", debug(requestBase, ha, cp));
-    HttpResponse res = execute(requestBase);
-
-    final String out = writeToString(ha, res);
+    HttpResponse res = execute(requestBase, Optional.of(ha));
     try {
-      if (cp != null) {
-        return cp.processReturningText(out, ha);
-      } else {
-        return out;
-      }
+      return process(res, toStreamProcessor(cp), ha, statsKeyOf(ha, cp));
     } finally {
       consume(res);
     }
   }
 
+  private static String statsKeyOf(HttpAction ha, @Nullable ReturningTextProcessor cp) {
+    if (cp != null) {
+      return cp.getClass().getName();
+    } else {
+      return ha.getClass().getName();
+    }
+  }
+
+  private static ReturningStreamProcessor toStreamProcessor(@Nullable ReturningTextProcessor cp) {
+    if (cp instanceof ReturningStreamProcessor) {
+      return (ReturningStreamProcessor) cp;
+    } else {
+      return new TextStreamAdapter(cp);
+    }
+  }
+
+  private String process(HttpResponse res, ReturningStreamProcessor processor, HttpAction ha,
+      String statsKey) {
+    HttpEntity entity = res.getEntity();
+    try (CountingInputStream compressed = new CountingInputStream(entity.getContent())) {
+      CountingInputStream uncompressed =
+          new CountingInputStream(decode(compressed, entity.getContentEncoding()));
+      try {
+        String result = processor.processReturningStream(uncompressed, ha);
+        drain(uncompressed);
+        return result;
+      } finally {
+        compressedBytes.addAndGet(statsKey, compressed.getCount());
+        uncompressedBytes.addAndGet(statsKey, uncompressed.getCount());
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Reads what a processor has left, so responses are counted completely, even if it stopped
+   * early. Nothing is left to count, if it has closed the stream.
+   */
+  private static void drain(InputStream in) {
+    try {
+      ByteStreams.copy(in, ByteStreams.nullOutputStream());
+    } catch (IOException e) {
+      log.debug("could not drain response: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Clients built by {@link Builder} leave the decompression to this method, so both sizes can be
+   * counted. Responses of other clients are usually decoded by them already and have no content
+   * encoding left.
+   */
+  private static InputStream decode(InputStream in, @Nullable Header contentEncoding)
+      throws IOException {
+    if (contentEncoding != null) {
+      String encoding = contentEncoding.getValue().trim();
+      if ("gzip".equalsIgnoreCase(encoding) || "x-gzip".equalsIgnoreCase(encoding)) {
+        return new GZIPInputStream(in);
+      } else if ("deflate".equalsIgnoreCase(encoding)) {
+        return new DeflateInputStream(in);
+      } else if (!"identity".equalsIgnoreCase(encoding)) {
+        log.debug("unsupported content encoding {}, passing response through", encoding);
+      }
+    }
+    return in;
+  }
+
   @Nonnull
   @VisibleForTesting
   String writeToString(HttpAction ha, HttpResponse res) {
-    Charset charSet = Charset.forName(ha.getCharset());
-
-    try (
-        InputStream content = res.getEntity().getContent();
-        InputStreamReader inputStreamReader = new InputStreamReader(content, charSet); //
-        BufferedReader br = new BufferedReader(inputStreamReader); //
-    ) {
-      return toString(br);
-    } catch (IOException e) {
-      throw new IllegalStateException(e);
+    return process(res, new TextStreamAdapter(null), ha, statsKeyOf(ha, null));
+  }
+
+  /**
+   * @return the received bytes per action class name
+   */
+  @Beta
+  public ImmutableMap<String, TransferStats> getTransferStats() {
+    ImmutableMap.Builder<String, TransferStats> builder = ImmutableMap.builder();
+    for (Map.Entry<String, Long> entry : compressedBytes.asMap().entrySet()) {
+      String key = entry.getKey();
+      builder.put(key, new TransferStats(entry.getValue(), uncompressedBytes.get(key)));
     }
+    return builder.build();
+  }
+
+  /**
+   * @return the number of requests that were sent again after a transient failure
+   */
+  @Beta
+  public long getRetryCount() {
+    return retryCount.get();
   }
 
-  private String toString(BufferedReader br) throws IOException {
-    return Joiner.on("\n").join(CharStreams.readLines(br)) + "\n"; // TODO remove trailing newline
+  /**
+   * @return the number of transient failures the {@link RetryPolicy} declined to retry
+   */
+  @Beta
+  public long getRetriesExhaustedCount() {
+    return retriesExhaustedCount.get();
   }
 
   @VisibleForTesting
   HttpResponse execute(HttpRequestBase requestBase) {
-    HttpResponse res;
-    try {
+    return execute(requestBase, Optional.<HttpAction>absent());
+  }
+
+  private HttpResponse execute(HttpRequestBase requestBase, Optional<HttpAction> ha) {
+    for (int retry = 1; ; retry++) {
+      HttpResponse res;
+      try {
+        if (rateLimiter.isPresent()) {
+          rateLimiter.get().acquire();
+        }
+        res = client.execute(requestBase);
+      } catch (IOException e) {
+        IllegalStateException failure = new IllegalStateException(e);
+        long delay = retryDelayMillis(requestBase, ha, retry, failure, -1);
+        if (delay >= 0) {
+          waitForRetry(requestBase, delay);
+          continue;
+        }
+        throw failure;
+      }
+      StatusLine statusLine = res.getStatusLine();
+      int code = statusLine.getStatusCode();
       if (rateLimiter.isPresent()) {
-        rateLimiter.get().acquire();
+        adaptRate(rateLimiter.get(), res);
       }
-      res = client.execute(requestBase);
-    } catch (IOException e) {
-      throw new IllegalStateException(e);
+      if (isTransientFailure(res)) {
+        IllegalStateException failure = new IllegalStateException(
+            "transient failure: " + statusLine + "; for " + requestBase.getURI());
+        long retryAfterMillis = retryAfterMillisOf(res.getFirstHeader(HttpHeaders.RETRY_AFTER));
+        long delay = retryDelayMillis(requestBase, ha, retry, failure, retryAfterMillis);
+        if (delay >= 0) {
+          consume(res);
+          waitForRetry(requestBase, delay);
+          continue;
+        }
+      }
+      if (code >= HttpStatus.SC_BAD_REQUEST) {
+        consume(res);
+        throw new IllegalStateException(
+            "invalid status: " + statusLine + "; for " + requestBase.getURI());
+      }
+      return res;
     }
-    StatusLine statusLine = res.getStatusLine();
-    int code = statusLine.getStatusCode();
-    if (code >= HttpStatus.SC_BAD_REQUEST) {
-      consume(res);
-      throw new IllegalStateException(
-          "invalid status: " + statusLine + "; for " + requestBase.getURI());
+  }
+
+  private static boolean isRetryable(Optional<HttpAction> ha) {
+    if (ha.isPresent()) {
+      HttpAction action = ha.get();
+      return action instanceof Get || (action instanceof Post && ((Post) action).isIdempotent());
+    }
+    return false;
+  }
+
+  private static boolean isTransientFailure(HttpResponse res) {
+    int code = res.getStatusLine().getStatusCode();
+    return code == SC_TOO_MANY_REQUESTS || code == HttpStatus.SC_INTERNAL_SERVER_ERROR ||
+        code == HttpStatus.SC_BAD_GATEWAY || code == HttpStatus.SC_SERVICE_UNAVAILABLE ||
+        code == HttpStatus.SC_GATEWAY_TIMEOUT || isMaxlag(res);
+  }
+
+  private static boolean isMaxlag(HttpResponse res) {
+    Header apiError = res.getFirstHeader(MEDIAWIKI_API_ERROR);
+    return apiError != null && "maxlag".equals(apiError.getValue());
+  }
+
+  /**
+   * @return the delay of the retry policy, but at least the delay the server asked for; negative
+   * if the request must not be sent again
+   */
+  private long retryDelayMillis(HttpRequestBase requestBase, Optional<HttpAction> ha, int retry,
+      IllegalStateException failure, long retryAfterMillis) {
+    if (!isRetryable(ha) || !retryPolicy.isPresent()) {
+      return -1;
+    }
+    long delay = retryPolicy.get().retryDelayMillis(ha.get(), retry, failure);
+    if (delay < 0) {
+      retriesExhaustedCount.incrementAndGet();
+      log.warn("giving up after {} retries: {}", retry - 1, failure.getMessage());
+      return -1;
+    }
+    long wait = Math.max(delay, retryAfterMillis);
+    log.info("retry {} of {} in {} ms, because of: {}", retry, requestBase.getURI(), wait,
+        failure.getMessage());
+    return wait;
+  }
+
+  private void waitForRetry(HttpRequestBase requestBase, long delayMillis) {
+    Uninterruptibles.sleepUninterruptibly(delayMillis, TimeUnit.MILLISECONDS);
+    requestBase.reset();
+    retryCount.incrementAndGet();
+  }
+
+  private static void adaptRate(AdaptiveRateLimiter limiter, HttpResponse res) {
+    int code = res.getStatusLine().getStatusCode();
+    Header retryAfter = res.getFirstHeader(HttpHeaders.RETRY_AFTER);
+    if (code == SC_TOO_MANY_REQUESTS || code == HttpStatus.SC_SERVICE_UNAVAILABLE ||
+        retryAfter != null || isMaxlag(res)) {
+      limiter.onThrottle(retryAfterMillisOf(retryAfter));
+    } else {
+      limiter.onSuccess();
     }
-    return res;
+  }
+
+  /**
+   * @return the delay of a {@code Retry-After} header in milliseconds, or -1; HTTP dates are not
+   * supported, because MediaWiki does not send them
+   */
+  @VisibleForTesting
+  static long retryAfterMillisOf(@Nullable Header retryAfter) {
+    if (retryAfter != null) {
+      Long seconds = Longs.tryParse(retryAfter.getValue().trim());
+      if (seconds != null && seconds >= 0) {
+        return TimeUnit.SECONDS.toMillis(seconds);
+      }
+    }
+    return -1;
   }
 
   @VisibleForTesting
@@ -323,6 +684,18 @@ public class HttpActionClient {
     }
   }
 
+  /**
+   * @return the statistics of the connection pool, absent if the client was not built with a
+   * pooling configuration of {@link Builder}
+   */
+  @Beta
+  public Optional<PoolStats> getPoolStats() {
+    if (connectionManager.isPresent()) {
+      return Optional.of(connectionManager.get().getTotalStats());
+    }
+    return Optional.absent();
+  }
+
   /**
    * @return like http://localhost
    */
@@ -355,8 +728,21 @@ public class HttpActionClient {
         };
 
     private double requestsPerSecond = -1;
+    private double minRequestsPerSecond = -1;
+    private Optional<Integer> maxlag = Optional.absent();
+    private Optional<RetryPolicy> retryPolicy = Optional.absent();
     private HttpClient client;
     private URL url;
+    private Optional<ExecutorService> executorService = Optional.absent();
+    private Optional<PoolingHttpClientConnectionManager> connectionManager = Optional.absent();
+    private boolean ownsClient = false;
+    private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+    private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+    private long connectionTimeToLiveMillis = -1;
+    private long keepAliveMillis = -1;
+    private long idleEvictionMillis = -1;
+    private boolean staleConnectionCheck = true;
+    private boolean compression = true;
     @VisibleForTesting
     List<UserAgentPart> userAgentParts = Lists.newArrayList();
 
@@ -382,15 +768,37 @@ public class HttpActionClient {
           withUserAgent("Unknown", "Unknown");
         }
         withUserAgent("JWBF", JWBF.getVersion(HttpActionClient.class));
-        HttpClientBuilder httpClientBuilder = HttpClientBuilder.create();
+        PoolingHttpClientConnectionManager manager = newConnectionManager();
+        HttpClientBuilder httpClientBuilder = HttpClientBuilder.create() //
+            .setConnectionManager(manager) //
+            .disableContentCompression() //
+            .setDefaultRequestConfig(RequestConfig.custom() //
+                .setStaleConnectionCheckEnabled(staleConnectionCheck) //
+                .build());
+        if (compression) {
+          httpClientBuilder.addInterceptorFirst(new AcceptEncodingInterceptor());
+        }
+        if (keepAliveMillis > 0) {
+          httpClientBuilder.setKeepAliveStrategy(new DefaultKeepAliveStrategy(keepAliveMillis));
+        }
         httpClientBuilder.setUserAgent(makeUserAgentString(userAgentParts));
         withClient(httpClientBuilder.build());
+        connectionManager = Optional.of(manager);
+        ownsClient = true;
       } else {
         log.warn("a User-Agent must be set in your client");
       }
       return new HttpActionClient(this);
     }
 
+    private PoolingHttpClientConnectionManager newConnectionManager() {
+      PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager( //
+          connectionTimeToLiveMillis, TimeUnit.MILLISECONDS);
+      manager.setMaxTotal(maxConnections);
+      manager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+      return manager;
+    }
+
     private static String makeUserAgentString(List<UserAgentPart> userAgentParts) {
       String userAgent = Joiner.on(" ") //
           .join(Transform.the(userAgentParts, TO_STRING)) + " " +
@@ -398,11 +806,87 @@ public class HttpActionClient {
       return userAgent.trim();
     }
 
+    /**
+     * A client set here is used as is; the pooling configuration of this builder is ignored and
+     * {@link HttpActionClient#close()} does not close it.
+     */
     public Builder withClient(HttpClient client) {
       this.client = client;
+      this.connectionManager = Optional.absent();
+      this.ownsClient = false;
+      return this;
+    }
+
+    /**
+     * @param maxConnections over all hosts; default is {@value
+     *                       HttpActionClient#DEFAULT_MAX_CONNECTIONS}
+     */
+    public Builder withMaxConnections(int maxConnections) {
+      this.maxConnections = checkPositive(maxConnections, "maxConnections");
+      return this;
+    }
+
+    /**
+     * @param maxConnectionsPerRoute to one host; default is {@value
+     *                               HttpActionClient#DEFAULT_MAX_CONNECTIONS_PER_ROUTE}
+     */
+    public Builder withMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+      this.maxConnectionsPerRoute =
+          checkPositive(maxConnectionsPerRoute, "maxConnectionsPerRoute");
+      return this;
+    }
+
+    /**
+     * Pooled connections older than this are closed instead of reused; unlimited by default.
+     */
+    public Builder withConnectionTimeToLive(long timeToLive, TimeUnit unit) {
+      this.connectionTimeToLiveMillis = unit.toMillis(checkPositive(timeToLive, "timeToLive"));
+      return this;
+    }
+
+    /**
+     * Keeps idle connections for this duration if the server sends no {@code Keep-Alive} header;
+     * by default they are kept until the server closes them.
+     */
+    public Builder withKeepAlive(long keepAlive, TimeUnit unit) {
+      this.keepAliveMillis = unit.toMillis(checkPositive(keepAlive, "keepAlive"));
+      return this;
+    }
+
+    /**
+     * Starts a daemon thread that closes expired connections and connections idle for longer than
+     * the given duration; disabled by default.
+     */
+    public Builder withIdleConnectionEviction(long maxIdleTime, TimeUnit unit) {
+      this.idleEvictionMillis = unit.toMillis(checkPositive(maxIdleTime, "maxIdleTime"));
+      return this;
+    }
+
+    /**
+     * @param staleConnectionCheck validates pooled connections before they are reused; enabled by
+     *                             default
+     */
+    public Builder withStaleConnectionCheck(boolean staleConnectionCheck) {
+      this.staleConnectionCheck = staleConnectionCheck;
       return this;
     }
 
+    /**
+     * @param compression requests gzip or deflate compressed responses, which are decompressed
+     *                    while they are read; enabled by default
+     */
+    public Builder withCompression(boolean compression) {
+      this.compression = compression;
+      return this;
+    }
+
+    private static <T extends Number> T checkPositive(T value, String name) {
+      if (value.longValue() <= 0) {
+        throw new IllegalArgumentException(name + " must be positive, but was " + value);
+      }
+      return value;
+    }
+
     public Builder withUrl(URL url) {
       this.url = url;
       return this;
@@ -413,8 +897,60 @@ public class HttpActionClient {
     }
 
     public Builder withRequestsPerUnit(double requestsPer, TimeUnit unit) {
-      long seconds = TimeUnit.SECONDS.convert(1, unit);
-      this.requestsPerSecond = requestsPer / seconds;
+      this.requestsPerSecond = perSecond(requestsPer, unit);
+      this.minRequestsPerSecond = requestsPerSecond;
+      return this;
+    }
+
+    /**
+     * Starts with the maximal rate, halves it whenever the server asks for a slower rate (maxlag
+     * error, {@code Retry-After}, HTTP 429 or 503) and increases it step by step while responses
+     * stay healthy.
+     */
+    public Builder withAdaptiveRequestsPerUnit(double minRequestsPer, double maxRequestsPer,
+        TimeUnit unit) {
+      if (!(minRequestsPer > 0) || !(maxRequestsPer >= minRequestsPer)) {
+        throw new IllegalArgumentException("rates must be 0 < min <= max, but were " +
+            minRequestsPer + " and " + maxRequestsPer);
+      }
+      this.requestsPerSecond = perSecond(maxRequestsPer, unit);
+      this.minRequestsPerSecond = perSecond(minRequestsPer, unit);
+      return this;
+    }
+
+    /**
+     * Also correct for units shorter than a second, which are zero in whole seconds.
+     */
+    @VisibleForTesting
+    static double perSecond(double amountPerUnit, TimeUnit unit) {
+      return amountPerUnit * TimeUnit.SECONDS.toNanos(1) / unit.toNanos(1);
+    }
+
+    /**
+     * @param retryPolicy decides about retries of idempotent requests after transient failures;
+     *                    without a policy every failure is thrown immediately
+     * @see ExponentialBackoffRetryPolicy
+     */
+    public Builder withRetryPolicy(RetryPolicy retryPolicy) {
+      this.retryPolicy = Optional.of(Checked.nonNull(retryPolicy, "retryPolicy"));
+      return this;
+    }
+
+    /**
+     * @param maxlagSeconds is added as {@code maxlag} parameter to every request, so the server
+     *                      rejects requests while its database replicas lag behind
+     */
+    public Builder withMaxlag(int maxlagSeconds) {
+      this.maxlag = Optional.of(checkPositive(maxlagSeconds, "maxlag"));
+      return this;
+    }
+
+    /**
+     * @param executorService runs the actions of {@code performActionAsync}; if not set, a cached
+     *                        pool of daemon threads, shared by all clients, is used
+     */
+    public Builder withExecutorService(ExecutorService executorService) {
+      this.executorService = Optional.of(Checked.nonNull(executorService, "executorService"));
       return this;
     }
   }
@@ -481,6 +1017,35 @@ public class HttpActionClient {
     }
   }
 
+  private static class AcceptEncodingInterceptor implements HttpRequestInterceptor {
+
+    @Override
+    public void process(HttpRequest request, HttpContext context)
+        throws HttpException, IOException {
+      if (!request.containsHeader(HttpHeaders.ACCEPT_ENCODING)) {
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip,deflate");
+      }
+    }
+  }
+
+  private static class DefaultKeepAliveStrategy extends DefaultConnectionKeepAliveStrategy {
+
+    private final long defaultKeepAliveMillis;
+
+    DefaultKeepAliveStrategy(long defaultKeepAliveMillis) {
+      this.defaultKeepAliveMillis = defaultKeepAliveMillis;
+    }
+
+    @Override
+    public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+      long duration = super.getKeepAliveDuration(response, context);
+      if (duration > 0) {
+        return duration;
+      }
+      return defaultKeepAliveMillis;
+    }
+  }
+
   @VisibleForTesting
   static class UserAgentPart {
     final String name;
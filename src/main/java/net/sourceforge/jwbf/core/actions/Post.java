@@ -27,6 +27,7 @@ public class Post extends HttpBase implements HttpAction {
   private final Supplier<String> req;
   private final ImmutableMultimap.Builder<String, Supplier<Object>> params;
   private final Charset charset;
+  private final boolean idempotent;
 
   /**
    * @deprecated use net.sourceforge.jwbf.core.actions.RequestBuilder
@@ -50,12 +51,18 @@ public class Post extends HttpBase implements HttpAction {
     this.req = req;
     this.charset = charset;
     this.params = params;
+    this.idempotent = false;
   }
 
   Post(Supplier<String> req, Charset charset, Optional<ParamJoiner> joiner) {
+    this(req, charset, joiner, false);
+  }
+
+  Post(Supplier<String> req, Charset charset, Optional<ParamJoiner> joiner, boolean idempotent) {
     super(joiner);
     this.req = req;
     this.charset = charset;
+    this.idempotent = idempotent;
     if (joiner.isPresent()) {
       this.params = joiner.get().postParams();
     } else {
@@ -110,6 +117,14 @@ public class Post extends HttpBase implements HttpAction {
     return charset.displayName();
   }
 
+  /**
+   * @return true if sending this request twice has the same effect as sending it once, so it can
+   * be retried after a transient failure
+   */
+  public boolean isIdempotent() {
+    return idempotent;
+  }
+
   @Override
   public int hashCode() {
     return Objects.hash(getRequest(), getCharset(), getParams());
@@ -19,6 +19,7 @@ public class RequestBuilder {
   private final ImmutableMultimap.Builder<String, Supplier<Object>> postParams =
       ImmutableMultimap.builder();
   private final String path;
+  private boolean idempotent = false;
 
   public RequestBuilder(String path) {
     this.path = path;
@@ -101,8 +102,16 @@ public class RequestBuilder {
     return this;
   }
 
+  /**
+   * Marks a post request as safe to retry, e.g. because it only reads data.
+   */
+  public RequestBuilder idempotent() {
+    this.idempotent = true;
+    return this;
+  }
+
   public Post buildPost() {
-    return new Post(lazy(), Charsets.UTF_8, Optional.of(lazy()));
+    return new Post(lazy(), Charsets.UTF_8, Optional.of(lazy()), idempotent);
   }
 
   public Get buildGet() {
@@ -0,0 +1,21 @@
+package net.sourceforge.jwbf.core.actions;
+
+import com.google.common.annotations.Beta;
+import net.sourceforge.jwbf.core.actions.util.HttpAction;
+
+/**
+ * Decides if and when a request is sent again after a transient failure, like a reset
+ * connection, HTTP 429/5xx or a maxlag error. Only idempotent requests are offered for a retry:
+ * every GET and every POST built with {@link RequestBuilder#idempotent()}.
+ */
+@Beta
+public interface RetryPolicy {
+
+  /**
+   * @param action the failed request
+   * @param retry  number of the retry that would follow, starting with 1
+   * @param cause  the failure
+   * @return milliseconds to wait before the retry or a negative value to give up
+   */
+  long retryDelayMillis(HttpAction action, int retry, RuntimeException cause);
+}
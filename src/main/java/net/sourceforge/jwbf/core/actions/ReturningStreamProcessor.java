@@ -0,0 +1,22 @@
+package net.sourceforge.jwbf.core.actions;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import net.sourceforge.jwbf.core.actions.util.HttpAction;
+
+/**
+ * Receives the response body as a stream, so large responses can be parsed without copying them
+ * into a {@link String} first. {@link ReturningTextProcessor}s are adapted with {@link
+ * TextStreamAdapter}.
+ */
+public interface ReturningStreamProcessor {
+
+  /**
+   * @param in     the undecoded response body, encoded with {@link HttpAction#getCharset()}; it
+   *               is closed by the caller
+   * @param action the request of this response
+   * @return the returning text or a modification of it
+   */
+  String processReturningStream(InputStream in, HttpAction action) throws IOException;
+}
@@ -0,0 +1,70 @@
+package net.sourceforge.jwbf.core.actions;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+
+import net.sourceforge.jwbf.core.actions.util.HttpAction;
+
+/**
+ * Adapts a {@link ReturningTextProcessor} to a {@link ReturningStreamProcessor} by decoding the
+ * whole response into one {@link String}.
+ */
+public class TextStreamAdapter implements ReturningStreamProcessor {
+
+  private static final int BUFFER_SIZE = 8192;
+
+  @Nullable
+  private final ReturningTextProcessor textProcessor;
+
+  /**
+   * @param textProcessor if null, the decoded text is returned unmodified
+   */
+  public TextStreamAdapter(@Nullable ReturningTextProcessor textProcessor) {
+    this.textProcessor = textProcessor;
+  }
+
+  @Override
+  public String processReturningStream(InputStream in, HttpAction action) throws IOException {
+    String text = toText(in, Charset.forName(action.getCharset()));
+    if (textProcessor != null) {
+      return textProcessor.processReturningText(text, action);
+    } else {
+      return text;
+    }
+  }
+
+  /**
+   * Decodes the given stream in one pass. Line breaks ({@code \r\n}, {@code \r} and {@code \n})
+   * are normalized to {@code \n} and the text always ends with a line break.
+   */
+  public static String toText(InputStream in, Charset charset) throws IOException {
+    Reader reader = new InputStreamReader(in, charset);
+    StringBuilder out = new StringBuilder(BUFFER_SIZE);
+    char[] buffer = new char[BUFFER_SIZE];
+    boolean lastWasCarriageReturn = false;
+    int read;
+    while ((read = reader.read(buffer)) != -1) {
+      for (int i = 0; i < read; i++) {
+        char c = buffer[i];
+        if (c == '\r') {
+          out.append('\n');
+          lastWasCarriageReturn = true;
+        } else {
+          if (c != '\n' || !lastWasCarriageReturn) {
+            out.append(c);
+          }
+          lastWasCarriageReturn = false;
+        }
+      }
+    }
+    int length = out.length();
+    if (length == 0 || out.charAt(length - 1) != '\n') {
+      out.append('\n');
+    }
+    return out.toString();
+  }
+}
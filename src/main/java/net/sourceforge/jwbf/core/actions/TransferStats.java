@@ -0,0 +1,49 @@
+package net.sourceforge.jwbf.core.actions;
+
+import com.google.common.base.Objects;
+
+/**
+ * Bytes received for one type of action; compressed bytes are counted as they arrived from the
+ * network, uncompressed bytes after decoding.
+ */
+public final class TransferStats {
+
+  private final long compressedBytes;
+  private final long uncompressedBytes;
+
+  public TransferStats(long compressedBytes, long uncompressedBytes) {
+    this.compressedBytes = compressedBytes;
+    this.uncompressedBytes = uncompressedBytes;
+  }
+
+  public long getCompressedBytes() {
+    return compressedBytes;
+  }
+
+  public long getUncompressedBytes() {
+    return uncompressedBytes;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof TransferStats) {
+      TransferStats that = (TransferStats) obj;
+      return compressedBytes == that.compressedBytes &&
+          uncompressedBytes == that.uncompressedBytes;
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hashCode(compressedBytes, uncompressedBytes);
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(this) //
+        .add("compressedBytes", compressedBytes) //
+        .add("uncompressedBytes", uncompressedBytes) //
+        .toString();
+  }
+}
@@ -52,7 +52,7 @@ public class HttpBot {
   /**
    * @return http raw content
    */
-  public synchronized String performAction(final ContentProcessable a) {
+  public String performAction(final ContentProcessable a) {
     return actionClient.performAction(a);
   }
 
@@ -0,0 +1,15 @@
+package net.sourceforge.jwbf.core.bots;
+
+import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
+
+/**
+ * Optional for a {@link WikiBot}, that can read the metadata of an article without its text.
+ */
+public interface MetadataReader {
+
+  /**
+   * @return like {@link WikiBot#readData(String)}, but without the text
+   */
+  SimpleArticle readMetadata(final String name);
+
+}
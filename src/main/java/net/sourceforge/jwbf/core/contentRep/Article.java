@@ -1,7 +1,9 @@
 package net.sourceforge.jwbf.core.contentRep;
 
 import java.util.Date;
+import java.util.Objects;
 
+import net.sourceforge.jwbf.core.bots.MetadataReader;
 import net.sourceforge.jwbf.core.bots.WikiBot;
 
 /**
@@ -14,12 +16,15 @@ public class Article implements ArticleMeta, ContentSetable {
   private final SimpleArticle sa;
 
   private int reload = 0;
+  private int modified = 0;
   private static final int TEXT_RELOAD = 1 << 1;
   private static final int REVISION_ID_RELOAD = 1 << 2;
   private static final int MINOR_EDIT_RELOAD = 1 << 3;
   private static final int EDITOR_RELOAD = 1 << 4;
   private static final int EDIT_SUM_RELOAD = 1 << 5;
   private static final int EDIT_DATE_RELOAD = 1 << 6;
+  private static final int META_RELOAD =
+      REVISION_ID_RELOAD | MINOR_EDIT_RELOAD | EDITOR_RELOAD | EDIT_SUM_RELOAD | EDIT_DATE_RELOAD;
 
   private boolean isReload(final int reloadVar) {
     return (reload & reloadVar) == 0;
@@ -33,14 +38,76 @@ public class Article implements ArticleMeta, ContentSetable {
     reload = (reload | reloadVar) ^ reloadVar;
   }
 
+  private void setModified(final int modifiedVar) {
+    setReload(modifiedVar);
+    modified = modified | modifiedVar;
+  }
+
+  private boolean isModified(final int modifiedVar) {
+    return (modified & modifiedVar) != 0;
+  }
+
+  /**
+   * Reads the current revision once and fills every value, that was neither read nor set before.
+   */
+  private void load() {
+    SimpleArticle current = bot.readData(sa.getTitle());
+    if (isReload(TEXT_RELOAD)) {
+      sa.setText(current.getText());
+    }
+    hydrate(current, META_RELOAD & ~reload);
+    setReload(TEXT_RELOAD | META_RELOAD);
+  }
+
+  private void hydrate(SimpleArticle current, int fields) {
+    if ((fields & REVISION_ID_RELOAD) != 0) {
+      sa.setRevisionId(current.getRevisionId());
+    }
+    if ((fields & MINOR_EDIT_RELOAD) != 0) {
+      sa.setMinorEdit(current.isMinorEdit());
+    }
+    if ((fields & EDITOR_RELOAD) != 0) {
+      sa.setEditor(current.getEditor());
+    }
+    if ((fields & EDIT_SUM_RELOAD) != 0) {
+      sa.setEditSummary(current.getEditSummary());
+    }
+    if ((fields & EDIT_DATE_RELOAD) != 0) {
+      sa.setEditTimestamp(current.getEditTimestamp());
+    }
+  }
+
+  /**
+   * Reads the revision id, editor, edit summary, minor flag and timestamp of the current revision
+   * again, without its text. Values, that were set since the last {@link #save()}, are kept for
+   * the next save; a text, that was read or set before, is kept too; if the revision has
+   * changed since, a text, that was read, is read again by the next {@link #getText()}. Bots,
+   * that are no {@link MetadataReader}, read the whole revision instead.
+   */
+  public void refreshMetadata() {
+    String revisionId = sa.getRevisionId();
+    hydrate(readMetadata(), META_RELOAD & ~modified);
+    setReload(META_RELOAD);
+    if (!isModified(TEXT_RELOAD) && !Objects.equals(revisionId, sa.getRevisionId())) {
+      unSetReload(TEXT_RELOAD);
+    }
+  }
+
+  private SimpleArticle readMetadata() {
+    if (bot instanceof MetadataReader) {
+      return ((MetadataReader) bot).readMetadata(sa.getTitle());
+    } else {
+      return bot.readData(sa.getTitle());
+    }
+  }
+
   /**
    * {@inheritDoc}
    */
   @Override
   public String getText() {
     if (isReload(TEXT_RELOAD)) {
-      setReload(TEXT_RELOAD);
-      setText(bot.readData(sa.getTitle()).getText());
+      load();
     }
     return sa.getText();
   }
@@ -50,7 +117,7 @@ public class Article implements ArticleMeta, ContentSetable {
    */
   @Override
   public void setText(String text) {
-    setReload(TEXT_RELOAD);
+    setModified(TEXT_RELOAD);
     sa.setText(text);
   }
 
@@ -61,8 +128,7 @@ public class Article implements ArticleMeta, ContentSetable {
   public String getRevisionId() {
 
     if (isReload(REVISION_ID_RELOAD)) {
-      setReload(REVISION_ID_RELOAD);
-      sa.setRevisionId(bot.readData(sa.getTitle()).getRevisionId());
+      load();
     }
     return sa.getRevisionId();
   }
@@ -70,23 +136,21 @@ public class Article implements ArticleMeta, ContentSetable {
   @Override
   public String getEditor() {
     if (isReload(EDITOR_RELOAD)) {
-      setReload(EDITOR_RELOAD);
-      setEditor(bot.readData(sa.getTitle()).getEditor());
+      load();
     }
     return sa.getEditor();
   }
 
   @Override
   public void setEditor(String editor) {
-    setReload(EDITOR_RELOAD);
+    setModified(EDITOR_RELOAD);
     sa.setEditor(editor);
   }
 
   @Override
   public String getEditSummary() {
     if (isReload(EDIT_SUM_RELOAD)) {
-      setReload(EDIT_SUM_RELOAD);
-      setEditSummary(bot.readData(sa.getTitle()).getEditSummary());
+      load();
     }
 
     return sa.getEditSummary();
@@ -94,15 +158,14 @@ public class Article implements ArticleMeta, ContentSetable {
 
   @Override
   public void setEditSummary(String s) {
-    setReload(EDIT_SUM_RELOAD);
+    setModified(EDIT_SUM_RELOAD);
     sa.setEditSummary(s);
   }
 
   @Override
   public boolean isMinorEdit() {
     if (isReload(MINOR_EDIT_RELOAD)) {
-      setReload(MINOR_EDIT_RELOAD);
-      setMinorEdit(bot.readData(sa.getTitle()).isMinorEdit());
+      load();
     }
     return sa.isMinorEdit();
   }
@@ -142,6 +205,7 @@ public class Article implements ArticleMeta, ContentSetable {
     bot.writeContent(sa);
     unSetReload(REVISION_ID_RELOAD);
     setReload(TEXT_RELOAD);
+    modified = 0;
   }
 
   /**
@@ -200,8 +264,7 @@ public class Article implements ArticleMeta, ContentSetable {
   @Override
   public Date getEditTimestamp() {
     if (isReload(EDIT_DATE_RELOAD)) {
-      setReload(EDIT_DATE_RELOAD);
-      sa.setEditTimestamp(bot.readData(sa.getTitle()).getEditTimestamp());
+      load();
     }
     return sa.getEditTimestamp();
   }
@@ -240,6 +303,7 @@ public class Article implements ArticleMeta, ContentSetable {
    */
   @Override
   public void setMinorEdit(boolean minor) {
+    setModified(MINOR_EDIT_RELOAD);
     sa.setMinorEdit(minor);
 
   }
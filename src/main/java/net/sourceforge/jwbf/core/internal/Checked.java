@@ -3,16 +3,20 @@ package net.sourceforge.jwbf.core.internal;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
-import com.google.common.base.Preconditions;
-
 public class Checked {
 
   private Checked() {
     // do nothing
   }
 
+  /**
+   * The message is built only if the check fails, because this is called on hot paths.
+   */
   @Nonnull
   public static <T> T nonNull(@Nullable T t, String msg) {
-    return Preconditions.checkNotNull(t, String.valueOf(msg) + " must not be null");
+    if (t == null) {
+      throw new NullPointerException(String.valueOf(msg) + " must not be null");
+    }
+    return t;
   }
 }
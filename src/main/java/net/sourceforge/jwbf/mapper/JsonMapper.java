@@ -2,16 +2,32 @@ package net.sourceforge.jwbf.mapper;
 
 import javax.annotation.Nonnull;
 import java.io.IOException;
+import java.io.InputStream;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.base.Function;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.io.ByteStreams;
 import net.sourceforge.jwbf.core.internal.Checked;
 
+/**
+ * Maps JSON to objects. The default instance shares one {@link ObjectMapper} and one {@link
+ * ObjectReader} per target class, because building them is much more expensive than reading;
+ * both are thread-safe.
+ */
 public class JsonMapper {
 
+  private static final JacksonToJsonFunction DEFAULT_TRANSFORMER = new JacksonToJsonFunction();
+
   private final ToJsonFunction transfomer;
 
   public JsonMapper() {
-    this(new JacksonToJsonFunction());
+    this(DEFAULT_TRANSFORMER);
   }
 
   public <T> JsonMapper(ToJsonFunction transfomer) {
@@ -20,7 +36,40 @@ public class JsonMapper {
 
   public <T> T get(String json, Class<T> clazz) {
     String nonNullJson = Checked.nonNull(json, "json");
-    return (T) Checked.nonNull(transfomer.toJson(nonNullJson, clazz), "a json mapping result");
+    return checkedResult(transfomer.toJson(nonNullJson, clazz));
+  }
+
+  /**
+   * @param json encoded as UTF-8, UTF-16 or UTF-32, like JSON requires it
+   */
+  public <T> T get(byte[] json, Class<T> clazz) {
+    byte[] nonNullJson = Checked.nonNull(json, "json");
+    if (transfomer instanceof ToJsonStreamFunction) {
+      return checkedResult(((ToJsonStreamFunction) transfomer).toJson(nonNullJson, clazz));
+    }
+    return get(new String(nonNullJson, Charsets.UTF_8), clazz);
+  }
+
+  /**
+   * Reads the given stream without decoding it into a {@link String} first.
+   *
+   * @see #get(byte[], Class)
+   */
+  public <T> T get(InputStream json, Class<T> clazz) {
+    InputStream nonNullJson = Checked.nonNull(json, "json");
+    if (transfomer instanceof ToJsonStreamFunction) {
+      return checkedResult(((ToJsonStreamFunction) transfomer).toJson(nonNullJson, clazz));
+    }
+    try {
+      return get(ByteStreams.toByteArray(nonNullJson), clazz);
+    } catch (IOException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T checkedResult(Object result) {
+    return (T) Checked.nonNull(result, "a json mapping result");
   }
 
   public interface ToJsonFunction {
@@ -28,17 +77,67 @@ public class JsonMapper {
     Object toJson(@Nonnull String jsonString, Class<?> clazz);
   }
 
-  static class JacksonToJsonFunction implements ToJsonFunction {
+  /**
+   * A {@link ToJsonFunction}, that also reads undecoded input.
+   */
+  public interface ToJsonStreamFunction extends ToJsonFunction {
+    @Nonnull
+    Object toJson(@Nonnull byte[] json, Class<?> clazz);
+
+    @Nonnull
+    Object toJson(@Nonnull InputStream json, Class<?> clazz);
+  }
+
+  static class JacksonToJsonFunction implements ToJsonStreamFunction {
+
+    private final LoadingCache<Class<?>, ObjectReader> readers;
+
+    JacksonToJsonFunction() {
+      this(new ObjectMapper());
+    }
+
+    @VisibleForTesting
+    JacksonToJsonFunction(final ObjectMapper mapper) {
+      Checked.nonNull(mapper, "mapper");
+      readers = CacheBuilder.newBuilder() //
+          .weakKeys() //
+          .build(CacheLoader.from(new Function<Class<?>, ObjectReader>() {
+            @Override
+            public ObjectReader apply(Class<?> clazz) {
+              return mapper.reader(clazz);
+            }
+          }));
+    }
 
-    ObjectMapper newObjectMapper() {
-      return new ObjectMapper();
+    ObjectReader readerFor(Class<?> clazz) {
+      return readers.getUnchecked(clazz);
     }
 
     @Nonnull
     @Override
     public Object toJson(@Nonnull String jsonString, Class<?> clazz) {
       try {
-        return newObjectMapper().readValue(jsonString, clazz);
+        return readerFor(clazz).readValue(jsonString);
+      } catch (IOException e) {
+        throw new IllegalArgumentException(e);
+      }
+    }
+
+    @Nonnull
+    @Override
+    public Object toJson(@Nonnull byte[] json, Class<?> clazz) {
+      try {
+        return readerFor(clazz).readValue(json);
+      } catch (IOException e) {
+        throw new IllegalArgumentException(e);
+      }
+    }
+
+    @Nonnull
+    @Override
+    public Object toJson(@Nonnull InputStream json, Class<?> clazz) {
+      try {
+        return readerFor(clazz).readValue(json);
       } catch (IOException e) {
         throw new IllegalArgumentException(e);
       }
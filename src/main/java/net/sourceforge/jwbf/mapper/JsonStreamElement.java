@@ -0,0 +1,55 @@
+package net.sourceforge.jwbf.mapper;
+
+import javax.annotation.CheckForNull;
+import java.util.Map;
+
+import com.google.common.base.Strings;
+
+/**
+ * The current object or scalar array item of a {@link JsonStreamParser}.
+ */
+final class JsonStreamElement extends StreamElement {
+
+  static final String TEXT_FIELD = "*";
+
+  private String name = "";
+  private Map<String, String> fields = null;
+  private String scalar = null;
+
+  void resetObject(String name, Map<String, String> fields) {
+    this.name = name;
+    this.fields = fields;
+    this.scalar = null;
+  }
+
+  void resetScalar(String name, String value) {
+    this.name = name;
+    this.fields = null;
+    this.scalar = value;
+  }
+
+  /**
+   * @return the name of the field; items of an array have the name of the array
+   */
+  @Override
+  public String getQualifiedName() {
+    return name;
+  }
+
+  @CheckForNull
+  @Override
+  public String getAttributeValue(String name) {
+    if (fields == null) {
+      return null;
+    }
+    return fields.get(name);
+  }
+
+  @Override
+  public String getText() {
+    if (fields == null) {
+      return Strings.nullToEmpty(scalar);
+    }
+    return Strings.nullToEmpty(fields.get(TEXT_FIELD));
+  }
+}
@@ -0,0 +1,188 @@
+package net.sourceforge.jwbf.mapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import net.sourceforge.jwbf.core.Optionals;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link StreamParser} for JSON, based on the streaming {@link JsonParser} of Jackson. Objects
+ * and arrays of the response are mapped to elements like MediaWiki does it for XML, so most
+ * paths work for both formats:
+ * <ul>
+ * <li>an object is an element, its scalar fields are the attributes;</li>
+ * <li>the items of an array have no name of their own, so every name of a path matches them,
+ * e.g. {@code "query", "allpages", "p"} matches the items of {@code {"query":{"allpages":[…]}}};
+ * scalar items, like the groups of an user, are elements with the value as text.</li>
+ * </ul>
+ * A handler of an object is called at the end of the object, after the handlers of its children.
+ * Numbers and booleans are given as text; fields with {@code null} are absent. Objects and arrays
+ * without a handler for them or one of their children are skipped.
+ */
+public final class JsonStreamParser extends StreamParser {
+
+  private static final Logger log = LoggerFactory.getLogger(JsonStreamParser.class);
+
+  private static final JsonFactory FACTORY = new JsonFactory();
+
+  @Override
+  public void parse(String json) {
+    String nonEmpty = Optionals.getOrThrow(Optionals.absentIfEmpty(json), "Invalid JSON: " + json);
+    try {
+      parse(FACTORY.createParser(nonEmpty));
+    } catch (JsonParseException e) {
+      log.error(json);
+      throw new IllegalArgumentException("Invalid JSON: " + e.getMessage(), e);
+    } catch (IOException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  /**
+   * The encoding is detected like JSON requires it.
+   */
+  @Override
+  public void parse(InputStream in) {
+    try {
+      parse(FACTORY.createParser(in));
+    } catch (JsonParseException e) {
+      throw new IllegalArgumentException("Invalid JSON: " + e.getMessage(), e);
+    } catch (IOException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  private void parse(JsonParser parser) throws IOException {
+    try {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IllegalArgumentException("Invalid JSON: the root must be an object");
+      }
+      new Run(parser).readObject();
+    } finally {
+      parser.close();
+    }
+  }
+
+  /**
+   * The state of one parsing.
+   */
+  private final class Run {
+
+    private final JsonParser parser;
+    private final List<String> stack = Lists.newArrayList();
+    private final List<Map<String, String>> fieldsByDepth = Lists.newArrayList();
+    private final JsonStreamElement element = new JsonStreamElement();
+
+    Run(JsonParser parser) {
+      this.parser = parser;
+    }
+
+    /**
+     * Reads the object, which starts at the current token.
+     */
+    void readObject() throws IOException {
+      int depth = stack.size();
+      Map<String, String> fields = fieldsAt(depth);
+      while (parser.nextToken() != JsonToken.END_OBJECT) {
+        String name = parser.getCurrentName();
+        JsonToken token = parser.nextToken();
+        if (token.isScalarValue()) {
+          if (token != JsonToken.VALUE_NULL) {
+            fields.put(name, parser.getText());
+          }
+        } else if (depth == 0 && ERROR.equals(name) && token == JsonToken.START_OBJECT) {
+          throw toApiException();
+        } else {
+          readContainer(name, token);
+        }
+      }
+      if (depth > 0) {
+        element.resetObject(lastName(), fields);
+        dispatch(stack, element);
+      }
+    }
+
+    private void readArray() throws IOException {
+      JsonToken token = parser.nextToken();
+      while (token != JsonToken.END_ARRAY) {
+        if (token.isScalarValue()) {
+          stack.add(null);
+          if (token != JsonToken.VALUE_NULL) {
+            element.resetScalar(lastName(), parser.getText());
+            dispatch(stack, element);
+          }
+          stack.remove(stack.size() - 1);
+        } else {
+          readContainer(null, token);
+        }
+        token = parser.nextToken();
+      }
+    }
+
+    private void readContainer(String name, JsonToken token) throws IOException {
+      stack.add(name);
+      if (!isObserved(stack)) {
+        parser.skipChildren();
+      } else if (token == JsonToken.START_OBJECT) {
+        readObject();
+      } else {
+        readArray();
+      }
+      stack.remove(stack.size() - 1);
+    }
+
+    /**
+     * @return the reused map for the fields of an object at the given depth
+     */
+    private Map<String, String> fieldsAt(int depth) {
+      while (fieldsByDepth.size() <= depth) {
+        fieldsByDepth.add(Maps.<String, String>newHashMap());
+      }
+      Map<String, String> fields = fieldsByDepth.get(depth);
+      fields.clear();
+      return fields;
+    }
+
+    /**
+     * @return the name of the current object or array; items are named like their array
+     */
+    private String lastName() {
+      for (int i = stack.size() - 1; i >= 0; i--) {
+        String name = stack.get(i);
+        if (name != null) {
+          return name;
+        }
+      }
+      return "";
+    }
+
+    private ApiException toApiException() throws IOException {
+      Map<String, String> fields = fieldsAt(1);
+      while (parser.nextToken() != JsonToken.END_OBJECT) {
+        String name = parser.getCurrentName();
+        JsonToken token = parser.nextToken();
+        if (token.isScalarValue()) {
+          fields.put(name, parser.getText());
+        } else {
+          parser.skipChildren();
+        }
+      }
+      String code = fields.get("code");
+      String info = fields.get("info");
+      log.error(code + ": " + info);
+      return new ApiException(code, info);
+    }
+  }
+
+}
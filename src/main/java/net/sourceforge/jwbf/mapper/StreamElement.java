@@ -0,0 +1,65 @@
+package net.sourceforge.jwbf.mapper;
+
+import javax.annotation.CheckForNull;
+import java.io.IOException;
+import java.io.Writer;
+
+import com.google.common.base.Optional;
+
+/**
+ * An element of a MediaWiki API response; either a node of a parsed document, see {@link
+ * XmlElement}, or the current element of a {@link StreamParser}. The latter is reused for all
+ * elements of a document, as a view on the underlying stream; so it is only valid while the
+ * handler, that received it, is running. Copy the values you need.
+ * <p>
+ * Attributes are XML attributes or the scalar fields of a JSON object; the text is the XML element
+ * text or the {@code *} field of a JSON object, like MediaWiki writes it.
+ */
+public abstract class StreamElement {
+
+  public abstract String getQualifiedName();
+
+  @CheckForNull
+  public abstract String getAttributeValue(String name);
+
+  /**
+   * @return the text of this element, or an empty string
+   */
+  public abstract String getText();
+
+  /**
+   * Writes the text of this element to the given writer; like {@link #getText()}, it can be read
+   * only once from a stream. Elements of a {@link XmlStreamParser} pass the text on in chunks, so
+   * it is never held as one {@link String}; other elements write their text at once.
+   *
+   * @return the number of written characters
+   */
+  public long writeText(Writer out) throws IOException {
+    String text = getText();
+    out.write(text);
+    return text.length();
+  }
+
+  public Optional<String> getAttributeValueOpt(String name) {
+    return Optional.fromNullable(getAttributeValue(name));
+  }
+
+  public String getAttributeValueNonNull(String name) {
+    String value = getAttributeValue(name);
+    if (value == null) {
+      throw new NullPointerException("attribute value for key: " + name + " must not be null");
+    }
+    return value;
+  }
+
+  public boolean hasAttribute(String name) {
+    return getAttributeValue(name) != null;
+  }
+
+  /**
+   * @return true if the stream was moved behind this element
+   */
+  boolean isConsumed() {
+    return false;
+  }
+}
@@ -0,0 +1,106 @@
+package net.sourceforge.jwbf.mapper;
+
+import java.io.InputStream;
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
+
+/**
+ * Reads a MediaWiki API response event by event, without building a document tree. Handlers are
+ * registered for paths of element names below the root, like in {@link
+ * XmlConverter#getChild(String, String, String...)}, and are called in document order for every
+ * matching element; {@value #ANY} matches every name. An {@code error} element below the root is
+ * thrown as {@link ApiException}.
+ * <pre>
+ * final ImmutableList.Builder&lt;String&gt; titles = ImmutableList.builder();
+ * new XmlStreamParser() //
+ *     .on(new StreamParser.ElementHandler() {
+ *       public void handle(StreamElement element) {
+ *         titles.add(element.getAttributeValueNonNull("title"));
+ *       }
+ *     }, "query", "allpages", "p") //
+ *     .parse(xml);
+ * </pre>
+ *
+ * @see XmlStreamParser
+ * @see JsonStreamParser
+ */
+public abstract class StreamParser {
+
+  public static final String ANY = "*";
+
+  static final String ERROR = "error";
+
+  public interface ElementHandler {
+
+    void handle(StreamElement element);
+  }
+
+  private final List<String[]> paths = Lists.newArrayList();
+  private final List<ElementHandler> handlers = Lists.newArrayList();
+
+  /**
+   * @param handler to call for every element at the given path
+   * @param first   name of the first element below the root
+   * @param path    names of the following elements
+   */
+  public StreamParser on(ElementHandler handler, String first, String... path) {
+    paths.add(ImmutableList.<String>builder().add(first).add(path).build()
+        .toArray(new String[path.length + 1]));
+    handlers.add(handler);
+    return this;
+  }
+
+  public abstract void parse(String text);
+
+  /**
+   * Like {@link #parse(String)}, but reads the document directly from the given stream.
+   */
+  public abstract void parse(InputStream in);
+
+  /**
+   * Calls all handlers, that are registered for the given path.
+   *
+   * @param stack names of the current element and its parents below the root; {@code null}
+   *              matches every name
+   */
+  void dispatch(List<String> stack, StreamElement element) {
+    for (int i = 0; i < paths.size(); i++) {
+      if (matches(paths.get(i), stack, false)) {
+        handlers.get(i).handle(element);
+        if (element.isConsumed()) {
+          // no other handler can read it
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * @return true if a handler is registered for the given path or one of its children
+   */
+  boolean isObserved(List<String> stack) {
+    for (String[] path : paths) {
+      if (matches(path, stack, true)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean matches(String[] path, List<String> stack, boolean prefix) {
+    int size = stack.size();
+    if (path.length < size || (!prefix && path.length != size)) {
+      return false;
+    }
+    for (int i = size - 1; i >= 0; i--) {
+      String name = stack.get(i);
+      if (name != null && !path[i].equals(ANY) && !path[i].equals(name)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -2,29 +2,36 @@ package net.sourceforge.jwbf.mapper;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nonnull;
+import javax.xml.XMLConstants;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.SequenceInputStream;
+import java.io.StringReader;
+import java.util.concurrent.ExecutionException;
 
-import com.google.common.base.Charsets;
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Iterables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import net.sourceforge.jwbf.core.Optionals;
 import net.sourceforge.jwbf.core.actions.util.ActionException;
 import net.sourceforge.jwbf.core.internal.NonnullFunction;
-import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
 import org.jdom2.Document;
 import org.jdom2.JDOMException;
 import org.jdom2.input.SAXBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xml.sax.EntityResolver;
 import org.xml.sax.InputSource;
 
 public final class XmlConverter {
@@ -35,6 +42,60 @@ public final class XmlConverter {
 
   private static final Logger log = LoggerFactory.getLogger(XmlConverter.class);
 
+  private static final int MAX_COMPILED_XPATHS = 64;
+
+  /**
+   * Compiled expressions per thread, because neither {@link XPath} nor {@link XPathExpression}
+   * are thread-safe.
+   */
+  private static final ThreadLocal<LoadingCache<String, XPathExpression>> XPATHS =
+      new ThreadLocal<LoadingCache<String, XPathExpression>>() {
+        @Override
+        protected LoadingCache<String, XPathExpression> initialValue() {
+          final XPath xpath = XPathFactory.newInstance().newXPath();
+          return CacheBuilder.newBuilder() //
+              .maximumSize(MAX_COMPILED_XPATHS) //
+              .build(new CacheLoader<String, XPathExpression>() {
+                @Override
+                public XPathExpression load(String expression) throws XPathExpressionException {
+                  return xpath.compile(expression);
+                }
+              });
+        }
+      };
+
+  /**
+   * One builder per thread, because a {@link SAXBuilder} is not thread-safe; each builder keeps
+   * its configured parser, so the JAXP lookup and the parser setup happen once per thread.
+   */
+  private static final ThreadLocal<SAXBuilder> BUILDERS = new ThreadLocal<SAXBuilder>() {
+    @Override
+    protected SAXBuilder initialValue() {
+      return newBuilder();
+    }
+  };
+
+  /**
+   * @return a builder, that reuses its parser and never loads external entities or DTDs
+   */
+  static SAXBuilder newBuilder() {
+    SAXBuilder builder = new SAXBuilder();
+    builder.setReuseParser(true);
+    builder.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+    builder.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+    builder.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+    // the builder sets external-general-entities itself, so they are resolved to nothing instead
+    builder.setEntityResolver(NO_EXTERNAL_ENTITIES);
+    return builder;
+  }
+
+  private static final EntityResolver NO_EXTERNAL_ENTITIES = new EntityResolver() {
+    @Override
+    public InputSource resolveEntity(String publicId, String systemId) {
+      return new InputSource(new StringReader(""));
+    }
+  };
+
   public static Function<XmlElement, ApiException> toApiException() {
     return new NonnullFunction<XmlElement, ApiException>() {
       @Nonnull
@@ -60,28 +121,44 @@ public final class XmlConverter {
   static Optional<XmlElement> getRootElementWithErrorOpt(String xml) {
     Optional<String> xmlStringOpt = Optionals.absentIfEmpty(xml);
     if (xmlStringOpt.isPresent()) {
-      SAXBuilder builder = new SAXBuilder();
-      org.jdom2.Element root;
       try {
-        Document doc = builder.build(new ByteArrayInputStream(xml.getBytes(Charsets.UTF_8)));
-
-        root = doc.getRootElement();
-
+        return Optional.of(build(new StringReader(xml)));
       } catch (JDOMException e) {
         log.error(xml);
         return Optional.absent();
-      } catch (IOException e) {
-        throw new IllegalArgumentException(e);
       }
-      if (root == null) {
-        throw new ActionException("no root element found");
-      }
-      return Optional.of(new XmlElement(root));
     } else {
       return Optional.absent();
     }
   }
 
+  private static XmlElement build(InputStream in) throws JDOMException {
+    try {
+      return build(BUILDERS.get().build(in));
+    } catch (IOException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  /**
+   * Reads already decoded text, so it is not encoded again only to be decoded by the parser.
+   */
+  private static XmlElement build(Reader in) throws JDOMException {
+    try {
+      return build(BUILDERS.get().build(in));
+    } catch (IOException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  private static XmlElement build(Document doc) {
+    org.jdom2.Element root = doc.getRootElement();
+    if (root == null) {
+      throw new ActionException("no root element found");
+    }
+    return new XmlElement(root);
+  }
+
   /**
    * Determines if the given XML Document contains an error message which then would printed by the
    * logger.
@@ -112,43 +189,32 @@ public final class XmlConverter {
     return rootXmlElement.get();
   }
 
+  /**
+   * Evaluates the given expression, which is compiled only once per thread. Prefer {@link
+   * XmlPath} to read elements or attributes, because it can be evaluated many times on one parsed
+   * document.
+   */
   public static String evaluateXpath(String xml, String xpath) {
-    XPath parser = XPathFactory.newInstance().newXPath();
     try {
-      XPathExpression titleParser = parser.compile(xpath);
-      ByteArrayInputStream byteStream //
-          = new ByteArrayInputStream(xml.getBytes(MediaWiki.getCharset()));
-      InputSource in = new InputSource(byteStream);
-      return titleParser.evaluate(in);
-    } catch (XPathExpressionException | UnsupportedEncodingException e) {
+      return XPATHS.get().get(xpath).evaluate(new InputSource(new StringReader(xml)));
+    } catch (XPathExpressionException e) {
       throw new IllegalArgumentException(e);
+    } catch (ExecutionException e) {
+      throw new IllegalArgumentException(e.getCause());
     }
   }
 
+  /**
+   * Parses the given document to evaluate one path on it; use {@link XmlPath} to evaluate many
+   * paths on one parsed document.
+   */
   @CheckForNull
   public static XmlElement getChild(String xml, String first, String... childNames) {
     if (first == null) {
       return null;
     }
-    ImmutableList<String> names = ImmutableList.<String>builder() //
-        .add(first) //
-        .addAll(ImmutableList.copyOf(childNames)) //
-        .build();
-
-    XmlElement rootElement = getRootElement(xml);
-    return getChild(rootElement, names);
-  }
-
-  private static XmlElement getChild(XmlElement element, ImmutableList<String> names) {
-    if (element == null) {
-      return null;
-    } else if (names.isEmpty()) {
-      return element;
-    } else {
-      ImmutableList<String> withoutFirst = names.subList(1, names.size());
-      XmlElement child = element.getChild(Iterables.getFirst(names, null));
-      return getChild(child, withoutFirst);
-    }
+    XmlPath path = XmlPath.of(first, childNames);
+    return path.evaluate(getRootElement(xml));
   }
 
   public static void failOnError(String xml) {
@@ -156,7 +222,28 @@ public final class XmlConverter {
   }
 
   public static XmlElement getChecked(String xml) {
-    XmlElement root = getRootElementWithError(xml);
+    return checked(getRootElementWithError(xml));
+  }
+
+  /**
+   * Like {@link #getChecked(String)}, but parses the document directly from the given stream;
+   * the encoding is taken from the XML declaration. An error, that is the first child of the
+   * root, is thrown before the rest of the stream is read.
+   */
+  public static XmlElement getChecked(InputStream in) {
+    RecordingInputStream recording = new RecordingInputStream(in);
+    Optional<ApiException> error = XmlStreamParser.readLeadingError(recording);
+    if (error.isPresent()) {
+      throw error.get();
+    }
+    try {
+      return checked(build(recording.replay()));
+    } catch (JDOMException e) {
+      throw new IllegalArgumentException("Invalid XML: " + e.getMessage(), e);
+    }
+  }
+
+  private static XmlElement checked(XmlElement root) {
     Optional<ApiException> error = root.getErrorElement().transform(toApiException());
     if (error.isPresent()) {
       throw error.get();
@@ -164,4 +251,51 @@ public final class XmlConverter {
     return root;
   }
 
+  /**
+   * Keeps the bytes read so far, so a stream can be parsed again from its start.
+   */
+  private static class RecordingInputStream extends FilterInputStream {
+
+    private final ByteArrayOutputStream recorded = new ByteArrayOutputStream();
+
+    RecordingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) {
+        recorded.write(b);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int count = super.read(b, off, len);
+      if (count > 0) {
+        recorded.write(b, off, count);
+      }
+      return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      return Math.max(0, read(new byte[(int) Math.max(0, Math.min(n, 8192))]));
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    /**
+     * @return the recorded bytes followed by the rest of the stream
+     */
+    InputStream replay() {
+      return new SequenceInputStream(new ByteArrayInputStream(recorded.toByteArray()), in);
+    }
+  }
+
 }
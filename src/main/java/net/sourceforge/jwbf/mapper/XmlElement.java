@@ -10,21 +10,32 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import net.sourceforge.jwbf.core.internal.Checked;
 
-public class XmlElement {
+/**
+ * An element of a parsed document. {@link #getChildren()} wraps every child into a new element;
+ * to walk large documents use the cursor methods {@link #forEachChild(String,
+ * StreamParser.ElementHandler)} and {@link #forEachDescendant(String, StreamParser.ElementHandler)}
+ * and read attributes by index, which allocate nothing per element.
+ */
+public class XmlElement extends StreamElement {
 
   public static final XmlElement NULL_XML = new XmlElement(null);
 
-  private final org.jdom2.Element element;
+  /**
+   * Only moved for cursors, which are never handed out beyond a handler call.
+   */
+  private org.jdom2.Element element;
 
   XmlElement(org.jdom2.Element element) {
     this.element = element;
   }
 
+  @Override
   public String getQualifiedName() {
     return element.getQualifiedName();
   }
 
   @CheckForNull
+  @Override
   public String getAttributeValue(String name) {
     if (element == null) {
       return null;
@@ -33,14 +44,6 @@ public class XmlElement {
     }
   }
 
-  public Optional<String> getAttributeValueOpt(String name) {
-    return Optional.fromNullable(getAttributeValue(name));
-  }
-
-  public String getAttributeValueNonNull(String name) {
-    return Checked.nonNull(getAttributeValue(name), "attribute value for key: " + name);
-  }
-
   @Deprecated
   @CheckForNull
   public String getChildAttributeValue(String childName, String attributeName) {
@@ -98,11 +101,117 @@ public class XmlElement {
     return toElements(element.getChildren(name));
   }
 
+  /**
+   * Calls the handler for every child with the given name in document order. The handler gets
+   * the same cursor for all children, which must not be kept after the call.
+   *
+   * @param name of the children, or {@code null} for all children
+   */
+  public void forEachChild(@Nullable String name, StreamParser.ElementHandler handler) {
+    if (element != null) {
+      visit(element, name, handler, new XmlElement(null), false);
+    }
+  }
+
+  /**
+   * Like {@link #forEachChild(String, StreamParser.ElementHandler)}, but for all elements below
+   * this one with the given name, depth-first in document order; the children of a matching
+   * element are not visited.
+   */
+  public void forEachDescendant(String name, StreamParser.ElementHandler handler) {
+    if (element != null) {
+      visit(element, Checked.nonNull(name, "name"), handler, new XmlElement(null), true);
+    }
+  }
+
+  private static void visit(org.jdom2.Element parent, @Nullable String name,
+      StreamParser.ElementHandler handler, XmlElement cursor, boolean deep) {
+    int size = parent.getContentSize();
+    for (int i = 0; i < size; i++) {
+      org.jdom2.Content content = parent.getContent(i);
+      if (content instanceof org.jdom2.Element) {
+        org.jdom2.Element child = (org.jdom2.Element) content;
+        if (name == null || name.equals(child.getName())) {
+          cursor.element = child;
+          handler.handle(cursor);
+        } else if (deep) {
+          visit(child, name, handler, cursor, true);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the first element below this one with the given name, depth-first in document order,
+   * or {@link #NULL_XML}
+   */
+  public XmlElement getDescendant(String name) {
+    Checked.nonNull(name, "name");
+    if (element == null) {
+      return NULL_XML;
+    }
+    org.jdom2.Element descendant = findDescendant(element, name);
+    if (descendant == null) {
+      return NULL_XML;
+    }
+    return new XmlElement(descendant);
+  }
+
+  @CheckForNull
+  private static org.jdom2.Element findDescendant(org.jdom2.Element parent, String name) {
+    int size = parent.getContentSize();
+    for (int i = 0; i < size; i++) {
+      org.jdom2.Content content = parent.getContent(i);
+      if (content instanceof org.jdom2.Element) {
+        org.jdom2.Element child = (org.jdom2.Element) content;
+        if (name.equals(child.getName())) {
+          return child;
+        }
+        org.jdom2.Element found = findDescendant(child, name);
+        if (found != null) {
+          return found;
+        }
+      }
+    }
+    return null;
+  }
+
+  public int getAttributeCount() {
+    if (element == null || !element.hasAttributes()) {
+      return 0;
+    }
+    return element.getAttributes().size();
+  }
+
+  /**
+   * @param index between 0 and {@link #getAttributeCount()}, in document order
+   */
+  public String getAttributeName(int index) {
+    return attributeAt(index).getName();
+  }
+
+  /**
+   * @param index between 0 and {@link #getAttributeCount()}, in document order
+   */
+  public String getAttributeValue(int index) {
+    return attributeAt(index).getValue();
+  }
+
+  private org.jdom2.Attribute attributeAt(int index) {
+    int count = getAttributeCount();
+    if (index < 0 || index >= count) {
+      throw new IndexOutOfBoundsException("index " + index + " of " + count + " attributes");
+    }
+    return element.getAttributes().get(index);
+  }
+
+  @Override
   public boolean hasAttribute(String name) {
     org.jdom2.Attribute attribute = element.getAttribute(name);
     return attribute != null;
   }
 
+  @Override
   public String getText() {
     return element.getText();
   }
@@ -0,0 +1,83 @@
+package net.sourceforge.jwbf.mapper;
+
+import javax.annotation.CheckForNull;
+import java.util.List;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import net.sourceforge.jwbf.core.internal.Checked;
+
+/**
+ * A precompiled path of element names, like {@code query/pages/page}. Paths are immutable and
+ * thread-safe, so compile them once, e.g. as constants, and evaluate them on many documents; if
+ * several values are needed from one response, parse it once with {@link
+ * XmlConverter#getChecked(String)} and evaluate all paths on the result.
+ * <pre>
+ * private static final XmlPath PAGE = XmlPath.of("query", "pages", "page");
+ * private static final XmlPath NORMALIZED = XmlPath.of("query", "normalized", "n");
+ *
+ * XmlElement root = XmlConverter.getChecked(xml);
+ * XmlElement page = PAGE.evaluate(root);
+ * List&lt;XmlElement&gt; normalized = NORMALIZED.evaluateAll(root);
+ * </pre>
+ */
+public final class XmlPath {
+
+  private final String[] names;
+
+  private XmlPath(String[] names) {
+    this.names = names;
+  }
+
+  /**
+   * @param first name of the first element below the element, the path is evaluated on
+   * @param names of the following elements
+   */
+  public static XmlPath of(String first, String... names) {
+    String[] all = new String[names.length + 1];
+    all[0] = Checked.nonNull(first, "first name");
+    for (int i = 0; i < names.length; i++) {
+      all[i + 1] = Checked.nonNull(names[i], "name");
+    }
+    return new XmlPath(all);
+  }
+
+  /**
+   * @return the first element at this path, or {@link XmlElement#NULL_XML} if there is none
+   */
+  public XmlElement evaluate(XmlElement element) {
+    XmlElement current = element;
+    for (int i = 0; i < names.length && current != XmlElement.NULL_XML; i++) {
+      current = current.getChild(names[i]);
+    }
+    return current;
+  }
+
+  /**
+   * @return all elements with the last name of this path below the first element at the path of
+   * the other names
+   */
+  public List<XmlElement> evaluateAll(XmlElement element) {
+    XmlElement parent = element;
+    for (int i = 0; i < names.length - 1 && parent != XmlElement.NULL_XML; i++) {
+      parent = parent.getChild(names[i]);
+    }
+    if (parent == XmlElement.NULL_XML) {
+      return ImmutableList.of();
+    }
+    return parent.getChildren(names[names.length - 1]);
+  }
+
+  /**
+   * @return the value of the attribute of the first element at this path, or {@code null}
+   */
+  @CheckForNull
+  public String attributeValue(XmlElement element, String attributeName) {
+    return evaluate(element).getAttributeValue(attributeName);
+  }
+
+  @Override
+  public String toString() {
+    return Joiner.on('/').join(names);
+  }
+}
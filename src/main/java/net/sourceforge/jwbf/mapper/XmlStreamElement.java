@@ -0,0 +1,97 @@
+package net.sourceforge.jwbf.mapper;
+
+import javax.annotation.CheckForNull;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * The current start element of a {@link XmlStreamParser}.
+ */
+final class XmlStreamElement extends StreamElement {
+
+  private final XMLStreamReader reader;
+  private boolean textConsumed = false;
+
+  XmlStreamElement(XMLStreamReader reader) {
+    this.reader = reader;
+  }
+
+  @Override
+  public String getQualifiedName() {
+    return reader.getLocalName();
+  }
+
+  @CheckForNull
+  @Override
+  public String getAttributeValue(String name) {
+    return reader.getAttributeValue(null, name);
+  }
+
+  /**
+   * Reads the text of this element, which must not have child elements. The stream is moved to
+   * the end of this element, so this method can be called only once.
+   */
+  @Override
+  public String getText() {
+    checkTextNotConsumed();
+    try {
+      String text = reader.getElementText();
+      textConsumed = true;
+      return text;
+    } catch (XMLStreamException e) {
+      throw new IllegalArgumentException("Invalid XML: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Writes the text chunks of the parser without copying them into a {@link String}; like {@link
+   * #getText()}, the element must not have child elements.
+   */
+  @Override
+  public long writeText(Writer out) throws IOException {
+    checkTextNotConsumed();
+    String name = getQualifiedName();
+    try {
+      long written = 0;
+      int event = reader.next();
+      while (event != XMLStreamConstants.END_ELEMENT) {
+        if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA ||
+            event == XMLStreamConstants.SPACE) {
+          int length = reader.getTextLength();
+          out.write(reader.getTextCharacters(), reader.getTextStart(), length);
+          written += length;
+        } else if (event == XMLStreamConstants.ENTITY_REFERENCE) {
+          String text = reader.getText();
+          out.write(text);
+          written += text.length();
+        } else if (event == XMLStreamConstants.START_ELEMENT ||
+            event == XMLStreamConstants.END_DOCUMENT) {
+          throw new IllegalArgumentException("Invalid XML: " + name + " has no text only content");
+        }
+        event = reader.next();
+      }
+      textConsumed = true;
+      return written;
+    } catch (XMLStreamException e) {
+      throw new IllegalArgumentException("Invalid XML: " + e.getMessage(), e);
+    }
+  }
+
+  private void checkTextNotConsumed() {
+    if (textConsumed) {
+      throw new IllegalStateException("text of " + getQualifiedName() + " was already read");
+    }
+  }
+
+  void reset() {
+    textConsumed = false;
+  }
+
+  @Override
+  boolean isConsumed() {
+    return textConsumed;
+  }
+}
@@ -0,0 +1,130 @@
+package net.sourceforge.jwbf.mapper;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.List;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import net.sourceforge.jwbf.core.Optionals;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link StreamParser} for XML, based on StAX. A handler is called at the start of its element,
+ * before the handlers of the children.
+ */
+public final class XmlStreamParser extends StreamParser {
+
+  private static final Logger log = LoggerFactory.getLogger(XmlStreamParser.class);
+
+  private static final XMLInputFactory FACTORY = newFactory();
+
+  private static XMLInputFactory newFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    // text is read chunk by chunk, so large texts can be written on without one copy in memory
+    factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+    return factory;
+  }
+
+  @Override
+  public void parse(String xml) {
+    String nonEmpty = Optionals.getOrThrow(Optionals.absentIfEmpty(xml), "Invalid XML: " + xml);
+    try {
+      parse(FACTORY.createXMLStreamReader(new StringReader(nonEmpty)));
+    } catch (XMLStreamException e) {
+      log.error(xml);
+      throw new IllegalArgumentException("Invalid XML: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * The encoding is taken from the XML declaration.
+   */
+  @Override
+  public void parse(InputStream in) {
+    try {
+      parse(FACTORY.createXMLStreamReader(in));
+    } catch (XMLStreamException e) {
+      throw new IllegalArgumentException("Invalid XML: " + e.getMessage(), e);
+    }
+  }
+
+  private void parse(XMLStreamReader reader) throws XMLStreamException {
+    try {
+      List<String> stack = Lists.newArrayList();
+      XmlStreamElement element = new XmlStreamElement(reader);
+      int depth = -1;
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          depth++;
+          if (depth > 0) {
+            String name = reader.getLocalName();
+            stack.add(name);
+            if (depth == 1 && ERROR.equals(name)) {
+              throw toApiException(reader);
+            }
+            element.reset();
+            dispatch(stack, element);
+            if (element.isConsumed()) {
+              // the reader is already at the end element
+              stack.remove(depth - 1);
+              depth--;
+            }
+          }
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          if (depth > 0) {
+            stack.remove(depth - 1);
+          }
+          depth--;
+        }
+      }
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Reads the given stream only up to the first child of the root element.
+   *
+   * @return the error, if it is the first child of the root; absent, if it is not or if the
+   * document starts invalid, which is left to the caller
+   */
+  static Optional<ApiException> readLeadingError(InputStream in) {
+    try {
+      XMLStreamReader reader = FACTORY.createXMLStreamReader(in);
+      try {
+        int startElements = 0;
+        while (reader.hasNext() && startElements < 2) {
+          if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+            startElements++;
+          }
+        }
+        if (startElements == 2 && ERROR.equals(reader.getLocalName())) {
+          return Optional.of(toApiException(reader));
+        }
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException e) {
+      log.debug("no leading error found", e);
+    }
+    return Optional.absent();
+  }
+
+  private static ApiException toApiException(XMLStreamReader reader) {
+    String code = reader.getAttributeValue(null, "code");
+    String info = reader.getAttributeValue(null, "info");
+    log.error(code + ": " + info);
+    return new ApiException(code, info);
+  }
+
+}
@@ -33,6 +33,11 @@ public class ApiRequestBuilder extends RequestBuilder {
     return this;
   }
 
+  public ApiRequestBuilder format(ResponseFormat format) {
+    param("format", format.paramValue());
+    return this;
+  }
+
   /**
    * https://www.mediawiki.org/wiki/API:Query#Continuing_queries
    *
@@ -0,0 +1,117 @@
+package net.sourceforge.jwbf.mediawiki;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import net.sourceforge.jwbf.mapper.JsonStreamParser;
+import net.sourceforge.jwbf.mapper.StreamParser;
+import net.sourceforge.jwbf.mapper.XmlStreamParser;
+
+/**
+ * The format of MediaWiki API responses. Actions, that support both formats, request the format
+ * they are configured with, but parse every response in the format it actually has; so a server
+ * that ignores the format parameter is no problem.
+ *
+ * @see ApiRequestBuilder#format(ResponseFormat)
+ */
+public enum ResponseFormat {
+
+  XML("xml") {
+    @Override
+    public StreamParser newParser() {
+      return new XmlStreamParser();
+    }
+  },
+
+  JSON("json") {
+    @Override
+    public StreamParser newParser() {
+      return new JsonStreamParser();
+    }
+  };
+
+  private static final int MAX_PEEK = 1024;
+  private static final int UTF8_BOM_FIRST = 0xEF;
+  private static final int UTF8_BOM_SECOND = 0xBB;
+  private static final int UTF8_BOM_THIRD = 0xBF;
+
+  private final String paramValue;
+
+  ResponseFormat(String paramValue) {
+    this.paramValue = paramValue;
+  }
+
+  /**
+   * @return the value of the {@code format} parameter
+   */
+  public String paramValue() {
+    return paramValue;
+  }
+
+  public abstract StreamParser newParser();
+
+  /**
+   * @return the format of the given response, which is JSON, if it starts with an object
+   */
+  public static ResponseFormat of(String response) {
+    if (response != null) {
+      for (int i = 0; i < response.length(); i++) {
+        char c = response.charAt(i);
+        if (!Character.isWhitespace(c)) {
+          if (c == '{') {
+            return JSON;
+          }
+          return XML;
+        }
+      }
+    }
+    return XML;
+  }
+
+  /**
+   * @return a parser for the format of the given response
+   */
+  public static StreamParser parserFor(String response) {
+    return of(response).newParser();
+  }
+
+  /**
+   * Peeks at the first bytes of the given response, without decoding it; the stream is reset
+   * afterwards.
+   *
+   * @param in must support {@link InputStream#mark(int)}
+   * @return the format of the given response, which is JSON, if it starts with an object
+   */
+  public static ResponseFormat of(InputStream in) throws IOException {
+    if (!in.markSupported()) {
+      throw new IllegalArgumentException("the stream must support mark");
+    }
+    in.mark(MAX_PEEK);
+    try {
+      for (int i = 0; i < MAX_PEEK; i++) {
+        int b = in.read();
+        if (b == '{') {
+          return JSON;
+        } else if (b == -1 || !isSkippable(b)) {
+          return XML;
+        }
+      }
+      return XML;
+    } finally {
+      in.reset();
+    }
+  }
+
+  /**
+   * @param in must support {@link InputStream#mark(int)}
+   * @return a parser for the format of the given response
+   */
+  public static StreamParser parserFor(InputStream in) throws IOException {
+    return of(in).newParser();
+  }
+
+  private static boolean isSkippable(int b) {
+    return b == ' ' || b == '\t' || b == '\n' || b == '\r' || //
+        b == UTF8_BOM_FIRST || b == UTF8_BOM_SECOND || b == UTF8_BOM_THIRD;
+  }
+}
@@ -0,0 +1,108 @@
+package net.sourceforge.jwbf.mediawiki.actions.editing;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Supplier;
+import net.sourceforge.jwbf.core.actions.util.HttpAction;
+import net.sourceforge.jwbf.core.internal.Checked;
+import net.sourceforge.jwbf.mediawiki.actions.editing.GetApiToken.Intoken;
+import net.sourceforge.jwbf.mediawiki.actions.editing.GetApiToken.TokenResponse;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
+
+/**
+ * The token of one write action. It is taken from a {@link TokenCache} if possible, else it is
+ * requested once and put into the cache. If the server rejects the token, the cache is
+ * invalidated and the action may be repeated once with a fresh token.
+ */
+class CachedToken {
+
+  static final String BADTOKEN = "badtoken";
+
+  private final TokenCache cache;
+  private final Intoken intoken;
+  private final Supplier<GetApiToken> tokenActionSupplier;
+
+  private Optional<GetApiToken> tokenAction = Optional.absent();
+  private HttpAction tokenRequest = null;
+  private boolean retried = false;
+
+  CachedToken(TokenCache cache, final Intoken intoken, final String title) {
+    this(cache, intoken, new Supplier<GetApiToken>() {
+      @Override
+      public GetApiToken get() {
+        return new GetApiToken(intoken, title);
+      }
+    });
+  }
+
+  CachedToken(TokenCache cache, Intoken intoken, Supplier<GetApiToken> tokenActionSupplier) {
+    this.cache = Checked.nonNull(cache, "token cache");
+    this.intoken = intoken;
+    this.tokenActionSupplier = tokenActionSupplier;
+  }
+
+  /**
+   * @return true if the token is neither cached nor requested
+   */
+  boolean isRequestNeeded() {
+    return !tokenAction.isPresent() && !cache.get(intoken).isPresent();
+  }
+
+  /**
+   * @return the token request; call only if {@link #isRequestNeeded()}
+   */
+  HttpAction newRequest() {
+    if (!isRequestNeeded()) {
+      throw new IllegalStateException("the " + intoken + " token is already known");
+    }
+    GetApiToken action = tokenActionSupplier.get();
+    tokenAction = Optional.of(action);
+    tokenRequest = action.popAction();
+    return tokenRequest;
+  }
+
+  /**
+   * @return true if the response belongs to the token request and was processed
+   */
+  boolean processResponse(String xml, HttpAction hm) {
+    if (tokenRequest != null && hm.getRequest().equals(tokenRequest.getRequest())) {
+      GetApiToken action = tokenAction.get();
+      action.processReturningText(xml, hm);
+      tokenRequest = null;
+      Optional<String> token = action.getTokenValue();
+      if (token.isPresent()) {
+        cache.put(intoken, token.get());
+      }
+      return true;
+    }
+    return false;
+  }
+
+  TokenResponse get() {
+    if (tokenAction.isPresent()) {
+      return tokenAction.get().get();
+    }
+    Optional<String> cached = cache.get(intoken);
+    if (cached.isPresent()) {
+      return GetApiToken.tokenResponseOf(cached.get());
+    }
+    throw new IllegalStateException("no " + intoken + " token was requested");
+  }
+
+  /**
+   * @return true if the action should be repeated, because the token was rejected; this happens
+   * only once per action
+   */
+  boolean retryOnBadToken(ApiException e) {
+    if (BADTOKEN.equals(e.getCode())) {
+      cache.invalidate();
+      tokenAction = Optional.absent();
+      tokenRequest = null;
+      if (!retried) {
+        retried = true;
+        return true;
+      }
+    }
+    return false;
+  }
+
+}
@@ -20,13 +20,16 @@ package net.sourceforge.jwbf.mediawiki.actions.editing;
 
 import java.util.Deque;
 
+import com.google.common.base.Optional;
 import com.google.common.collect.Queues;
 import net.sourceforge.jwbf.core.actions.Post;
 import net.sourceforge.jwbf.core.actions.util.ActionException;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
+import net.sourceforge.jwbf.mapper.XmlConverter;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.actions.editing.GetApiToken.Intoken;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
 import net.sourceforge.jwbf.mediawiki.contentRep.SimpleFile;
@@ -96,34 +99,47 @@ public class FileUpload extends MWAction {
   private static class ApiUpload implements UploadAction {
     private final Deque<HttpAction> actions = Queues.newArrayDeque();
     private final SimpleFile simpleFile;
-    private GetApiToken uploadTokenAction;
+    private final CachedToken uploadToken;
 
     public ApiUpload(MediaWikiBot bot, SimpleFile simpleFile) {
       this.simpleFile = simpleFile;
+      uploadToken = new CachedToken(bot.getTokenCache(), Intoken.EDIT, simpleFile.getPath());
     }
 
     @Override
     public Deque<HttpAction> getActions() {
-      uploadTokenAction = new GetApiToken(Intoken.EDIT, simpleFile.getPath());
-      actions.add(uploadTokenAction.popAction());
+      addNextAction();
       return actions;
     }
 
-    @Override
-    public String handleResponse(String xml, HttpAction hm) {
-      if (uploadTokenAction != null) {
-        uploadTokenAction.processReturningText(xml, hm);
+    private void addNextAction() {
+      if (uploadToken.isRequestNeeded()) {
+        actions.add(uploadToken.newRequest());
+      } else {
         Post upload = new ApiRequestBuilder() //
             .action("upload") //
             .formatXml() //
-            .param(uploadTokenAction.get().urlEncodedToken()) //
+            .param(uploadToken.get().urlEncodedToken()) //
             .param("filename", MediaWiki.urlEncode(simpleFile.getTitle())) //
             .param("ignorewarnings", true) //
             .buildPost() //
             .postParam("file", simpleFile.getFile()) //
             ;
         actions.add(upload);
-        uploadTokenAction = null; // XXX
+      }
+    }
+
+    @Override
+    public String handleResponse(String xml, HttpAction hm) {
+      if (uploadToken.processResponse(xml, hm)) {
+        addNextAction();
+      } else {
+        Optional<ApiException> error = XmlConverter.getRootElementWithError(xml) //
+            .getErrorElement().transform(XmlConverter.toApiException());
+        if (error.isPresent() && uploadToken.retryOnBadToken(error.get())) {
+          log.debug("upload token was rejected, retry with a new one");
+          addNextAction();
+        }
       }
       // file upload requires enabled uploads, upload rights and filesystem permisions
       return xml;
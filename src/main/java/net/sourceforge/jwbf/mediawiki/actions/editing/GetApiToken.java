@@ -12,6 +12,7 @@ import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.core.internal.NonnullFunction;
 import net.sourceforge.jwbf.mapper.XmlConverter;
 import net.sourceforge.jwbf.mapper.XmlElement;
+import net.sourceforge.jwbf.mapper.XmlPath;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.actions.util.DequeMWAction;
@@ -54,6 +55,33 @@ public class GetApiToken extends DequeMWAction<GetApiToken.TokenResponse> {
     };
   }
 
+  /**
+   * @return a response for an already known token, e.g. from a {@link TokenCache}
+   */
+  static TokenResponse tokenResponseOf(final String token) {
+    return new TokenResponse() {
+
+      @Nonnull
+      @Override
+      public ParamTuple<String> urlEncodedToken() {
+        return new ParamTuple<>("token", MediaWiki.urlEncode(token));
+      }
+
+      @Nonnull
+      @Override
+      public ParamTuple<String> token() {
+        return new ParamTuple<>("token", token);
+      }
+    };
+  }
+
+  /**
+   * @return the parsed token, absent before the response was processed
+   */
+  Optional<String> getTokenValue() {
+    return token;
+  }
+
   public interface TokenResponse {
     ParamTuple<String> urlEncodedToken();
 
@@ -62,6 +90,8 @@ public class GetApiToken extends DequeMWAction<GetApiToken.TokenResponse> {
 
   private static final Logger log = LoggerFactory.getLogger(GetApiToken.class);
 
+  private static final XmlPath PAGE = XmlPath.of("query", "pages", "page");
+
   /**
    * Types that need a urlEncodedToken. See API field intoken.
    */
@@ -129,7 +159,7 @@ public class GetApiToken extends DequeMWAction<GetApiToken.TokenResponse> {
     if (hm.getRequest().equals(msg.getRequest())) {
       log.debug("Got returning text: \"{}\"", s);
       try {
-        XmlElement elem = XmlConverter.getChild(s, "query", "pages", "page");
+        XmlElement elem = PAGE.evaluate(XmlConverter.getRootElement(s));
         token = Optional.fromNullable(elem).transform(TOKEN_FUNCTIONS.get(intoken));
         // TODO check intoken from tokenfunc for null
 
@@ -18,15 +18,26 @@
  */
 package net.sourceforge.jwbf.mediawiki.actions.editing;
 
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+
 import net.sourceforge.jwbf.core.actions.Get;
+import net.sourceforge.jwbf.core.actions.RequestBuilder;
+import net.sourceforge.jwbf.core.actions.ReturningStreamProcessor;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
-import net.sourceforge.jwbf.mapper.XmlConverter;
-import net.sourceforge.jwbf.mapper.XmlElement;
+import net.sourceforge.jwbf.core.internal.Checked;
+import net.sourceforge.jwbf.mapper.StreamElement;
+import net.sourceforge.jwbf.mapper.StreamParser;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.MediaWiki.Version;
+import net.sourceforge.jwbf.mediawiki.ResponseFormat;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
+import net.sourceforge.jwbf.mediawiki.contentRep.ArticleSection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,7 +46,7 @@ import org.slf4j.LoggerFactory;
  *
  * @author Thomas Stock
  */
-public class GetRevision extends MWAction {
+public class GetRevision extends MWAction implements ReturningStreamProcessor {
 
   private static final Logger log = LoggerFactory.getLogger(GetRevision.class);
 
@@ -54,6 +65,8 @@ public class GetRevision extends MWAction {
   private final int properties;
 
   private final Get msg;
+  @Nullable
+  private final Writer textWriter;
 
   private boolean singleProcess = true;
 
@@ -61,17 +74,71 @@ public class GetRevision extends MWAction {
    * TODO follow redirects. TODO change constructor fild ordering; bot
    */
   public GetRevision(Version v, final String articlename, final int properties) {
+    this(v, articlename, properties, ResponseFormat.XML);
+  }
+
+  /**
+   * @param format of the response
+   */
+  public GetRevision(Version v, final String articlename, final int properties,
+      ResponseFormat format) {
+    this(new SimpleArticle(articlename), properties, format, null, null);
+  }
+
+  /**
+   * Writes the text of the revision to the given writer instead of the article, so very large
+   * pages can be copied without holding the whole text in memory; wrap an {@link
+   * java.io.OutputStream} with an {@link java.io.OutputStreamWriter}. The writer is not closed.
+   * {@link ResponseFormat#XML} is requested, because JSON texts are read at once.
+   *
+   * @param properties should contain {@link #CONTENT}, else nothing is written
+   */
+  public GetRevision(Version v, final String articlename, final int properties,
+      Writer textWriter) {
+    this(new SimpleArticle(articlename), properties, ResponseFormat.XML,
+        Checked.nonNull(textWriter, "text writer"), null);
+  }
+
+  /**
+   * Reads only the text of the given section of the revision into the given section, so a large
+   * article does not have to be transferred as a whole.
+   *
+   * @param properties {@link #CONTENT} is always requested
+   */
+  public GetRevision(Version v, ArticleSection section, int properties) {
+    this(v, section, properties, ResponseFormat.XML);
+  }
+
+  /**
+   * @param format of the response
+   */
+  public GetRevision(Version v, ArticleSection section, int properties, ResponseFormat format) {
+    this(section, properties | CONTENT, format, null, sectionNumber(section));
+  }
+
+  private GetRevision(SimpleArticle sa, final int properties, ResponseFormat format,
+      @Nullable Writer textWriter, @Nullable String section) {
     this.properties = properties;
-    sa = new SimpleArticle();
-    sa.setTitle(articlename);
-    msg = new ApiRequestBuilder() //
+    this.textWriter = textWriter;
+    this.sa = sa;
+    RequestBuilder builder = new ApiRequestBuilder() //
         .action("query") //
-        .formatXml() //
+        .format(Checked.nonNull(format, "format")) //
         .param("prop", "revisions") //
-        .param("titles", MediaWiki.urlEncode(articlename)) //
+        .param("titles", MediaWiki.urlEncode(sa.getTitle())) //
         .param("rvprop", getDataProperties(properties) + getReversion(properties)) //
-        .param("rvlimit", "1") //
-        .buildGet();
+        .param("rvlimit", "1");
+    if (section != null) {
+      builder.param("rvsection", section);
+    }
+    msg = builder.buildGet();
+  }
+
+  private static String sectionNumber(ArticleSection section) {
+    if (Checked.nonNull(section, "section").isNewSection()) {
+      throw new IllegalArgumentException("a new section can not be read");
+    }
+    return section.getSection();
   }
 
   /**
@@ -96,10 +163,32 @@ public class GetRevision extends MWAction {
     return "";
   }
 
+  /**
+   * Parses the response without decoding it into a {@link String} first, because revision texts
+   * can be large. Like {@link #processReturningText(String, HttpAction)}, the response is parsed
+   * in the format it actually has.
+   */
+  @Override
+  public String processReturningStream(InputStream in, HttpAction ha) {
+    if (msg.getRequest().equals(ha.getRequest()) && singleProcess) {
+      InputStream markable = in;
+      if (!markable.markSupported()) {
+        markable = new BufferedInputStream(in);
+      }
+      try {
+        onRevisions(ResponseFormat.parserFor(markable)).parse(markable);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+      singleProcess = false;
+    }
+    return "";
+  }
+
   /**
    * TODO Not very nice implementation.
    */
-  private String getDataProperties(final int property) {
+  static String getDataProperties(final int property) {
     String properties = "";
 
     if ((property & CONTENT) > 0) {
@@ -140,46 +229,77 @@ public class GetRevision extends MWAction {
     return properties;
   }
 
-  private void parse(final String xml) {
-    findContent(XmlConverter.getChecked(xml));
+  private void parse(final String s) {
+    onRevisions(ResponseFormat.parserFor(s)).parse(s);
   }
 
   public SimpleArticle getArticle() {
     return sa;
   }
 
-  private void findContent(final XmlElement root) {
-
-    for (XmlElement xmlElement : root.getChildren()) {
-      if (xmlElement.getQualifiedName().equalsIgnoreCase("rev")) {
-
-        try {
-          sa.setText(xmlElement.getText());
-        } catch (NullPointerException e) {
-          if (log.isDebugEnabled()) {
-            log.debug("no text found");
-          }
-        }
-        if ((properties & FLAGS) > 0) {
-          if (xmlElement.hasAttribute("minor")) {
-            sa.setMinorEdit(true);
-          } else {
-            sa.setMinorEdit(false);
-          }
+  /**
+   * The title of the article is replaced with the normalized title of its page, so it can be
+   * invalidated by the title it is written with.
+   */
+  private StreamParser onRevisions(StreamParser parser) {
+    return parser.on(new StreamParser.ElementHandler() {
+      @Override
+      public void handle(StreamElement page) {
+        sa.setTitle(page.getAttributeValueOpt("title").or(sa.getTitle()));
+      }
+    }, "query", "pages", StreamParser.ANY).on(new StreamParser.ElementHandler() {
+      @Override
+      public void handle(StreamElement rev) {
+        if (textWriter == null) {
+          applyRevision(rev, sa, properties);
+        } else {
+          applyAttributes(rev, sa, properties);
+          writeText(rev, textWriter);
         }
+      }
+    }, "query", "pages", StreamParser.ANY, "revisions", "rev");
+  }
 
-        sa.setRevisionId(xmlElement.getAttributeValueOpt("revid").or(""));
-        sa.setEditSummary(xmlElement.getAttributeValueOpt("comment").or(""));
-        sa.setEditor(xmlElement.getAttributeValueOpt("user").or(""));
+  /**
+   * Attributes are read before the text, because the text of a streamed element can be read
+   * only at last.
+   */
+  static void applyRevision(StreamElement rev, SimpleArticle sa, int properties) {
+    applyAttributes(rev, sa, properties);
+    try {
+      sa.setText(rev.getText());
+    } catch (NullPointerException e) {
+      if (log.isDebugEnabled()) {
+        log.debug("no text found");
+      }
+    }
+  }
 
-        if ((properties & TIMESTAMP) > 0) {
-          sa.setEditTimestamp(xmlElement.getAttributeValueOpt("timestamp").or(""));
-        }
+  private static void applyAttributes(StreamElement rev, SimpleArticle sa, int properties) {
+    if ((properties & FLAGS) > 0) {
+      if (rev.hasAttribute("minor")) {
+        sa.setMinorEdit(true);
       } else {
-        findContent(xmlElement);
+        sa.setMinorEdit(false);
       }
     }
 
+    sa.setRevisionId(rev.getAttributeValueOpt("revid").or(""));
+    sa.setEditSummary(rev.getAttributeValueOpt("comment").or(""));
+    sa.setEditor(rev.getAttributeValueOpt("user").or(""));
+
+    if ((properties & TIMESTAMP) > 0) {
+      sa.setEditTimestamp(rev.getAttributeValueOpt("timestamp").or(""));
+    }
+  }
+
+  private static void writeText(StreamElement rev, Writer textWriter) {
+    try {
+      long written = rev.writeText(textWriter);
+      log.debug("wrote {} chars of revision text", written);
+    } catch (IOException e) {
+      throw new IllegalStateException("could not write the revision text", e);
+    }
   }
 
   /**
@@ -0,0 +1,180 @@
+package net.sourceforge.jwbf.mediawiki.actions.editing;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import net.sourceforge.jwbf.core.actions.Post;
+import net.sourceforge.jwbf.core.actions.RequestBuilder;
+import net.sourceforge.jwbf.core.actions.ReturningStreamProcessor;
+import net.sourceforge.jwbf.core.actions.util.HttpAction;
+import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
+import net.sourceforge.jwbf.mapper.XmlConverter;
+import net.sourceforge.jwbf.mapper.XmlElement;
+import net.sourceforge.jwbf.mapper.XmlPath;
+import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
+import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
+
+/**
+ * Reads the latest revisions of many articles with one request. Every requested title gets its
+ * own article, in the order of the request, titled with the normalized title of its page;
+ * articles of missing pages have no text. Like {@link GetRevision}, redirects are not followed,
+ * so the article of a redirect has the text of the redirect page. If the revisions exceed the
+ * size limit of a response, MediaWiki returns the remaining ones with {@code rvcontinue} in
+ * further responses.
+ *
+ * @see GetRevision
+ */
+public class GetRevisions extends MWAction implements ReturningStreamProcessor {
+
+  /**
+   * Maximal number of titles per request.
+   */
+  public static final int MAX_TITLES = 50;
+
+  /**
+   * Maximal number of titles per request for users with the {@code apihighlimits} right.
+   */
+  public static final int MAX_TITLES_HIGH_LIMITS = 500;
+
+  private static final XmlPath NORMALIZED = XmlPath.of("query", "normalized", "n");
+  private static final XmlPath PAGES = XmlPath.of("query", "pages", "page");
+  private static final XmlPath REVISION = XmlPath.of("revisions", "rev");
+  private static final XmlPath CONTINUE = XmlPath.of("continue");
+  // XXX fallback for < MW1_26
+  private static final XmlPath QUERY_CONTINUE = XmlPath.of("query-continue", "revisions");
+
+  private final ImmutableList<String> titles;
+  private final int properties;
+  private Post msg;
+  private Map<String, String> continueParams = ImmutableMap.of();
+  private final Map<String, String> normalized = Maps.newHashMap();
+  private final Map<String, XmlElement> revisions = Maps.newHashMap();
+  private ImmutableList<SimpleArticle> articles = ImmutableList.of();
+
+  /**
+   * @param titles     of the articles, at most {@link #MAX_TITLES_HIGH_LIMITS}
+   * @param properties like {@link GetRevision#CONTENT}; {@link GetRevision#FIRST} and {@link
+   *                   GetRevision#LAST} are not supported, because the API returns only the latest
+   *                   revision for many titles
+   */
+  public GetRevisions(Iterable<String> titles, int properties) {
+    this.titles = ImmutableList.copyOf(titles);
+    if (this.titles.isEmpty() || this.titles.size() > MAX_TITLES_HIGH_LIMITS) {
+      throw new IllegalArgumentException("between 1 and " + MAX_TITLES_HIGH_LIMITS +
+          " titles are allowed, but were " + this.titles.size());
+    }
+    this.properties = properties;
+    msg = newRequest();
+  }
+
+  private Post newRequest() {
+    // titles are posted, because many of them may exceed the maximal url length
+    RequestBuilder requestBuilder = new ApiRequestBuilder() //
+        .action("query") //
+        .formatXml() //
+        .param("prop", "revisions") //
+        .param("rvprop", GetRevision.getDataProperties(properties)) //
+        .postParam("titles", Joiner.on("|").join(ImmutableSet.copyOf(titles))) //
+        .idempotent();
+    for (Map.Entry<String, String> param : continueParams.entrySet()) {
+      requestBuilder.postParam(param.getKey(), param.getValue());
+    }
+    return requestBuilder.buildPost();
+  }
+
+  @Override
+  public HttpAction getNextMessage() {
+    return msg;
+  }
+
+  @Override
+  public String processReturningStream(InputStream in, HttpAction action) {
+    process(XmlConverter.getChecked(in));
+    return "";
+  }
+
+  @Override
+  public String processAllReturningText(String s) {
+    process(XmlConverter.getChecked(s));
+    return "";
+  }
+
+  private void process(XmlElement root) {
+    normalized.putAll(mappingOf(NORMALIZED.evaluateAll(root)));
+    for (XmlElement page : PAGES.evaluateAll(root)) {
+      XmlElement rev = REVISION.evaluate(page);
+      if (rev != XmlElement.NULL_XML) {
+        revisions.put(page.getAttributeValueNonNull("title"), rev);
+      }
+    }
+
+    Map<String, String> next = continueParamsOf(root);
+    if (next.isEmpty()) {
+      articles = toArticles();
+    } else if (next.equals(continueParams)) {
+      throw new IllegalStateException("revisions do not continue after " + next);
+    } else {
+      continueParams = next;
+      msg = newRequest();
+      setHasMoreMessages(true);
+    }
+  }
+
+  private static Map<String, String> continueParamsOf(XmlElement root) {
+    XmlElement aContinue = CONTINUE.evaluate(root);
+    if (aContinue == XmlElement.NULL_XML) {
+      aContinue = QUERY_CONTINUE.evaluate(root);
+    }
+    Map<String, String> params = Maps.newHashMap();
+    if (aContinue != XmlElement.NULL_XML) {
+      for (int i = 0; i < aContinue.getAttributeCount(); i++) {
+        params.put(aContinue.getAttributeName(i), aContinue.getAttributeValue(i));
+      }
+    }
+    return params;
+  }
+
+  /**
+   * @return one article per requested title
+   */
+  public ImmutableList<SimpleArticle> getArticles() {
+    return articles;
+  }
+
+  private ImmutableList<SimpleArticle> toArticles() {
+    ImmutableList.Builder<SimpleArticle> builder = ImmutableList.builder();
+    for (String title : titles) {
+      String pageTitle = resolve(title, normalized);
+      SimpleArticle sa = new SimpleArticle(pageTitle);
+      XmlElement rev = revisions.get(pageTitle);
+      if (rev != null) {
+        GetRevision.applyRevision(rev, sa, properties);
+      }
+      builder.add(sa);
+    }
+    return builder.build();
+  }
+
+  private static String resolve(String title, Map<String, String> mapping) {
+    String to = mapping.get(title);
+    if (to == null) {
+      return title;
+    }
+    return to;
+  }
+
+  private static Map<String, String> mappingOf(List<XmlElement> fromTo) {
+    Map<String, String> mapping = Maps.newHashMap();
+    for (XmlElement element : fromTo) {
+      String from = element.getAttributeValueNonNull("from");
+      mapping.put(from, element.getAttributeValueNonNull("to"));
+    }
+    return mapping;
+  }
+}
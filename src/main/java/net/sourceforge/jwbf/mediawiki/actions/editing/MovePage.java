@@ -1,5 +1,6 @@
 package net.sourceforge.jwbf.mediawiki.actions.editing;
 
+import com.google.common.base.Optional;
 import com.google.common.base.Strings;
 import net.sourceforge.jwbf.core.actions.RequestBuilder;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
@@ -7,6 +8,7 @@ import net.sourceforge.jwbf.core.actions.util.ProcessException;
 import net.sourceforge.jwbf.mapper.XmlConverter;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
 import org.slf4j.Logger;
@@ -45,8 +47,8 @@ public class MovePage extends MWAction {
   private final String reason;
   private final boolean withsubpages;
   private final boolean noredirect;
-  private final GetApiToken token;
-  private boolean moveToken = true;
+  private final CachedToken token;
+  private final Optional<RevisionCache> revisionCache;
 
   /**
    * Constructs a new <code>MovePage</code> action.
@@ -60,7 +62,8 @@ public class MovePage extends MWAction {
    */
   public MovePage(MediaWikiBot bot, String oldtitle, String newtitle, String reason,
       boolean withsubpages, boolean noredirect) {
-    token = new GetApiToken(GetApiToken.Intoken.MOVE, oldtitle);
+    token = new CachedToken(bot.getTokenCache(), GetApiToken.Intoken.MOVE, oldtitle);
+    revisionCache = bot.getRevisionCache();
     this.oldtitle = oldtitle;
     this.newtitle = newtitle;
     this.reason = reason;
@@ -121,13 +124,23 @@ public class MovePage extends MWAction {
    */
   @Override
   public String processReturningText(String xml, HttpAction hm) {
-    XmlConverter.failOnError(xml);
-    if (moveToken) {
-      token.processReturningText(xml, hm);
-      moveToken = false;
-    } else {
+    try {
+      XmlConverter.failOnError(xml);
+    } catch (ApiException e) {
+      if (token.retryOnBadToken(e)) {
+        log.debug("move token was rejected, retry with a new one");
+        setHasMoreMessages(true);
+        return "";
+      }
+      throw e;
+    }
+    if (!token.processResponse(xml, hm)) {
       log.debug("Got returning text: \"{}\"", xml);
       setHasMoreMessages(false);
+      if (revisionCache.isPresent()) {
+        // talk pages and subpages are moved too, whose titles depend on the namespaces
+        revisionCache.get().invalidateAll();
+      }
     }
 
     return "";
@@ -138,9 +151,9 @@ public class MovePage extends MWAction {
    */
   @Override
   public HttpAction getNextMessage() {
-    if (token.hasMoreActions()) {
+    if (token.isRequestNeeded()) {
       setHasMoreMessages(true);
-      return token.popAction();
+      return token.newRequest();
     }
     return getSecondRequest();
   }
@@ -0,0 +1,691 @@
+package net.sourceforge.jwbf.mediawiki.actions.editing;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
+import net.sourceforge.jwbf.core.internal.Checked;
+
+/**
+ * Keeps revisions on disk, so that a restarted bot has to request only the texts of articles,
+ * whose revision has changed since; see {@link RevisionCache#RevisionCache(long, long,
+ * java.util.concurrent.TimeUnit, PageStore)}.
+ * <p>
+ * Revisions are appended to a data file; the text, editor, summary and timestamp of a revision
+ * are compressed. A memory-mapped hash index maps the hash of a title to the offset of its latest
+ * record, its revision id and its properties, so the revision id of a title is known without
+ * reading the data file. Replaced and removed revisions stay in the data file, until it is
+ * {@link #compact() compacted}. If the index does not match the data file, e.g. after a crash, it
+ * is rebuilt from the data file; a torn record at the end of the data file is dropped.
+ * <p>
+ * A store must not be opened by more than one instance at the same time.
+ */
+public class PageStore implements Closeable {
+
+  static final String DATA_FILE = "pages.dat";
+  static final String INDEX_FILE = "pages.idx";
+
+  private static final int MAGIC = 0x4a575053; // JWPS
+  private static final int VERSION = 1;
+
+  private static final int DATA_HEADER = 16;
+  private static final int RECORD_HEADER = 8;
+  private static final byte PUT = 1;
+  private static final byte REMOVE = 2;
+
+  private static final int INDEX_HEADER = 64;
+  private static final int SLOT = 32;
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final long EMPTY = 0;
+  private static final long REMOVED = -1;
+  private static final long UNKNOWN_REVISION = -1;
+
+  private static final HashFunction HASH = Hashing.murmur3_128();
+
+  private final File dataFile;
+  private final File indexFile;
+
+  private RandomAccessFile data;
+  private long generation;
+  private RandomAccessFile indexAccess;
+  private MappedByteBuffer index;
+  private int capacity;
+  private int used;
+  private int live;
+
+  @VisibleForTesting
+  PageStore(File directory) {
+    dataFile = new File(directory, DATA_FILE);
+    indexFile = new File(directory, INDEX_FILE);
+  }
+
+  /**
+   * Opens the store in the given directory, which is created, if it does not exist.
+   */
+  public static PageStore open(File directory) throws IOException {
+    Checked.nonNull(directory, "directory");
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("could not create " + directory);
+    }
+    return open(new PageStore(directory));
+  }
+
+  @VisibleForTesting
+  static PageStore open(PageStore store) throws IOException {
+    try {
+      store.openFiles();
+    } catch (IOException | RuntimeException e) {
+      store.closeFiles();
+      throw e;
+    }
+    return store;
+  }
+
+  private void openFiles() throws IOException {
+    boolean created = !dataFile.exists() || dataFile.length() < DATA_HEADER;
+    data = new RandomAccessFile(dataFile, "rw");
+    if (created) {
+      generation = new Random().nextLong();
+      data.setLength(0);
+      data.writeInt(MAGIC);
+      data.writeInt(VERSION);
+      data.writeLong(generation);
+    } else {
+      data.seek(0);
+      if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+        throw new IOException(dataFile + " is not a page store");
+      }
+      generation = data.readLong();
+    }
+
+    indexAccess = new RandomAccessFile(indexFile, "rw");
+    long indexedLength;
+    if (isValidIndex()) {
+      capacity = index.getInt(8);
+      used = index.getInt(12);
+      live = index.getInt(16);
+      indexedLength = index.getLong(32);
+    } else {
+      mapIndex(INITIAL_CAPACITY);
+      indexedLength = DATA_HEADER;
+    }
+    replay(indexedLength);
+    writeIndexHeader();
+  }
+
+  private boolean isValidIndex() throws IOException {
+    long length = indexAccess.length();
+    if (length < INDEX_HEADER) {
+      return false;
+    }
+    index = indexAccess.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+    int indexCapacity = index.getInt(8);
+    return index.getInt(0) == MAGIC && index.getInt(4) == VERSION && //
+        index.getLong(24) == generation && indexCapacity > 0 && //
+        Integer.bitCount(indexCapacity) == 1 && //
+        length == INDEX_HEADER + (long) indexCapacity * SLOT && //
+        index.getLong(32) >= DATA_HEADER && index.getLong(32) <= data.length();
+  }
+
+  private void mapIndex(int newCapacity) throws IOException {
+    long length = INDEX_HEADER + (long) newCapacity * SLOT;
+    indexAccess.setLength(length);
+    index = indexAccess.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+    for (int i = 0; i < length; i += 8) {
+      index.putLong(i, 0);
+    }
+    capacity = newCapacity;
+    used = 0;
+    live = 0;
+  }
+
+  /**
+   * Applies the records of the data file, that follow the given offset, to the index; the data
+   * file is truncated at the first incomplete or damaged record.
+   */
+  private void replay(long from) throws IOException {
+    long position = from;
+    long length = data.length();
+    while (position + RECORD_HEADER <= length) {
+      Optional<Record> record = readRecord(position, length);
+      if (!record.isPresent()) {
+        break;
+      }
+      record.get().applyTo(this, position);
+      position += RECORD_HEADER + record.get().length;
+    }
+    if (position < length) {
+      data.setLength(position);
+    }
+  }
+
+  private Optional<Record> readRecord(long position, long length) throws IOException {
+    data.seek(position);
+    int recordLength = data.readInt();
+    int checksum = data.readInt();
+    if (recordLength < 1 || position + RECORD_HEADER + recordLength > length) {
+      return Optional.absent();
+    }
+    byte[] bytes = new byte[recordLength];
+    data.readFully(bytes);
+    if (checksum != checksum(bytes)) {
+      return Optional.absent();
+    }
+    return Optional.of(Record.parse(bytes));
+  }
+
+  /**
+   * Stores the given revision of the given title, replacing the one stored before.
+   *
+   * @param properties the revision was read with, see {@link GetRevision}
+   */
+  public synchronized void put(String title, int properties, SimpleArticle revision) {
+    Checked.nonNull(title, "title");
+    Checked.nonNull(revision, "revision");
+    try {
+      long offset = append(Record.put(title, properties, revision));
+      insert(hash(title), offset, revisionNumber(revision.getRevisionId()), properties);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * @return the stored revision of the given title, if it was read with at least the given
+   * properties
+   */
+  public synchronized Optional<SimpleArticle> get(String title, int properties) {
+    int slot = findLive(title, properties);
+    if (slot < 0) {
+      return Optional.absent();
+    }
+    Record record = recordAt(offsetAt(slot));
+    if (!record.title.equals(title)) {
+      return Optional.absent();
+    }
+    return Optional.of(record.toArticle());
+  }
+
+  /**
+   * Like {@link #get(String, int)}, but only if the stored revision has the given id; a numeric
+   * id is compared with the index, before the revision is read and decompressed.
+   */
+  public synchronized Optional<SimpleArticle> get(String title, String revisionId,
+      int properties) {
+    int slot = findLive(title, properties);
+    if (slot < 0) {
+      return Optional.absent();
+    }
+    long revision = revisionAt(slot);
+    if (revision != UNKNOWN_REVISION && revision != revisionNumber(revisionId)) {
+      return Optional.absent();
+    }
+    Record record = recordAt(offsetAt(slot));
+    if (!record.title.equals(title) || !record.revisionId.equals(revisionId)) {
+      return Optional.absent();
+    }
+    return Optional.of(record.toArticle());
+  }
+
+  /**
+   * @return the revision id of the stored revision of the given title, if it was read with at
+   * least the given properties; only the title is read from the data file, unless the id is not
+   * numeric
+   */
+  public synchronized Optional<String> getRevisionId(String title, int properties) {
+    int slot = findLive(title, properties);
+    if (slot < 0 || !titleAt(offsetAt(slot)).equals(title)) {
+      return Optional.absent();
+    }
+    long revision = revisionAt(slot);
+    if (revision == UNKNOWN_REVISION) {
+      return Optional.of(recordAt(offsetAt(slot)).revisionId);
+    }
+    return Optional.of(Long.toString(revision));
+  }
+
+  /**
+   * @return the slot of the given title, if it is stored with at least the given properties; else
+   * -1. Different titles with the same hash share a slot, so the title of its record must be
+   * compared.
+   */
+  private int findLive(String title, int properties) {
+    int slot = find(hash(title));
+    if (slot < 0 || offsetAt(slot) == REMOVED || !covers(slot, properties)) {
+      return -1;
+    }
+    return slot;
+  }
+
+  public synchronized void remove(String title) {
+    Checked.nonNull(title, "title");
+    int slot = find(hash(title));
+    if (slot >= 0 && offsetAt(slot) != REMOVED) {
+      try {
+        append(Record.remove(title));
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+      markRemoved(slot);
+    }
+  }
+
+  /**
+   * @return the number of stored titles
+   */
+  public synchronized int size() {
+    return live;
+  }
+
+  /**
+   * @return the length of the data file in bytes
+   */
+  public synchronized long dataLength() {
+    try {
+      return data.length();
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Rewrites the data file with the latest revision of every stored title only, and rebuilds the
+   * index. The old data file is replaced atomically, if the file system supports it.
+   */
+  public synchronized void compact() throws IOException {
+    File compacted = new File(dataFile.getPath() + ".compact");
+    long newGeneration = new Random().nextLong();
+    try {
+      writeLiveRecords(compacted, newGeneration);
+      // some file systems do not replace open files
+      data.close();
+      try {
+        move(compacted, dataFile);
+      } finally {
+        // the old data file, if the move failed
+        data = new RandomAccessFile(dataFile, "rw");
+      }
+    } finally {
+      Files.deleteIfExists(compacted.toPath());
+    }
+    generation = newGeneration;
+    mapIndex(capacity);
+    replay(DATA_HEADER);
+    flush();
+  }
+
+  private void writeLiveRecords(File target, long newGeneration) throws IOException {
+    try (RandomAccessFile out = new RandomAccessFile(target, "rw")) {
+      out.setLength(0);
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(newGeneration);
+      for (long offset : liveOffsets()) {
+        data.seek(offset);
+        int recordLength = data.readInt();
+        byte[] record = new byte[RECORD_HEADER + recordLength];
+        data.seek(offset);
+        data.readFully(record);
+        out.write(record);
+      }
+      out.getFD().sync();
+    }
+  }
+
+  private long[] liveOffsets() {
+    long[] offsets = new long[live];
+    int count = 0;
+    for (int slot = 0; slot < capacity; slot++) {
+      long offset = offsetAt(slot);
+      if (hashAt(slot) != EMPTY && offset != REMOVED) {
+        offsets[count++] = offset;
+      }
+    }
+    Arrays.sort(offsets);
+    return offsets;
+  }
+
+  @VisibleForTesting
+  void move(File from, File to) throws IOException {
+    try {
+      Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * Forces all changes to the disk.
+   */
+  public synchronized void flush() throws IOException {
+    data.getChannel().force(false);
+    writeIndexHeader();
+    index.force();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    try {
+      if (data != null && index != null) {
+        flush();
+      }
+    } finally {
+      closeFiles();
+    }
+  }
+
+  private void closeFiles() throws IOException {
+    index = null;
+    try {
+      if (data != null) {
+        data.close();
+      }
+    } finally {
+      data = null;
+      if (indexAccess != null) {
+        indexAccess.close();
+        indexAccess = null;
+      }
+    }
+  }
+
+  private long append(byte[] record) throws IOException {
+    long offset = data.length();
+    ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER + record.length);
+    buffer.putInt(record.length).putInt(checksum(record)).put(record).flip();
+    FileChannel channel = data.getChannel();
+    long position = offset;
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+    return offset;
+  }
+
+  private Record recordAt(long offset) {
+    try {
+      Optional<Record> record = readRecord(offset, data.length());
+      if (!record.isPresent()) {
+        throw new IllegalStateException("damaged record at " + offset + " in " + dataFile);
+      }
+      return record.get();
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Reads only the title of the record at the given offset.
+   */
+  private String titleAt(long offset) {
+    try {
+      data.seek(offset);
+      int recordLength = data.readInt();
+      data.seek(offset + RECORD_HEADER + 1);
+      int titleLength = data.readInt();
+      if (titleLength < 0 || titleLength > recordLength) {
+        throw new IllegalStateException("damaged record at " + offset + " in " + dataFile);
+      }
+      byte[] title = new byte[titleLength];
+      data.readFully(title);
+      return new String(title, Charsets.UTF_8);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private void writeIndexHeader() throws IOException {
+    index.putInt(0, MAGIC);
+    index.putInt(4, VERSION);
+    index.putInt(8, capacity);
+    index.putInt(12, used);
+    index.putInt(16, live);
+    index.putLong(24, generation);
+    index.putLong(32, data.length());
+  }
+
+  private int find(long hash) {
+    int mask = capacity - 1;
+    for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+      long slotHash = hashAt(slot);
+      if (slotHash == hash) {
+        return slot;
+      } else if (slotHash == EMPTY) {
+        return -1;
+      }
+    }
+  }
+
+  private void insert(long hash, long offset, long revision, int properties) {
+    int slot = find(hash);
+    if (slot < 0) {
+      if ((used + 1) * 4L > capacity * 3L) {
+        rehash();
+      }
+      int mask = capacity - 1;
+      slot = (int) hash & mask;
+      while (hashAt(slot) != EMPTY) {
+        slot = (slot + 1) & mask;
+      }
+      used++;
+      live++;
+    } else if (offsetAt(slot) == REMOVED) {
+      live++;
+    }
+    int position = slotPosition(slot);
+    index.putLong(position, hash);
+    index.putLong(position + 8, offset);
+    index.putLong(position + 16, revision);
+    index.putInt(position + 24, properties);
+  }
+
+  private void markRemoved(int slot) {
+    index.putLong(slotPosition(slot) + 8, REMOVED);
+    live--;
+  }
+
+  /**
+   * Drops the slots of removed titles and doubles the capacity, if more than half of the slots
+   * are still in use.
+   */
+  private void rehash() {
+    int count = 0;
+    long[] hashes = new long[live];
+    long[] offsets = new long[live];
+    long[] revisions = new long[live];
+    int[] properties = new int[live];
+    for (int slot = 0; slot < capacity; slot++) {
+      int position = slotPosition(slot);
+      if (hashAt(slot) != EMPTY && offsetAt(slot) != REMOVED) {
+        hashes[count] = index.getLong(position);
+        offsets[count] = index.getLong(position + 8);
+        revisions[count] = index.getLong(position + 16);
+        properties[count] = index.getInt(position + 24);
+        count++;
+      }
+    }
+    int newCapacity = capacity;
+    while ((count + 1) * 2L > newCapacity) {
+      newCapacity *= 2;
+    }
+    try {
+      mapIndex(newCapacity);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    for (int i = 0; i < count; i++) {
+      insert(hashes[i], offsets[i], revisions[i], properties[i]);
+    }
+  }
+
+  private boolean covers(int slot, int properties) {
+    int stored = index.getInt(slotPosition(slot) + 24);
+    return (properties & RevisionCache.DATA_PROPERTIES & ~stored) == 0;
+  }
+
+  private long hashAt(int slot) {
+    return index.getLong(slotPosition(slot));
+  }
+
+  private long offsetAt(int slot) {
+    return index.getLong(slotPosition(slot) + 8);
+  }
+
+  private long revisionAt(int slot) {
+    return index.getLong(slotPosition(slot) + 16);
+  }
+
+  private static int slotPosition(int slot) {
+    return INDEX_HEADER + slot * SLOT;
+  }
+
+  @VisibleForTesting
+  static long hash(String title) {
+    long hash = HASH.hashString(title, Charsets.UTF_8).asLong();
+    return hash == EMPTY ? 1 : hash;
+  }
+
+  private static long revisionNumber(String revisionId) {
+    try {
+      long revision = Long.parseLong(revisionId);
+      return revision < 0 ? UNKNOWN_REVISION : revision;
+    } catch (NumberFormatException e) {
+      return UNKNOWN_REVISION;
+    }
+  }
+
+  private static int checksum(byte[] bytes) {
+    CRC32 crc = new CRC32();
+    crc.update(bytes);
+    return (int) crc.getValue();
+  }
+
+  /**
+   * A record of the data file; the title, revision id and properties are stored uncompressed, so
+   * that the index can be rebuilt without inflating the texts.
+   */
+  private static final class Record {
+
+    private final byte type;
+    private final String title;
+    private final String revisionId;
+    private final int properties;
+    private final byte[] compressed;
+    private final int length;
+
+    private Record(byte type, String title, String revisionId, int properties, byte[] compressed,
+        int length) {
+      this.type = type;
+      this.title = title;
+      this.revisionId = revisionId;
+      this.properties = properties;
+      this.compressed = compressed;
+      this.length = length;
+    }
+
+    static byte[] put(String title, int properties, SimpleArticle revision) throws IOException {
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(body))) {
+        writeString(out, revision.getText());
+        writeString(out, revision.getEditor());
+        writeString(out, revision.getEditSummary());
+        out.writeBoolean(revision.isMinorEdit());
+        out.writeLong(revision.getEditTimestamp().getTime());
+      }
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeByte(PUT);
+      writeString(out, title);
+      writeString(out, revision.getRevisionId());
+      out.writeInt(properties);
+      body.writeTo(out);
+      return bytes.toByteArray();
+    }
+
+    static byte[] remove(String title) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeByte(REMOVE);
+      writeString(out, title);
+      return bytes.toByteArray();
+    }
+
+    static Record parse(byte[] bytes) throws IOException {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+      byte type = in.readByte();
+      String title = readString(in);
+      if (type == REMOVE) {
+        return new Record(type, title, "", 0, new byte[0], bytes.length);
+      } else if (type != PUT) {
+        throw new IOException("unknown record type " + type);
+      }
+      String revisionId = readString(in);
+      int properties = in.readInt();
+      return new Record(type, title, revisionId, properties, ByteStreams.toByteArray(in),
+          bytes.length);
+    }
+
+    void applyTo(PageStore store, long offset) {
+      long hash = hash(title);
+      if (type == PUT) {
+        store.insert(hash, offset, revisionNumber(revisionId), properties);
+      } else {
+        int slot = store.find(hash);
+        if (slot >= 0 && store.offsetAt(slot) != REMOVED) {
+          store.markRemoved(slot);
+        }
+      }
+    }
+
+    SimpleArticle toArticle() {
+      try (DataInputStream in = new DataInputStream(
+          new InflaterInputStream(new ByteArrayInputStream(compressed)))) {
+        SimpleArticle article = new SimpleArticle(readString(in), title);
+        article.setEditor(readString(in));
+        article.setEditSummary(readString(in));
+        article.setMinorEdit(in.readBoolean());
+        article.setEditTimestamp(new Date(in.readLong()));
+        article.setRevisionId(revisionId);
+        return article;
+      } catch (IOException e) {
+        throw new IllegalStateException("damaged revision of " + title, e);
+      }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+      byte[] bytes = value.getBytes(Charsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+      byte[] bytes = new byte[in.readInt()];
+      in.readFully(bytes);
+      return new String(bytes, Charsets.UTF_8);
+    }
+  }
+}
@@ -13,6 +13,7 @@ import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,26 +41,15 @@ public class PostDelete extends MWAction {
   private static final Logger log = LoggerFactory.getLogger(PostDelete.class);
 
   private final String title;
-  private String reason;
+  private final String reason;
 
-  private final GetApiToken tokenAction;
-  private boolean delToken = true;
+  private final CachedToken deleteToken;
 
   /**
    * Constructs a new <code>PostDelete</code> action.
    */
   public PostDelete(Userinfo userinfo, String title) {
-    this.title = title;
-    if (title == null || title.length() == 0) {
-      throw new IllegalArgumentException("The argument 'title' must not be null or empty");
-    }
-    if (!userinfo.getRights().contains("delete")) {
-      throw new ProcessException("The given user doesn't have the rights to delete. " +
-          "Add '$wgGroupPermissions['bot']['delete'] = true;' " +
-          "to your MediaWiki's LocalSettings.php might solve this problem.");
-    }
-    tokenAction = new GetApiToken(GetApiToken.Intoken.DELETE, title);
-
+    this(userinfo, title, null);
   }
 
   /**
@@ -70,8 +60,32 @@ public class PostDelete extends MWAction {
    *               of an action exception
    */
   public PostDelete(Userinfo userinfo, String title, String reason) {
-    this(userinfo, title);
+    this(userinfo, title, reason, new TokenCache());
+  }
+
+  /**
+   * Constructs a new <code>PostDelete</code> action, that takes the delete token from the {@link
+   * MediaWikiBot#getTokenCache() token cache} of the bot.
+   *
+   * @param title  the title of the page to delete
+   * @param reason reason for the deletion (may be null)
+   */
+  public PostDelete(MediaWikiBot bot, String title, String reason) {
+    this(bot.getUserinfo(), title, reason, bot.getTokenCache());
+  }
+
+  private PostDelete(Userinfo userinfo, String title, String reason, TokenCache tokenCache) {
+    this.title = title;
     this.reason = reason;
+    if (title == null || title.length() == 0) {
+      throw new IllegalArgumentException("The argument 'title' must not be null or empty");
+    }
+    if (!userinfo.getRights().contains("delete")) {
+      throw new ProcessException("The given user doesn't have the rights to delete. " +
+          "Add '$wgGroupPermissions['bot']['delete'] = true;' " +
+          "to your MediaWiki's LocalSettings.php might solve this problem.");
+    }
+    deleteToken = new CachedToken(tokenCache, GetApiToken.Intoken.DELETE, title);
   }
 
   /**
@@ -83,7 +97,7 @@ public class PostDelete extends MWAction {
         .action("delete") //
         .formatXml() //
         .param("title", MediaWiki.urlEncode(title)) //
-        .param(tokenAction.get().urlEncodedToken()) //
+        .param(deleteToken.get().urlEncodedToken()) //
         ;
 
     if (reason != null) {
@@ -102,12 +116,18 @@ public class PostDelete extends MWAction {
   public String processReturningText(String s, HttpAction hm) {
     super.processReturningText(s, hm);
 
-    if (delToken) {
-      tokenAction.processReturningText(s, hm);
-      delToken = false;
-    } else {
-      parseXml(s);
-      setHasMoreMessages(false);
+    if (!deleteToken.processResponse(s, hm)) {
+      try {
+        parseXml(s);
+        setHasMoreMessages(false);
+      } catch (ApiException e) {
+        if (deleteToken.retryOnBadToken(e)) {
+          log.debug("delete token was rejected, retry with a new one");
+          setHasMoreMessages(true);
+        } else {
+          throw e;
+        }
+      }
     }
 
     return "";
@@ -169,9 +189,9 @@ public class PostDelete extends MWAction {
    */
   @Override
   public HttpAction getNextMessage() {
-    if (tokenAction.hasMoreActions()) {
+    if (deleteToken.isRequestNeeded()) {
       setHasMoreMessages(true);
-      return tokenAction.popAction();
+      return deleteToken.newRequest();
     }
     return getSecondRequest();
   }
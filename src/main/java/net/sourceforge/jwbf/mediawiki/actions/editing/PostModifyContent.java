@@ -21,6 +21,7 @@ package net.sourceforge.jwbf.mediawiki.actions.editing;
 import java.util.Set;
 
 import com.google.common.base.Strings;
+import com.google.common.base.Supplier;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Sets.SetView;
 import net.sourceforge.jwbf.core.actions.Post;
@@ -30,12 +31,15 @@ import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.core.contentRep.ContentAccessable;
 import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
 import net.sourceforge.jwbf.core.contentRep.Userinfo;
-import net.sourceforge.jwbf.mapper.XmlConverter;
+import net.sourceforge.jwbf.core.internal.Checked;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
+import net.sourceforge.jwbf.mediawiki.ResponseFormat;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
 import net.sourceforge.jwbf.mediawiki.actions.util.VersionException;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+import net.sourceforge.jwbf.mediawiki.contentRep.ArticleSection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,24 +52,42 @@ public class PostModifyContent extends MWAction {
 
   private static final Logger log = LoggerFactory.getLogger(PostModifyContent.class);
 
-  private boolean first = true;
-  private boolean second = true;
+  private boolean editPending = true;
 
   private final ContentAccessable a;
   private final MediaWikiBot bot;
-  private GetApiToken editTokeAction = null;
-  private HttpAction apiGet = null;
+  private final CachedToken editToken;
   private Post editRequest = null;
+  private final ResponseFormat format;
   static final String PARAM_MINOR = "minor";
   static final String PARAM_MINOR_NOT = "notminor";
   static final String PARAM_BOTEDIT = "bot";
 
+  /**
+   * The edit token is taken from the {@link MediaWikiBot#getTokenCache() token cache} of the bot,
+   * so only the first edit of a session has to request it.
+   */
   public PostModifyContent(MediaWikiBot bot, final SimpleArticle a) {
+    this(bot, a, ResponseFormat.XML);
+  }
+
+  /**
+   * @param format of the edit response
+   */
+  public PostModifyContent(MediaWikiBot bot, final SimpleArticle a, ResponseFormat format) {
     if (Strings.isNullOrEmpty(a.getTitle())) {
       throw new ActionException("imposible request, no title");
     }
     this.a = a;
     this.bot = bot;
+    this.format = Checked.nonNull(format, "format");
+    editToken = new CachedToken(bot.getTokenCache(), GetApiToken.Intoken.EDIT,
+        new Supplier<GetApiToken>() {
+          @Override
+          public GetApiToken get() {
+            return newTokenRequest();
+          }
+        });
   }
 
   /**
@@ -82,21 +104,26 @@ public class PostModifyContent extends MWAction {
     if (!canWrite) {
       throw new VersionException("editing is not allowed");
     }
-    if (first) {
-      first = false;
-      editTokeAction = newTokenRequest();
-      apiGet = editTokeAction.popAction();
-      return apiGet;
-    } else if (second) {
+    if (editToken.isRequestNeeded()) {
+      return editToken.newRequest();
+    } else if (editPending) {
 
       RequestBuilder builder = new ApiRequestBuilder() //
           .action("edit") //
-          .formatXml() //
+          .format(format) //
           .param("title", MediaWiki.urlEncode(a.getTitle())) //
 
           .postParam("summary", a.getEditSummary()) //
           .postParam("text", a.getText()) //
           ;
+      if (a instanceof ArticleSection) {
+        // only the text of the section is sent
+        ArticleSection section = (ArticleSection) a;
+        builder.postParam("section", section.getSection());
+        if (section.getSectionTitle().isPresent()) {
+          builder.postParam("sectiontitle", section.getSectionTitle().get());
+        }
+      }
       Set<String> groups = userinfo.getGroups();
       if (!isIntersectionEmpty(groups, MediaWiki.BOT_GROUPS)) {
         builder.postParam(PARAM_BOTEDIT, "");
@@ -108,8 +135,8 @@ public class PostModifyContent extends MWAction {
       } else {
         builder.postParam(PARAM_MINOR_NOT, "");
       }
-      builder.postParam(editTokeAction.get().token());
-      second = false;
+      builder.postParam(editToken.get().token());
+      editPending = false;
 
       editRequest = builder.buildPost();
       return editRequest;
@@ -130,7 +157,7 @@ public class PostModifyContent extends MWAction {
    */
   @Override
   public boolean hasMoreMessages() {
-    return first || second;
+    return editToken.isRequestNeeded() || editPending;
   }
 
   /**
@@ -139,11 +166,20 @@ public class PostModifyContent extends MWAction {
   @Override
   public String processReturningText(String xml, HttpAction hm) {
     String request = hm.getRequest();
-    if (request.equals(apiGet.getRequest())) {
-      editTokeAction.processReturningText(xml, hm);
-    } else if (request.equals(editRequest.getRequest())) {
+    if (editToken.processResponse(xml, hm)) {
+      return xml;
+    } else if (editRequest != null && request.equals(editRequest.getRequest())) {
       // FIXME feels very strage
-      XmlConverter.getRootElement(xml);
+      try {
+        ResponseFormat.parserFor(xml).parse(xml);
+      } catch (ApiException e) {
+        if (editToken.retryOnBadToken(e)) {
+          log.debug("edit token was rejected, retry with a new one");
+          editPending = true;
+        } else {
+          throw e;
+        }
+      }
     } else {
       log.trace(xml);
       throw new ActionException("unknown response");
@@ -0,0 +1,277 @@
+package net.sourceforge.jwbf.mediawiki.actions.editing;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.SetMultimap;
+import net.sourceforge.jwbf.core.contentRep.ArticleMeta;
+import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
+import net.sourceforge.jwbf.core.internal.Checked;
+
+/**
+ * Holds the latest known revision of frequently read pages, so that e.g. templates or
+ * configuration pages are not requested again for every read. The size is bounded by the number
+ * of chars of the cached titles and texts; entries can additionally expire after a maximal age.
+ * <p>
+ * Only revisions read with {@link GetRevision#IDS} and without {@link GetRevision#FIRST} are
+ * cached; a cached revision serves every read, that requests no more properties than it was read
+ * with. Titles must be invalidated, when they are written, deleted or moved.
+ * <p>
+ * A cache can be backed by a {@link PageStore}, that keeps every cached revision beyond the size
+ * limit, the maximal age and the lifetime of the process. Because other clients may have changed
+ * a stored revision, it is only used after its revision id was validated, see {@link
+ * #get(String, String, int)}.
+ *
+ * @see net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot#setRevisionCache(RevisionCache)
+ */
+public class RevisionCache {
+
+  static final int DATA_PROPERTIES = GetRevision.CONTENT | GetRevision.TIMESTAMP | //
+      GetRevision.USER | GetRevision.COMMENT | GetRevision.IDS | GetRevision.FLAGS;
+
+  private final Cache<String, CachedRevision> revisions;
+  /**
+   * The keys of revisions, that were read by a title other than their normalized title.
+   */
+  private final SetMultimap<String, String> aliases =
+      Multimaps.synchronizedSetMultimap(HashMultimap.<String, String>create());
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final Optional<PageStore> store;
+
+  /**
+   * @param maxChars of all cached titles and texts
+   */
+  public RevisionCache(long maxChars) {
+    this(maxChars, 0, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * @param maxChars of all cached titles and texts
+   * @param maxAge   of a revision, before its title is requested again; zero for no limit
+   */
+  public RevisionCache(long maxChars, long maxAge, TimeUnit unit) {
+    this(maxChars, maxAge, unit, Optional.<PageStore>absent(), Ticker.systemTicker());
+  }
+
+  /**
+   * @param maxChars of all cached titles and texts
+   * @param maxAge   of a revision, before its title is requested again; zero for no limit
+   * @param store    receives every cached revision; it is not closed by this cache
+   */
+  public RevisionCache(long maxChars, long maxAge, TimeUnit unit, PageStore store) {
+    this(maxChars, maxAge, unit, Optional.of(Checked.nonNull(store, "store")),
+        Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  RevisionCache(long maxChars, long maxAge, TimeUnit unit, Ticker ticker) {
+    this(maxChars, maxAge, unit, Optional.<PageStore>absent(), ticker);
+  }
+
+  private RevisionCache(long maxChars, long maxAge, TimeUnit unit, Optional<PageStore> store,
+      Ticker ticker) {
+    if (maxChars < 1) {
+      throw new IllegalArgumentException("max chars must be positive, but was " + maxChars);
+    }
+    if (maxAge < 0) {
+      throw new IllegalArgumentException("max age must not be negative, but was " + maxAge);
+    }
+    CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder() //
+        .maximumWeight(maxChars) //
+        .concurrencyLevel(1) // one segment, so that the limit applies to the whole cache
+        .ticker(ticker) //
+        .recordStats();
+    if (maxAge > 0) {
+      builder.expireAfterWrite(maxAge, unit);
+    }
+    this.store = store;
+    revisions = builder.removalListener(new RemovalListener<String, CachedRevision>() {
+      @Override
+      public void onRemoval(RemovalNotification<String, CachedRevision> notification) {
+        forgetAlias(notification.getKey(), notification.getValue());
+      }
+    }).weigher(new Weigher<String, CachedRevision>() {
+      @Override
+      public int weigh(String title, CachedRevision revision) {
+        return title.length() + revision.article.getText().length();
+      }
+    }).build();
+  }
+
+  /**
+   * @return a copy of the cached revision of the given title, if it was read with at least the
+   * given properties
+   */
+  public Optional<SimpleArticle> get(String title, int properties) {
+    return count(lookup(title, properties));
+  }
+
+  /**
+   * @return a copy of the cached or stored revision of the given title, if it has the given
+   * revision id
+   * @see #get(String, int)
+   */
+  public Optional<SimpleArticle> get(String title, String revisionId, int properties) {
+    Optional<SimpleArticle> revision = lookup(title, properties);
+    if (revision.isPresent() && revision.get().getRevisionId().equals(revisionId)) {
+      return count(revision);
+    }
+    if (store.isPresent() && isCacheable(properties)) {
+      Optional<SimpleArticle> stored = store.get().get(title, revisionId, properties);
+      if (stored.isPresent()) {
+        cache(title, new CachedRevision(stored.get(), properties & DATA_PROPERTIES));
+        return count(Optional.of(copyOf(stored.get())));
+      }
+    }
+    return count(Optional.<SimpleArticle>absent());
+  }
+
+  /**
+   * @return the revision id of the cached or stored revision of the given title, if it was read
+   * with at least the given properties; hits and misses are not counted
+   */
+  public Optional<String> getRevisionId(String title, int properties) {
+    Optional<SimpleArticle> revision = lookup(title, properties);
+    if (revision.isPresent()) {
+      return Optional.of(revision.get().getRevisionId());
+    }
+    if (store.isPresent() && isCacheable(properties)) {
+      return store.get().getRevisionId(title, properties);
+    }
+    return Optional.absent();
+  }
+
+  private Optional<SimpleArticle> lookup(String title, int properties) {
+    if (isCacheable(properties)) {
+      CachedRevision revision = revisions.asMap().get(title);
+      if (revision != null && (properties & DATA_PROPERTIES & ~revision.properties) == 0) {
+        return Optional.of(copyOf(revision.article));
+      }
+    }
+    return Optional.absent();
+  }
+
+  private Optional<SimpleArticle> count(Optional<SimpleArticle> revision) {
+    if (revision.isPresent()) {
+      hits.incrementAndGet();
+    } else {
+      misses.incrementAndGet();
+    }
+    return revision;
+  }
+
+  /**
+   * Caches a copy of the given revision of the given title; revisions, that were read without a
+   * revision id or are not the latest, are ignored.
+   */
+  public void put(String title, int properties, SimpleArticle revision) {
+    Checked.nonNull(title, "title");
+    Checked.nonNull(revision, "revision");
+    if (isCacheable(properties) && !revision.getRevisionId().isEmpty()) {
+      CachedRevision cached = new CachedRevision(copyOf(revision), properties & DATA_PROPERTIES);
+      cache(title, cached);
+      if (store.isPresent()) {
+        store.get().put(title, cached.properties, cached.article);
+      }
+    }
+  }
+
+  private void cache(String key, CachedRevision revision) {
+    revisions.put(key, revision);
+    String title = revision.article.getTitle();
+    if (!title.equals(key)) {
+      aliases.put(title, key);
+    }
+  }
+
+  private void forgetAlias(String key, CachedRevision revision) {
+    String title = revision.article.getTitle();
+    if (!title.equals(key)) {
+      CachedRevision current = revisions.asMap().get(key);
+      if (current == null || !current.article.getTitle().equals(title)) {
+        aliases.remove(title, key);
+      }
+    }
+  }
+
+  /**
+   * Drops the revision of the given title, also if it was read by a not normalized title.
+   */
+  public void invalidate(String title) {
+    revisions.invalidate(title);
+    removeStored(title);
+    for (String key : aliases.removeAll(title)) {
+      revisions.invalidate(key);
+      removeStored(key);
+    }
+  }
+
+  private void removeStored(String title) {
+    if (store.isPresent()) {
+      store.get().remove(title);
+    }
+  }
+
+  /**
+   * Drops all cached revisions; stored revisions are kept, because they are validated before
+   * they are used.
+   */
+  public void invalidateAll() {
+    revisions.invalidateAll();
+    aliases.clear();
+  }
+
+  @VisibleForTesting
+  int aliasCount() {
+    return aliases.size();
+  }
+
+  /**
+   * @return the number of cached titles
+   */
+  public long size() {
+    return revisions.size();
+  }
+
+  /**
+   * @return the hits and misses of all lookups and the number of revisions, that
+   * were evicted because of the size limit or the maximal age; other values are always zero
+   */
+  public CacheStats stats() {
+    return new CacheStats(hits.get(), misses.get(), 0, 0, 0, revisions.stats().evictionCount());
+  }
+
+  /**
+   * @return true, if revisions read with the given properties are cached
+   */
+  public static boolean isCacheable(int properties) {
+    return (properties & GetRevision.IDS) != 0 && (properties & GetRevision.FIRST) == 0;
+  }
+
+  private static SimpleArticle copyOf(SimpleArticle revision) {
+    return new SimpleArticle((ArticleMeta) revision);
+  }
+
+  private static final class CachedRevision {
+
+    private final SimpleArticle article;
+    private final int properties;
+
+    CachedRevision(SimpleArticle article, int properties) {
+      this.article = article;
+      this.properties = properties;
+    }
+  }
+}
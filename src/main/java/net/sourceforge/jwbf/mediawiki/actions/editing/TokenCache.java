@@ -0,0 +1,66 @@
+package net.sourceforge.jwbf.mediawiki.actions.editing;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import net.sourceforge.jwbf.core.internal.Checked;
+import net.sourceforge.jwbf.mediawiki.actions.editing.GetApiToken.Intoken;
+
+/**
+ * Holds the tokens of write actions for one session, so that only the first write of a kind has
+ * to request a token. Tokens are dropped after a maximal age, to fetch a fresh one before the
+ * session on the server side expires; they must be invalidated if the session changes.
+ *
+ * @see GetApiToken
+ */
+public class TokenCache {
+
+  static final long DEFAULT_MAX_AGE_MINUTES = 30;
+
+  private final Cache<Intoken, String> tokens;
+
+  public TokenCache() {
+    this(DEFAULT_MAX_AGE_MINUTES, TimeUnit.MINUTES);
+  }
+
+  /**
+   * @param maxAge of a token, before it is requested again
+   */
+  public TokenCache(long maxAge, TimeUnit unit) {
+    this(maxAge, unit, Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  TokenCache(long maxAge, TimeUnit unit, Ticker ticker) {
+    if (maxAge < 1) {
+      throw new IllegalArgumentException("max age must be positive, but was " + maxAge);
+    }
+    tokens = CacheBuilder.newBuilder() //
+        .expireAfterWrite(maxAge, unit) //
+        .ticker(ticker) //
+        .build();
+  }
+
+  /**
+   * @return the token, if it is cached and not older than the maximal age
+   */
+  public Optional<String> get(Intoken intoken) {
+    return Optional.fromNullable(tokens.getIfPresent(intoken));
+  }
+
+  public void put(Intoken intoken, String token) {
+    tokens.put(Checked.nonNull(intoken, "intoken"), Checked.nonNull(token, "token"));
+  }
+
+  /**
+   * Drops all tokens, e.g. after a login or if the server rejected a token.
+   */
+  public void invalidate() {
+    tokens.invalidateAll();
+  }
+
+}
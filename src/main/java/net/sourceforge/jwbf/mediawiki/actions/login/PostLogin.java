@@ -88,22 +88,21 @@ public class PostLogin extends MWAction {
   @Override
   public String processAllReturningText(final String s) {
     XmlElement root = XmlConverter.getRootElement(s);
-    findContent(root);
+    findContent(root.getChild("login"));
 
     return s;
   }
 
   /**
-   * @param startXmlElement the, where the search begins
+   * @param loginElement the {@code login} element of the response
    */
-  private void findContent(final XmlElement startXmlElement) {
+  private void findContent(final XmlElement loginElement) {
 
-    String result = startXmlElement.getChildAttributeValue("login", "result");
+    String result = loginElement.getAttributeValue("result");
     if (result.equalsIgnoreCase(success)) {
-      login.setup(startXmlElement.getChildAttributeValue("login", "lgusername"), true);
+      login.setup(loginElement.getAttributeValue("lgusername"), true);
     } else if (result.equalsIgnoreCase(needToken) && reTryLimit) {
-      msg = getLoginMsg(username, pw, domain,
-          startXmlElement.getChildAttributeValue("login", "token"));
+      msg = getLoginMsg(username, pw, domain, loginElement.getAttributeValue("token"));
       reTry = true;
       reTryLimit = false;
     } else if (result.equalsIgnoreCase(wrongPass)) {
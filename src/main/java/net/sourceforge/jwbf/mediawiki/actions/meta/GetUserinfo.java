@@ -7,10 +7,11 @@ import com.google.common.collect.Sets;
 import net.sourceforge.jwbf.core.actions.Get;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.core.contentRep.Userinfo;
-import net.sourceforge.jwbf.mapper.XmlConverter;
-import net.sourceforge.jwbf.mapper.XmlElement;
+import net.sourceforge.jwbf.mapper.StreamElement;
+import net.sourceforge.jwbf.mapper.StreamParser;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
+import net.sourceforge.jwbf.mediawiki.ResponseFormat;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,11 +29,18 @@ public class GetUserinfo extends MWAction implements Userinfo {
   private final Get msg;
 
   public GetUserinfo() {
+    this(ResponseFormat.XML);
+  }
+
+  /**
+   * @param format of the response
+   */
+  public GetUserinfo(ResponseFormat format) {
     String properties =
         MediaWiki.urlEncode("blockinfo|hasmsg|groups|rights|options|editcount|ratelimits");
     msg = new ApiRequestBuilder() //
         .action("query") //
-        .formatXml() //
+        .format(format) //
         .param("meta", "userinfo") //
         .param("uiprop", properties) //
         .buildGet();
@@ -42,7 +50,26 @@ public class GetUserinfo extends MWAction implements Userinfo {
     log.debug(xml);
     rights.clear();
     groups.clear();
-    findContent(XmlConverter.getRootElement(xml));
+    ResponseFormat.parserFor(xml) //
+        .on(new StreamParser.ElementHandler() {
+          @Override
+          public void handle(StreamElement userinfo) {
+            username = userinfo.getAttributeValue("name");
+          }
+        }, "query", "userinfo") //
+        .on(new StreamParser.ElementHandler() {
+          @Override
+          public void handle(StreamElement group) {
+            groups.add(group.getText());
+          }
+        }, "query", "userinfo", "groups", "g") //
+        .on(new StreamParser.ElementHandler() {
+          @Override
+          public void handle(StreamElement right) {
+            rights.add(right.getText());
+          }
+        }, "query", "userinfo", "rights", "r") //
+        .parse(xml);
   }
 
   /**
@@ -78,27 +105,6 @@ public class GetUserinfo extends MWAction implements Userinfo {
     return username;
   }
 
-  protected void findContent(final XmlElement root) {
-    for (XmlElement xmlElement : root.getChildren()) {
-      if (hasName(xmlElement, "userinfo")) {
-        username = xmlElement.getAttributeValue("name");
-      } else if (hasName(xmlElement, "groups")) {
-        for (XmlElement groupElement : xmlElement.getChildren("g")) {
-          groups.add(groupElement.getText());
-        }
-      } else if (hasName(xmlElement, "rights")) {
-        for (XmlElement rightElement : xmlElement.getChildren("r")) {
-          rights.add(rightElement.getText());
-        }
-      }
-      findContent(xmlElement);
-    }
-  }
-
-  private boolean hasName(XmlElement xmlElement, String elementName) {
-    return xmlElement.getQualifiedName().equals(elementName);
-  }
-
   /**
    * {@inheritDoc}
    */
@@ -26,10 +26,12 @@ import com.google.common.collect.Sets;
 import net.sourceforge.jwbf.JWBF;
 import net.sourceforge.jwbf.core.actions.Get;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
-import net.sourceforge.jwbf.mapper.XmlConverter;
-import net.sourceforge.jwbf.mapper.XmlElement;
+import net.sourceforge.jwbf.mapper.StreamElement;
+import net.sourceforge.jwbf.mapper.StreamParser;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki.Version;
+import net.sourceforge.jwbf.mediawiki.ResponseFormat;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -61,17 +63,29 @@ public class GetVersion extends MWAction {
    * Create the request.
    */
   public GetVersion() {
+    this(ResponseFormat.XML);
+  }
+
+  /**
+   * @param format of the response
+   */
+  public GetVersion(ResponseFormat format) {
     msg = new ApiRequestBuilder() //
         .action("query") //
-        .formatXml() //
+        .format(format) //
         .param("meta", "siteinfo") //
         .buildGet();
   }
 
-  private void parse(final String xml) {
-    XmlElement rootElement = XmlConverter.getRootElementWithError(xml);
-    // XXX ignore errors here => fallback to unknown version
-    findContent(rootElement);
+  private void parse(final String s) {
+    StreamParser parser = ResponseFormat.parserFor(s);
+    onElements(parser);
+    try {
+      parser.parse(s);
+    } catch (ApiException e) {
+      // XXX ignore errors here => fallback to unknown version
+      log.debug("siteinfo failed", e);
+    }
   }
 
   /**
@@ -141,21 +155,20 @@ public class GetVersion extends MWAction {
     return mainpage;
   }
 
-  protected void findContent(final XmlElement root) {
-
-    for (XmlElement xmlElement : root.getChildren()) {
-      if (xmlElement.getQualifiedName().equalsIgnoreCase("general")) {
-
-        mainpage = xmlElement.getAttributeValue("mainpage");
-        base = xmlElement.getAttributeValue("base");
-        sitename = xmlElement.getAttributeValue("sitename");
-        generator = xmlElement.getAttributeValue("generator");
-        theCase = xmlElement.getAttributeValue("case");
-      } else {
-        // FIXME recursion is bad
-        findContent(xmlElement);
+  /**
+   * Registers the handlers for all parts of the response, that are read by this action.
+   */
+  protected void onElements(StreamParser parser) {
+    parser.on(new StreamParser.ElementHandler() {
+      @Override
+      public void handle(StreamElement general) {
+        mainpage = general.getAttributeValue("mainpage");
+        base = general.getAttributeValue("base");
+        sitename = general.getAttributeValue("sitename");
+        generator = general.getAttributeValue("generator");
+        theCase = general.getAttributeValue("case");
       }
-    }
+    }, "query", "general");
   }
 
   /**
@@ -7,9 +7,11 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import net.sourceforge.jwbf.core.actions.Get;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
-import net.sourceforge.jwbf.mapper.XmlElement;
+import net.sourceforge.jwbf.mapper.StreamElement;
+import net.sourceforge.jwbf.mapper.StreamParser;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
+import net.sourceforge.jwbf.mediawiki.ResponseFormat;
 
 /**
  * Gets details from the given MediaWiki installation like installed version.
@@ -45,17 +47,33 @@ public class Siteinfo extends GetVersion {
    * inits with parameters {@link #GENERAL}, {@link #NAMESPACES}, {@link #INTERWIKIMAP}.
    */
   public Siteinfo() {
-    this(GENERAL, NAMESPACES, INTERWIKIMAP);
+    this(ResponseFormat.XML);
+  }
+
+  /**
+   * Like {@link #Siteinfo()}, but requests the given format.
+   */
+  public Siteinfo(ResponseFormat format) {
+    this(format, GENERAL, NAMESPACES, INTERWIKIMAP);
   }
 
   /**
    * @param types the, see {@link #GENERAL}, {@link #INTERWIKIMAP}, ...
    */
   public Siteinfo(String... types) {
+    this(ResponseFormat.XML, types);
+  }
+
+  /**
+   * @param format of the response
+   * @param types  the, see {@link #GENERAL}, {@link #INTERWIKIMAP}, ...
+   */
+  public Siteinfo(ResponseFormat format, String... types) {
+    super(format);
     String result = Joiner.on("|").join(types);
     msg = new ApiRequestBuilder() //
         .action("query") //
-        .formatXml() //
+        .format(format) //
         .param("meta", "siteinfo") //
         .param("siprop", MediaWiki.urlEncode(result)) //
         .buildGet();
@@ -71,24 +89,23 @@ public class Siteinfo extends GetVersion {
   }
 
   @Override
-  protected void findContent(final XmlElement root) {
-    super.findContent(root);
-    for (XmlElement xmlElement : root.getChildren()) {
-      if (xmlElement.getQualifiedName().equalsIgnoreCase("ns")) {
-        Integer id = Integer.parseInt(xmlElement.getAttributeValue("id"));
-        String name = xmlElement.getText();
-        addNamespace(id, name);
-
-      } else if (xmlElement.getQualifiedName().equalsIgnoreCase("iw")) {
-        if (xmlElement.hasAttribute("prefix")) {
-          String prefix = xmlElement.getAttributeValue("prefix");
-          String name = xmlElement.getAttributeValue("url");
-          addInterwiki(prefix, name);
-        }
-      } else {
-        findContent(xmlElement);
-      }
-    }
+  protected void onElements(StreamParser parser) {
+    super.onElements(parser);
+    parser //
+        .on(new StreamParser.ElementHandler() {
+          @Override
+          public void handle(StreamElement ns) {
+            addNamespace(Integer.parseInt(ns.getAttributeValueNonNull("id")), ns.getText());
+          }
+        }, "query", "namespaces", StreamParser.ANY) //
+        .on(new StreamParser.ElementHandler() {
+          @Override
+          public void handle(StreamElement iw) {
+            if (iw.hasAttribute("prefix")) {
+              addInterwiki(iw.getAttributeValue("prefix"), iw.getAttributeValue("url"));
+            }
+          }
+        }, "query", "interwikimap", "iw");
   }
 
   private void addNamespace(Integer id, String name) {
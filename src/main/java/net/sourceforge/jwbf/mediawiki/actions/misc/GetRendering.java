@@ -74,22 +74,8 @@ public class GetRendering extends MWAction {
   }
 
   protected XmlElement findElement(String elementName, String xml) {
-    XmlElement root = XmlConverter.getRootElement(xml);
-    return findContent(root, elementName);
-  }
-
-  private XmlElement findContent(final XmlElement e, final String name) {
-    XmlElement found = null;
-    for (XmlElement xmlElement : e.getChildren()) {
-      if (xmlElement.getQualifiedName().equalsIgnoreCase(name)) {
-        return xmlElement;
-
-      } else {
-        found = findContent(xmlElement, name);
-      }
-
-    }
-    if (found == null) {
+    XmlElement found = XmlConverter.getRootElement(xml).getDescendant(elementName);
+    if (found == XmlElement.NULL_XML) {
       throw new NoSuchElementException();
     }
     return found;
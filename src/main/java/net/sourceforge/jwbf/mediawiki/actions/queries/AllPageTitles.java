@@ -19,21 +19,21 @@
  */
 package net.sourceforge.jwbf.mediawiki.actions.queries;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
 import com.google.common.base.Optional;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import net.sourceforge.jwbf.core.actions.Get;
 import net.sourceforge.jwbf.core.actions.RequestBuilder;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
-import net.sourceforge.jwbf.mapper.XmlConverter;
-import net.sourceforge.jwbf.mapper.XmlElement;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
 import net.sourceforge.jwbf.mediawiki.actions.util.RedirectFilter;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 /**
  * Action class using the MediaWiki-api's "list=allpages".
@@ -43,13 +43,8 @@ import org.slf4j.LoggerFactory;
  */
 public class AllPageTitles extends BaseQuery<String> {
 
-  private static final Logger log = LoggerFactory.getLogger(AllPageTitles.class);
-
-  /** Pattern to parse returned page, @see {@link #parseArticleTitles(String)} */
-  /**
-   * Constant value for the aplimit-parameter. *
-   */
-  private static final int LIMIT = 50;
+  private static final ListResponseParser<String> RESPONSE_PARSER = new ListResponseParser<>(
+      "allpages", "p", "apfrom", "apcontinue", ListResponseParser.toTitle());
 
   /**
    * Information given in the constructor, necessary for creating next action.
@@ -102,10 +97,10 @@ public class AllPageTitles extends BaseQuery<String> {
     RequestBuilder requestBuilder = new ApiRequestBuilder() //
         .action("query") //
         .paramNewContinue(bot().getVersion()) //
-        .formatXml() //
+        .format(format()) //
         .param("list", "allpages") //
         .param("apfilterredir", findRedirectFilterValue(rf)) //
-        .param("aplimit", LIMIT) //
+        .param("aplimit", limit()) //
         ;
 
     if (from.isPresent()) {
@@ -138,15 +133,17 @@ public class AllPageTitles extends BaseQuery<String> {
    */
   @Override
   protected ImmutableList<String> parseArticleTitles(String s) {
-    ImmutableList.Builder<String> titles = ImmutableList.builder();
-    XmlElement child = XmlConverter.getChild(s, "query", "allpages");
+    return RESPONSE_PARSER.parse(s).getItems();
+  }
 
-    for (XmlElement pageElement : child.getChildren("p")) {
-      String title = pageElement.getAttributeValue("title");
-      log.debug("Found article title: \"{}\"", title);
-      titles.add(title);
-    }
-    return titles.build();
+  @Override
+  protected Page<String> parsePage(String s) {
+    return RESPONSE_PARSER.parse(s);
+  }
+
+  @Override
+  protected Page<String> parsePage(InputStream in, Charset charset) throws IOException {
+    return RESPONSE_PARSER.parse(in);
   }
 
   /**
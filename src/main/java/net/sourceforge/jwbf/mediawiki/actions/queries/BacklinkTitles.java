@@ -19,8 +19,9 @@
  */
 package net.sourceforge.jwbf.mediawiki.actions.queries;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
@@ -48,10 +49,8 @@ public class BacklinkTitles extends BaseQuery<String> {
 
   private static final Logger log = LoggerFactory.getLogger(BacklinkTitles.class);
 
-  /**
-   * constant value for the bllimit-parameter.
-   */
-  private static final int LIMIT = 50;
+  private static final ListResponseParser<String> RESPONSE_PARSER = new ListResponseParser<>(
+      "backlinks", "bl", "blcontinue", "blcontinue", ListResponseParser.toTitle());
 
   /**
    * object creating the requests that are sent to the api.
@@ -106,21 +105,7 @@ public class BacklinkTitles extends BaseQuery<String> {
    */
   @Override
   protected Optional<String> parseHasMore(final String s) {
-    log.trace(s);
-    // TODO do not use pattern matching
-    // get the blcontinue-value
-    Pattern p = Pattern.compile(
-        "<query-continue>.*?<backlinks *blcontinue=\"([^\"]*)\" */>.*?</query-continue>",
-        Pattern.DOTALL | Pattern.MULTILINE);
-
-    Matcher m = p.matcher(s);
-
-    if (m.find()) {
-      return Optional.of(m.group(1));
-    } else {
-      return Optional.absent();
-    }
-
+    return parsePage(s).getNextPageInfo();
   }
 
   /**
@@ -130,21 +115,18 @@ public class BacklinkTitles extends BaseQuery<String> {
    */
   @Override
   protected ImmutableList<String> parseArticleTitles(String s) {
+    return parsePage(s).getItems();
+  }
 
-    // get the other backlink titles and add them all to the titleCollection
-    ImmutableList.Builder<String> titleCollection = ImmutableList.builder();
-
-    Pattern p =
-        Pattern.compile("<bl pageid=\".*?\" ns=\".*?\" title=\"([^\"]*)\" (redirect=\"\" )?/>");
-
-    Matcher m = p.matcher(s);
-
-    while (m.find()) {
-      titleCollection.add(m.group(1));
-
-    }
-    return titleCollection.build();
+  @Override
+  protected Page<String> parsePage(String s) {
+    log.trace(s);
+    return RESPONSE_PARSER.parse(s);
+  }
 
+  @Override
+  protected Page<String> parsePage(InputStream in, Charset charset) throws IOException {
+    return RESPONSE_PARSER.parse(in);
   }
 
   /**
@@ -178,19 +160,19 @@ public class BacklinkTitles extends BaseQuery<String> {
 
   }
 
-  private static RequestBuilder newRequestBuilder() {
+  private RequestBuilder newRequestBuilder() {
     return new ApiRequestBuilder() //
         .action("query") //
-        .formatXml() //
+        .format(format()) //
         .param("list", "backlinks") //
-        .param("bllimit", LIMIT) //
+        .param("bllimit", limit()) //
         ;
   }
 
   /**
    * request builder for MW versions 1_17 onwards.
    */
-  private static class RequestCreator1x17 implements RequestCreator {
+  private class RequestCreator1x17 implements RequestCreator {
     /**
      * {@inheritDoc}
      */
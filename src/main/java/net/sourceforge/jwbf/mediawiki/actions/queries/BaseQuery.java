@@ -1,16 +1,35 @@
 package net.sourceforge.jwbf.mediawiki.actions.queries;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.google.common.annotations.Beta;
+import com.google.common.base.Function;
 import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 import net.sourceforge.jwbf.core.Optionals;
+import net.sourceforge.jwbf.core.actions.ReturningStreamProcessor;
+import net.sourceforge.jwbf.core.actions.TextStreamAdapter;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.core.internal.Checked;
-import net.sourceforge.jwbf.mapper.XmlConverter;
-import net.sourceforge.jwbf.mapper.XmlElement;
+import net.sourceforge.jwbf.mediawiki.ResponseFormat;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
 import org.slf4j.Logger;
@@ -26,11 +45,28 @@ public abstract class BaseQuery<T> implements Iterable<T>, Iterator<T>, Cloneabl
 
   private static final Logger log = LoggerFactory.getLogger(BaseQuery.class);
 
+  private static final ListeningExecutorService PREFETCH_EXECUTOR =
+      MoreExecutors.listeningDecorator(Executors.newCachedThreadPool( //
+          new ThreadFactoryBuilder() //
+              .setNameFormat("jwbf-prefetch-%d") //
+              .setDaemon(true) //
+              .build()));
+
   private Iterator<T> titleIterator = ImmutableList.<T>of().iterator();
   private final TitleQueryAction inner;
   private final MediaWikiBot bot;
   private ImmutableList<T> oldTitlesForLogging = ImmutableList.of();
 
+  private int prefetchDepth = 0;
+  private final Deque<ListenableFuture<Optional<ImmutableList<T>>>> prefetchedPages =
+      new ArrayDeque<>();
+  private ListenableFuture<Optional<ImmutableList<T>>> lastPrefetchedPage;
+  private boolean prefetchDone = false;
+
+  private QueryLimit limit = QueryLimit.DEFAULT;
+  private ResponseFormat format = ResponseFormat.XML;
+  private Counters counters = new Counters();
+
   /**
    * Information necessary to get the next api page.
    */
@@ -62,6 +98,65 @@ public abstract class BaseQuery<T> implements Iterable<T>, Iterator<T>, Cloneabl
     return new TitleQueryAction();
   }
 
+  /**
+   * Fetches the following pages on a background thread while the current page is consumed. At
+   * most {@code depth} pages are fetched ahead, which bounds the memory of this query. Must be
+   * called before the iteration starts.
+   */
+  @Beta
+  public BaseQuery<T> withPrefetch(int depth) {
+    if (depth < 1) {
+      throw new IllegalArgumentException("depth must be positive, but was " + depth);
+    }
+    this.prefetchDepth = depth;
+    return this;
+  }
+
+  /**
+   * @param limit results per request; default is {@value QueryLimit#DEFAULT_LIMIT}. Must be
+   *              called before the iteration starts.
+   */
+  @Beta
+  public BaseQuery<T> withLimit(QueryLimit limit) {
+    this.limit = Checked.nonNull(limit, "limit");
+    return this;
+  }
+
+  /**
+   * @param format of the responses; default is {@link ResponseFormat#XML}. Must be called before
+   *               the iteration starts.
+   */
+  @Beta
+  public BaseQuery<T> withFormat(ResponseFormat format) {
+    this.format = Checked.nonNull(format, "format");
+    return this;
+  }
+
+  /**
+   * @return the format to request
+   */
+  protected final ResponseFormat format() {
+    return format;
+  }
+
+  /**
+   * @return the limit parameter for the requests of this query, resolved on first use
+   */
+  protected final String limit() {
+    if (!counters.limitParam.isPresent()) {
+      counters.limitParam = Optional.of(limit.toParam(bot));
+    }
+    return counters.limitParam.get();
+  }
+
+  /**
+   * @return metrics of this query and all its iterators
+   */
+  @Beta
+  public QueryMetrics getMetrics() {
+    return new QueryMetrics(counters.limitParam, counters.pages.get(), counters.items.get());
+  }
+
   @Beta
   public Iterable<T> lazy() {
     return this;
@@ -79,7 +174,12 @@ public abstract class BaseQuery<T> implements Iterable<T>, Iterator<T>, Cloneabl
   @SuppressWarnings("unchecked")
   public final Iterator<T> iterator() {
     try {
-      return (Iterator<T>) clone();
+      BaseQuery<T> copy = (BaseQuery<T>) clone();
+      copy.prefetchDepth = prefetchDepth;
+      copy.limit = limit;
+      copy.format = format;
+      copy.counters = counters;
+      return copy;
     } catch (CloneNotSupportedException e) {
       log.error("cloning should be supported", e);
       return null;
@@ -114,47 +214,155 @@ public abstract class BaseQuery<T> implements Iterable<T>, Iterator<T>, Cloneabl
 
   protected Optional<String> parseXmlHasMore(String xml, String elementName, String attributeKey,
       String newContinueKey) {
-    XmlElement rootElement = XmlConverter.getRootElement(xml);
-
-    XmlElement aContinue = rootElement.getChild("continue");
-    if (aContinue != XmlElement.NULL_XML) {
-      return aContinue.getAttributeValueOpt(newContinueKey);
-    } else {
-      // XXX fallback for < MW1_19
-      XmlElement queryContinue = rootElement.getChild("query-continue").getChild(elementName);
-      return queryContinue.getAttributeValueOpt(attributeKey);
-    }
+    ListResponseParser.ContinueHandler aContinue =
+        new ListResponseParser.ContinueHandler(newContinueKey);
+    // XXX fallback for < MW1_19
+    ListResponseParser.ContinueHandler queryContinue =
+        new ListResponseParser.ContinueHandler(attributeKey);
+    ResponseFormat.parserFor(xml) //
+        .on(aContinue, "continue") //
+        .on(queryContinue, "query-continue", elementName) //
+        .parse(xml);
+    return aContinue.valueOr(queryContinue);
   }
 
   protected abstract HttpAction prepareCollection();
 
   private void doCollection() {
-
-    if (inner.init || (!titleIterator.hasNext() && hasNextPageInfo())) {
+    if (prefetchDepth > 0) {
+      doPrefetchedCollection();
+    } else if (inner.init || (!titleIterator.hasNext() && hasNextPageInfo())) {
       inner.init = false;
       inner.setHasMoreMessages(true);
       inner.msg = prepareCollection();
       bot.getPerformedAction(inner);
+      titleIterator = inner.titles.iterator();
+    }
+  }
+
+  /**
+   * Pages are fetched one after another, because each request needs the continuation of the
+   * previous response; only the consumer of the pages runs in parallel.
+   */
+  private void doPrefetchedCollection() {
+    if (inner.init) {
+      inner.init = false;
+      lastPrefetchedPage = PREFETCH_EXECUTOR.submit(new Callable<Optional<ImmutableList<T>>>() {
+        @Override
+        public Optional<ImmutableList<T>> call() {
+          return Optional.of(fetchPage());
+        }
+      });
+      prefetchedPages.add(lastPrefetchedPage);
+      fillPrefetchQueue();
+    }
+    while (!titleIterator.hasNext() && !prefetchedPages.isEmpty()) {
+      Optional<ImmutableList<T>> page = getPage(prefetchedPages.poll());
+      if (page.isPresent()) {
+        titleIterator = page.get().iterator();
+      } else {
+        prefetchDone = true;
+        prefetchedPages.clear();
+      }
+      fillPrefetchQueue();
+    }
+  }
+
+  private void fillPrefetchQueue() {
+    while (!prefetchDone && prefetchedPages.size() < prefetchDepth) {
+      lastPrefetchedPage = Futures.transform(lastPrefetchedPage,
+          new Function<Optional<ImmutableList<T>>, Optional<ImmutableList<T>>>() {
+            @Override
+            public Optional<ImmutableList<T>> apply(Optional<ImmutableList<T>> previous) {
+              if (previous.isPresent() && hasNextPageInfo()) {
+                return Optional.of(fetchPage());
+              }
+              return Optional.absent();
+            }
+          }, PREFETCH_EXECUTOR);
+      prefetchedPages.add(lastPrefetchedPage);
+    }
+  }
+
+  private ImmutableList<T> fetchPage() {
+    TitleQueryAction action = new TitleQueryAction();
+    action.msg = prepareCollection();
+    bot.getPerformedAction(action);
+    return action.titles;
+  }
+
+  private static <V> V getPage(ListenableFuture<V> page) {
+    try {
+      return Uninterruptibles.getUninterruptibly(page);
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
     }
   }
 
   protected abstract ImmutableList<T> parseArticleTitles(String s);
 
+  /**
+   * @return the items and the continuation of the given response; override this to read both
+   * with one pass
+   */
+  protected Page<T> parsePage(String s) {
+    return new Page<>(parseArticleTitles(s), parseHasMore(s));
+  }
+
+  /**
+   * Reads the undecoded response; by default it is decoded and passed to {@link
+   * #parsePage(String)}. Override this to parse the bytes directly.
+   *
+   * @param charset of the response
+   */
+  protected Page<T> parsePage(InputStream in, Charset charset) throws IOException {
+    return parsePage(TextStreamAdapter.toText(in, charset));
+  }
+
   protected abstract Optional<String> parseHasMore(final String s);
 
   protected MediaWikiBot bot() {
     return bot;
   }
 
+  /**
+   * The items of one response and the information necessary to get the next one.
+   */
+  protected static final class Page<T> {
+
+    private final ImmutableList<T> items;
+    private final Optional<String> nextPageInfo;
+
+    public Page(ImmutableList<T> items, Optional<String> nextPageInfo) {
+      this.items = items;
+      this.nextPageInfo = nextPageInfo;
+    }
+
+    public ImmutableList<T> getItems() {
+      return items;
+    }
+
+    public Optional<String> getNextPageInfo() {
+      return nextPageInfo;
+    }
+  }
+
+  private static final class Counters {
+    private volatile Optional<String> limitParam = Optional.absent();
+    private final AtomicInteger pages = new AtomicInteger();
+    private final AtomicLong items = new AtomicLong();
+  }
+
   /**
    * Inner helper class for this type.
    *
    * @author Thomas Stock
    */
-  class TitleQueryAction extends MWAction {
+  class TitleQueryAction extends MWAction implements ReturningStreamProcessor {
 
     private HttpAction msg;
     private boolean init = true;
+    private ImmutableList<T> titles = ImmutableList.of();
 
     /**
      * {@inheritDoc}
@@ -169,8 +377,22 @@ public abstract class BaseQuery<T> implements Iterable<T>, Iterator<T>, Cloneabl
      */
     @Override
     public final String processAllReturningText(final String s) {
-      ImmutableList<T> newTitles = parseArticleTitles(s);
-      setNextPageInfo(parseHasMore(s).orNull());
+      return process(parsePage(s));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String processReturningStream(InputStream in, HttpAction action) throws IOException {
+      return process(parsePage(in, Charset.forName(action.getCharset())));
+    }
+
+    private String process(Page<T> page) {
+      ImmutableList<T> newTitles = page.getItems();
+      counters.pages.incrementAndGet();
+      counters.items.addAndGet(newTitles.size());
+      setNextPageInfo(page.getNextPageInfo().orNull());
       if (log.isWarnEnabled()) {
         if (oldTitlesForLogging.equals(newTitles)) {
           log.warn("previous response has same payload");
@@ -179,7 +401,7 @@ public abstract class BaseQuery<T> implements Iterable<T>, Iterator<T>, Cloneabl
         oldTitlesForLogging = newTitles;
       }
 
-      titleIterator = newTitles.iterator();
+      titles = newTitles;
       return "";
     }
 
@@ -19,19 +19,18 @@
 package net.sourceforge.jwbf.mediawiki.actions.queries;
 
 import javax.annotation.Nonnull;
-import java.util.List;
 
 import com.google.common.base.Optional;
-import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import net.sourceforge.jwbf.core.actions.Get;
 import net.sourceforge.jwbf.core.actions.RequestBuilder;
 import net.sourceforge.jwbf.core.internal.Checked;
 import net.sourceforge.jwbf.core.internal.NonnullFunction;
-import net.sourceforge.jwbf.mapper.XmlConverter;
-import net.sourceforge.jwbf.mapper.XmlElement;
+import net.sourceforge.jwbf.mapper.StreamElement;
+import net.sourceforge.jwbf.mapper.StreamParser;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
+import net.sourceforge.jwbf.mediawiki.ResponseFormat;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
 import net.sourceforge.jwbf.mediawiki.contentRep.CategoryItem;
@@ -49,11 +48,6 @@ abstract class CategoryMembers extends BaseQuery<CategoryItem> {
 
   private static final Logger log = LoggerFactory.getLogger(CategoryMembers.class);
 
-  /**
-   * constant value for the bllimit-parameter. *
-   */
-  protected static final int LIMIT = 50;
-
   final String categoryName;
   private final String namespaceStr;
   final ImmutableList<Integer> namespace;
@@ -111,11 +105,11 @@ abstract class CategoryMembers extends BaseQuery<CategoryItem> {
 
   }
 
-  private NonnullFunction<XmlElement, CategoryItem> toCategoryItem() {
-    return new NonnullFunction<XmlElement, CategoryItem>() {
+  private NonnullFunction<StreamElement, CategoryItem> toCategoryItem() {
+    return new NonnullFunction<StreamElement, CategoryItem>() {
       @Nonnull
       @Override
-      protected CategoryItem applyNonnull(@Nonnull XmlElement input) {
+      protected CategoryItem applyNonnull(@Nonnull StreamElement input) {
         String title = input.getAttributeValueNonNull("title");
         int namespace = Integer.parseInt(input.getAttributeValueNonNull("ns"));
         int pageId = Integer.parseInt(input.getAttributeValueNonNull("pageid"));
@@ -125,10 +119,17 @@ abstract class CategoryMembers extends BaseQuery<CategoryItem> {
     };
   }
 
-  <T> ImmutableList<T> parseArticles(String xml, NonnullFunction<XmlElement, T> f) {
-    List<XmlElement> children = //
-        XmlConverter.getChild(xml, "query", "categorymembers").getChildren();
-    return FluentIterable.from(children).transform(f).toList();
+  <T> ImmutableList<T> parseArticles(String xml, final NonnullFunction<StreamElement, T> f) {
+    final ImmutableList.Builder<T> articles = ImmutableList.builder();
+    ResponseFormat.parserFor(xml) //
+        .on(new StreamParser.ElementHandler() {
+          @Override
+          public void handle(StreamElement element) {
+            articles.add(f.apply(element));
+          }
+        }, "query", "categorymembers", "cm") //
+        .parse(xml);
+    return articles.build();
   }
 
   private RequestBuilder newRequestBuilder() {
@@ -139,10 +140,10 @@ abstract class CategoryMembers extends BaseQuery<CategoryItem> {
 
     return requestBuilder //
         .action("query") //
-        .formatXml() //
+        .format(format()) //
         .paramNewContinue(bot().getVersion()) //
         .param("list", "categorymembers") //
-        .param("cmlimit", LIMIT) //
+        .param("cmlimit", limit()) //
         .param("cmtitle", "Category:" + MediaWiki.urlEncode(categoryName)) //
         // TODO: do not add Category: - instead, change other methods' descs (e.g.
         // in MediaWikiBot)
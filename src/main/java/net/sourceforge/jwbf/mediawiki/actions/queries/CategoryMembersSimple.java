@@ -26,8 +26,9 @@ import com.google.common.collect.ImmutableList;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.core.internal.Checked;
 import net.sourceforge.jwbf.core.internal.NonnullFunction;
-import net.sourceforge.jwbf.mapper.XmlElement;
+import net.sourceforge.jwbf.mapper.StreamElement;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
+import net.sourceforge.jwbf.mediawiki.ResponseFormat;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -80,6 +81,29 @@ public class CategoryMembersSimple extends BaseQuery<String> {
     return cm.parseHasMore(s);
   }
 
+  @Override
+  public BaseQuery<String> withLimit(QueryLimit limit) {
+    cm.withLimit(limit);
+    return this;
+  }
+
+  @Override
+  public BaseQuery<String> withPrefetch(int depth) {
+    cm.withPrefetch(depth);
+    return this;
+  }
+
+  @Override
+  public BaseQuery<String> withFormat(ResponseFormat format) {
+    cm.withFormat(format);
+    return this;
+  }
+
+  @Override
+  public QueryMetrics getMetrics() {
+    return cm.getMetrics();
+  }
+
   @Override
   public boolean hasNext() {
     return cm.hasNext();
@@ -90,11 +114,11 @@ public class CategoryMembersSimple extends BaseQuery<String> {
     return cm.next().getTitle();
   }
 
-  static NonnullFunction<XmlElement, String> toTitleFunction() {
-    return new NonnullFunction<XmlElement, String>() {
+  static NonnullFunction<StreamElement, String> toTitleFunction() {
+    return new NonnullFunction<StreamElement, String>() {
       @Nonnull
       @Override
-      public String applyNonnull(@Nonnull XmlElement input) {
+      public String applyNonnull(@Nonnull StreamElement input) {
         return input.getAttributeValueNonNull("title");
 
       }
@@ -15,9 +15,11 @@ import net.sourceforge.jwbf.core.actions.RequestBuilder;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.core.actions.util.ProcessException;
 import net.sourceforge.jwbf.core.internal.Checked;
-import net.sourceforge.jwbf.mapper.XmlConverter;
+import net.sourceforge.jwbf.mapper.StreamElement;
+import net.sourceforge.jwbf.mapper.StreamParser;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
+import net.sourceforge.jwbf.mediawiki.ResponseFormat;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
 import org.slf4j.Logger;
@@ -42,6 +44,7 @@ public class ImageInfo extends MWAction {
   private final MediaWikiBot bot;
   private boolean selfEx = true;
   private final ImmutableMap<String, String> params;
+  private final ResponseFormat format;
 
   private final String name;
 
@@ -55,9 +58,18 @@ public class ImageInfo extends MWAction {
   }
 
   public ImageInfo(MediaWikiBot bot, String name, Map<String, String> params) {
+    this(bot, name, params, ResponseFormat.XML);
+  }
+
+  /**
+   * @param format of the response
+   */
+  public ImageInfo(MediaWikiBot bot, String name, Map<String, String> params,
+      ResponseFormat format) {
     this.bot = bot;
     this.name = name;
     this.params = ImmutableMap.copyOf(params);
+    this.format = Checked.nonNull(format, "format");
     prepareMsg(name);
   }
 
@@ -65,7 +77,7 @@ public class ImageInfo extends MWAction {
 
     RequestBuilder requestBuilder = new ApiRequestBuilder() //
         .action("query") //
-        .formatXml() //
+        .format(format) //
         .param("iiprop", "url") //
         .param("prop", "imageinfo") //
         ;
@@ -136,12 +148,19 @@ public class ImageInfo extends MWAction {
    * {@inheritDoc}
    */
   @Override
-  public String processAllReturningText(String xml) {
-    urlOfImage = XmlConverter.getChild(xml, "query", "pages", "page", "imageinfo", "ii") //
-        .getAttributeValueOpt("url").or("");
+  public String processAllReturningText(String s) {
+    urlOfImage = "";
+    ResponseFormat.parserFor(s) //
+        .on(new StreamParser.ElementHandler() {
+          @Override
+          public void handle(StreamElement ii) {
+            urlOfImage = ii.getAttributeValueOpt("url").or(urlOfImage);
+          }
+        }, "query", "pages", StreamParser.ANY, "imageinfo", "ii") //
+        .parse(s);
 
     if (urlOfImage.length() < 1) {
-      throw new ProcessException("Could not find this image " + xml);
+      throw new ProcessException("Could not find this image " + s);
     }
     return "";
   }
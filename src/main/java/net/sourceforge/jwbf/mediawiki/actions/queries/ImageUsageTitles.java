@@ -19,14 +19,13 @@
  */
 package net.sourceforge.jwbf.mediawiki.actions.queries;
 
-import java.util.Collection;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
 
 import com.google.common.base.Optional;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Lists;
 import net.sourceforge.jwbf.core.actions.Get;
 import net.sourceforge.jwbf.core.actions.RequestBuilder;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
@@ -48,25 +47,14 @@ public class ImageUsageTitles extends BaseQuery<String> {
 
   private static final Logger log = LoggerFactory.getLogger(ImageUsageTitles.class);
 
-  /**
-   * constant value for the illimit-parameter. *
-   */
-  private static final int LIMIT = 50;
-
   private final MediaWikiBot bot;
 
   private final String imageName;
   private final int[] namespaces;
   private final VersionHandler handler;
 
-  @Deprecated
-  private static final Pattern CONTINUE_PATTERN = Pattern.compile(
-      "<query-continue>.*?<imageusage *iucontinue=\"([^\"]*)\" */>" + ".*?</query-continue>",
-      Pattern.DOTALL | Pattern.MULTILINE);
-
-  @Deprecated
-  private static final Pattern TITLE_PATTERN =
-      Pattern.compile("<iu pageid=\".*?\" ns=\".*?\" title=\"(.*?)\" />");
+  private static final ListResponseParser<String> RESPONSE_PARSER = new ListResponseParser<>(
+      "imageusage", "iu", "iucontinue", "iucontinue", ListResponseParser.toTitle());
 
   /**
    * The public constructor. It will have an MediaWiki-request generated, which is then added to
@@ -112,7 +100,7 @@ public class ImageUsageTitles extends BaseQuery<String> {
    */
   @Override
   protected Optional<String> parseHasMore(final String s) {
-    return handler.parseHasMore(s);
+    return RESPONSE_PARSER.parse(s).getNextPageInfo();
   }
 
   /**
@@ -122,7 +110,17 @@ public class ImageUsageTitles extends BaseQuery<String> {
    */
   @Override
   protected ImmutableList<String> parseArticleTitles(String s) {
-    return ImmutableList.copyOf(handler.parseArticleTitles(s));
+    return RESPONSE_PARSER.parse(s).getItems();
+  }
+
+  @Override
+  protected Page<String> parsePage(String s) {
+    return RESPONSE_PARSER.parse(s);
+  }
+
+  @Override
+  protected Page<String> parsePage(InputStream in, Charset charset) throws IOException {
+    return RESPONSE_PARSER.parse(in);
   }
 
   @Override
@@ -151,18 +149,14 @@ public class ImageUsageTitles extends BaseQuery<String> {
 
     public abstract Get generateContinueRequest(String imageName, String namespace,
         String ilcontinue);
-
-    public abstract Optional<String> parseHasMore(final String s);
-
-    public abstract Collection<String> parseArticleTitles(String s);
   }
 
   private RequestBuilder newRequestBuilder() {
     return new ApiRequestBuilder() //
         .action("query") //
-        .formatXml() //
+        .format(format()) //
         .param("list", "imageusage") //
-        .param("iulimit", LIMIT) //
+        .param("iulimit", limit()) //
         ;
   }
 
@@ -188,27 +182,6 @@ public class ImageUsageTitles extends BaseQuery<String> {
 
     }
 
-    @Override
-    public Collection<String> parseArticleTitles(String s) {
-      Collection<String> titleCollection = Lists.newArrayList();
-      Matcher m = TITLE_PATTERN.matcher(s);
-      while (m.find()) {
-        titleCollection.add(m.group(1));
-      }
-      return titleCollection;
-    }
-
-    @Override
-    public Optional<String> parseHasMore(String s) {
-      Matcher m = CONTINUE_PATTERN.matcher(s);
-      if (m.find()) {
-        return Optional.of(m.group(1));
-      } else {
-        return Optional.absent();
-      }
-
-    }
-
   }
 
 }
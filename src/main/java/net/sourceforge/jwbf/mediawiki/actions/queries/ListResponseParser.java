@@ -0,0 +1,127 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import net.sourceforge.jwbf.core.internal.Checked;
+import net.sourceforge.jwbf.mapper.StreamElement;
+import net.sourceforge.jwbf.mapper.StreamParser;
+import net.sourceforge.jwbf.mediawiki.ResponseFormat;
+
+/**
+ * Reads the items of a {@code list=...} query and its continuation with one pass over the
+ * response, in XML or JSON. The continuation is taken from the {@code continue} element, if the
+ * response has one, else from {@code query-continue}, like MediaWiki before 1.21 sends it.
+ * Instances are immutable and can be shared.
+ */
+final class ListResponseParser<T> {
+
+  private final String listName;
+  private final String itemName;
+  private final String continueKey;
+  private final String newContinueKey;
+  private final Function<StreamElement, T> toItem;
+
+  /**
+   * @param listName       like {@code backlinks}
+   * @param itemName       of the XML elements, like {@code bl}
+   * @param continueKey    attribute of {@code query-continue/listName}, like {@code blcontinue}
+   * @param newContinueKey attribute of {@code continue}, like {@code blcontinue}
+   * @param toItem         maps the current item; the element must not be kept
+   */
+  ListResponseParser(String listName, String itemName, String continueKey,
+      String newContinueKey, Function<StreamElement, T> toItem) {
+    this.listName = Checked.nonNull(listName, "list name");
+    this.itemName = Checked.nonNull(itemName, "item name");
+    this.continueKey = Checked.nonNull(continueKey, "continue key");
+    this.newContinueKey = Checked.nonNull(newContinueKey, "new continue key");
+    this.toItem = Checked.nonNull(toItem, "item function");
+  }
+
+  BaseQuery.Page<T> parse(String response) {
+    Run run = new Run(ResponseFormat.parserFor(response));
+    run.parser.parse(response);
+    return run.toPage();
+  }
+
+  /**
+   * Reads the undecoded response; only the values of the items are decoded into strings.
+   */
+  BaseQuery.Page<T> parse(InputStream response) throws IOException {
+    InputStream in = response;
+    if (!in.markSupported()) {
+      in = new BufferedInputStream(response);
+    }
+    Run run = new Run(ResponseFormat.parserFor(in));
+    run.parser.parse(in);
+    return run.toPage();
+  }
+
+  private final class Run {
+
+    private final ImmutableList.Builder<T> items = ImmutableList.builder();
+    private final ContinueHandler aContinue = new ContinueHandler(newContinueKey);
+    private final ContinueHandler queryContinue = new ContinueHandler(continueKey);
+    private final StreamParser parser;
+
+    Run(StreamParser parser) {
+      this.parser = parser //
+          .on(new StreamParser.ElementHandler() {
+            @Override
+            public void handle(StreamElement element) {
+              items.add(toItem.apply(element));
+            }
+          }, "query", listName, itemName) //
+          .on(aContinue, "continue") //
+          .on(queryContinue, "query-continue", listName);
+    }
+
+    BaseQuery.Page<T> toPage() {
+      return new BaseQuery.Page<>(items.build(), aContinue.valueOr(queryContinue));
+    }
+  }
+
+  static Function<StreamElement, String> toTitle() {
+    return TitleFunction.INSTANCE;
+  }
+
+  private enum TitleFunction implements Function<StreamElement, String> {
+    INSTANCE;
+
+    @Override
+    public String apply(StreamElement element) {
+      return element.getAttributeValueNonNull("title");
+    }
+  }
+
+  static final class ContinueHandler implements StreamParser.ElementHandler {
+
+    private final String key;
+    private boolean found = false;
+    private Optional<String> value = Optional.absent();
+
+    ContinueHandler(String key) {
+      this.key = key;
+    }
+
+    @Override
+    public void handle(StreamElement element) {
+      found = true;
+      value = element.getAttributeValueOpt(key);
+    }
+
+    /**
+     * @return the value of this handler, if its element was found, else the value of the fallback
+     */
+    Optional<String> valueOr(ContinueHandler fallback) {
+      if (found) {
+        return value;
+      }
+      return fallback.value;
+    }
+  }
+}
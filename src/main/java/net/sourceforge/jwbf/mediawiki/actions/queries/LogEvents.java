@@ -18,21 +18,26 @@
  */
 package net.sourceforge.jwbf.mediawiki.actions.queries;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
+import com.google.common.annotations.Beta;
+import com.google.common.base.Function;
 import com.google.common.base.Joiner;
+import com.google.common.base.Optional;
 import com.google.common.collect.Lists;
 import net.sourceforge.jwbf.core.actions.Get;
 import net.sourceforge.jwbf.core.actions.RequestBuilder;
+import net.sourceforge.jwbf.core.actions.ReturningStreamProcessor;
 import net.sourceforge.jwbf.core.actions.util.ActionException;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.core.actions.util.ProcessException;
-import net.sourceforge.jwbf.mapper.XmlConverter;
-import net.sourceforge.jwbf.mapper.XmlElement;
+import net.sourceforge.jwbf.core.internal.Checked;
+import net.sourceforge.jwbf.mapper.StreamElement;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
+import net.sourceforge.jwbf.mediawiki.ResponseFormat;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
 import net.sourceforge.jwbf.mediawiki.contentRep.LogItem;
@@ -48,7 +53,8 @@ import org.slf4j.LoggerFactory;
  *
  * @author Thomas Stock
  */
-public class LogEvents extends MWAction implements Iterator<LogItem>, Iterable<LogItem> {
+public class LogEvents extends MWAction
+    implements Iterator<LogItem>, Iterable<LogItem>, ReturningStreamProcessor {
 
   private static final Logger log = LoggerFactory.getLogger(LogEvents.class);
 
@@ -62,7 +68,17 @@ public class LogEvents extends MWAction implements Iterator<LogItem>, Iterable<L
   public static final String PATROL = "patrol";
   public static final String MERGE = "merge";
 
+  private static final ListResponseParser<LogItem> RESPONSE_PARSER = new ListResponseParser<>(
+      "logevents", "item", "lestart", "lecontinue", new Function<StreamElement, LogItem>() {
+        @Override
+        public LogItem apply(StreamElement item) {
+          return new LogItem(item.getAttributeValue("title"), item.getAttributeValue("type"),
+              item.getAttributeValue("user"));
+        }
+      });
+
   private final int limit;
+  private ResponseFormat format = ResponseFormat.XML;
 
   private Get msg;
   private final MediaWikiBot bot;
@@ -113,11 +129,21 @@ public class LogEvents extends MWAction implements Iterator<LogItem>, Iterable<L
     this.limit = limit;
   }
 
+  /**
+   * @param format of the responses; default is {@link ResponseFormat#XML}. Must be called before
+   *               the iteration starts.
+   */
+  @Beta
+  public LogEvents withFormat(ResponseFormat format) {
+    this.format = Checked.nonNull(format, "format");
+    return this;
+  }
+
   private Get generateRequest(String... logtype) {
 
     RequestBuilder requestBuilder = new ApiRequestBuilder() //
         .action("query") //
-        .formatXml() //
+        .format(format) //
         .param("list", "logevents") //
         .param("lelimit", limit) //
         ;
@@ -139,65 +165,28 @@ public class LogEvents extends MWAction implements Iterator<LogItem>, Iterable<L
    */
   @Override
   public String processAllReturningText(final String s) {
-    logCollection.clear();
-    parseArticleTitles(s);
-    parseHasMore(s);
-    logIterator = logCollection.iterator();
-    return "";
+    return process(RESPONSE_PARSER.parse(s));
   }
 
   /**
-   * picks the article name from a MediaWiki api response.
-   *
-   * @param xml text for parsing
+   * {@inheritDoc}
    */
-  private void parseArticleTitles(String xml) {
-
-    XmlElement root = XmlConverter.getRootElement(xml);
-    findContent(root);
-
+  @Override
+  public String processReturningStream(InputStream in, HttpAction action) throws IOException {
+    return process(RESPONSE_PARSER.parse(in));
   }
 
-  /**
-   * gets the information about a follow-up page from a provided api response. If there is one, a
-   * new request is added to msgs by calling generateRequest.
-   *
-   * @param s text for parsing
-   */
-  private void parseHasMore(final String s) {
-
-    // get the blcontinue-value
-
-    Pattern p = Pattern.compile(
-        "<query-continue>.*?" + "<logevents *lestart=\"([^\"]*)\" */>" + ".*?</query-continue>",
-        Pattern.DOTALL | Pattern.MULTILINE);
-
-    Matcher m = p.matcher(s);
-
-    if (m.find()) {
-      nextPageInfo = m.group(1);
-      hasMoreResults = true;
-    } else {
-      hasMoreResults = false;
+  private String process(BaseQuery.Page<LogItem> page) {
+    logCollection.clear();
+    logCollection.addAll(page.getItems());
+    Optional<String> next = page.getNextPageInfo();
+    hasMoreResults = next.isPresent();
+    if (hasMoreResults) {
+      nextPageInfo = next.get();
     }
     log.debug("has more = {}", hasMoreResults);
-
-  }
-
-  @SuppressWarnings("unchecked")
-  private void findContent(final XmlElement root) {
-
-    for (XmlElement xmlElement : root.getChildren()) {
-      if (xmlElement.getQualifiedName().equalsIgnoreCase("item")) {
-        LogItem l = new LogItem(xmlElement.getAttributeValue("title"),
-            xmlElement.getAttributeValue("type"), xmlElement.getAttributeValue("user"));
-        logCollection.add(l);
-
-      } else {
-        findContent(xmlElement);
-      }
-
-    }
+    logIterator = logCollection.iterator();
+    return "";
   }
 
   private void prepareCollection() {
@@ -277,7 +266,7 @@ public class LogEvents extends MWAction implements Iterator<LogItem>, Iterable<L
    */
   @Override
   protected Object clone() throws CloneNotSupportedException {
-    return new LogEvents(bot, limit, type);
+    return new LogEvents(bot, limit, type).withFormat(format);
   }
 
   /**
@@ -0,0 +1,81 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import com.google.common.annotations.Beta;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+
+/**
+ * Number of results a {@link BaseQuery} requests per page.
+ *
+ * @see <a href="https://www.mediawiki.org/wiki/API:Query#Limits">API documentation</a>
+ */
+@Beta
+public final class QueryLimit {
+
+  static final int DEFAULT_LIMIT = 50;
+  static final int LOW_MAX_LIMIT = 500;
+  static final int HIGH_MAX_LIMIT = 5000;
+  static final String APIHIGHLIMITS = "apihighlimits";
+
+  static final QueryLimit DEFAULT = of(DEFAULT_LIMIT);
+
+  private static final String MAX = "max";
+
+  private final int limit;
+  private final boolean auto;
+
+  private QueryLimit(int limit, boolean auto) {
+    this.limit = limit;
+    this.auto = auto;
+  }
+
+  /**
+   * @param limit results per page; the server caps it at 500, or 5000 for users with the {@code
+   *              apihighlimits} right
+   */
+  public static QueryLimit of(int limit) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("limit must be positive, but was " + limit);
+    }
+    return new QueryLimit(limit, false);
+  }
+
+  /**
+   * Lets the server choose the highest limit allowed for the current user.
+   */
+  public static QueryLimit max() {
+    return new QueryLimit(-1, false);
+  }
+
+  /**
+   * Uses 5000 if the current user has the {@code apihighlimits} right, else 500; the rights are
+   * read with {@link MediaWikiBot#getUserinfo()}.
+   */
+  public static QueryLimit auto() {
+    return new QueryLimit(-1, true);
+  }
+
+  String toParam(MediaWikiBot bot) {
+    if (auto) {
+      if (bot.getUserinfo().getRights().contains(APIHIGHLIMITS)) {
+        return Integer.toString(HIGH_MAX_LIMIT);
+      } else {
+        return Integer.toString(LOW_MAX_LIMIT);
+      }
+    } else if (limit > 0) {
+      return Integer.toString(limit);
+    } else {
+      return MAX;
+    }
+  }
+
+  @Override
+  public String toString() {
+    if (auto) {
+      return "auto";
+    } else if (limit > 0) {
+      return Integer.toString(limit);
+    } else {
+      return MAX;
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+
+/**
+ * Snapshot of the requests a {@link BaseQuery} has sent so far.
+ */
+@Beta
+public final class QueryMetrics {
+
+  private final Optional<String> limit;
+  private final int pages;
+  private final long items;
+
+  QueryMetrics(Optional<String> limit, int pages, long items) {
+    this.limit = limit;
+    this.pages = pages;
+    this.items = items;
+  }
+
+  /**
+   * @return the limit parameter that was sent, like "50" or "max"; absent before the first request
+   */
+  public Optional<String> getLimit() {
+    return limit;
+  }
+
+  public int getPages() {
+    return pages;
+  }
+
+  public long getItems() {
+    return items;
+  }
+
+  @Override
+  public String toString() {
+    return Objects.toStringHelper(this) //
+        .add("limit", limit.orNull()) //
+        .add("pages", pages) //
+        .add("items", items) //
+        .toString();
+  }
+}
@@ -4,8 +4,10 @@ import com.google.common.base.Optional;
 import net.sourceforge.jwbf.core.Optionals;
 import net.sourceforge.jwbf.core.actions.Get;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
-import net.sourceforge.jwbf.mapper.XmlConverter;
+import net.sourceforge.jwbf.mapper.StreamElement;
+import net.sourceforge.jwbf.mapper.StreamParser;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
+import net.sourceforge.jwbf.mediawiki.ResponseFormat;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
 import org.slf4j.Logger;
@@ -30,11 +32,18 @@ public class RandomPageTitle extends MWAction {
    * page
    */
   public RandomPageTitle(MediaWikiBot bot) {
+    this(bot, ResponseFormat.XML);
+  }
+
+  /**
+   * @param format of the response
+   */
+  public RandomPageTitle(MediaWikiBot bot, ResponseFormat format) {
     this.bot = bot;
 
     msg = new ApiRequestBuilder() //
         .action("query") //
-        .formatXml() //
+        .format(format) //
         .param("list", "random") //
         .param("rnnamespace", "0") // TODO select namespace
         .param("rnlimit", "1") // TODO select random count
@@ -57,9 +66,16 @@ public class RandomPageTitle extends MWAction {
    * {@inheritDoc}
    */
   @Override
-  public String processAllReturningText(String xml) {
-    String xpathResult = XmlConverter.evaluateXpath(xml, "/api/query/random/page/@title");
-    title = Optionals.absentIfEmpty(xpathResult);
+  public String processAllReturningText(String s) {
+    title = Optional.absent();
+    ResponseFormat.parserFor(s) //
+        .on(new StreamParser.ElementHandler() {
+          @Override
+          public void handle(StreamElement page) {
+            title = Optionals.absentIfEmpty(page.getAttributeValue("title"));
+          }
+        }, "query", "random", "page") //
+        .parse(s);
     log.debug("Title: {}", title);
     return "";
   }
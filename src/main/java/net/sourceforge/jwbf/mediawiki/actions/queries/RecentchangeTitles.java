@@ -18,15 +18,16 @@
  */
 package net.sourceforge.jwbf.mediawiki.actions.queries;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
 
+import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Lists;
 import net.sourceforge.jwbf.core.actions.RequestBuilder;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
-import net.sourceforge.jwbf.mapper.XmlConverter;
-import net.sourceforge.jwbf.mapper.XmlElement;
+import net.sourceforge.jwbf.mapper.StreamElement;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
@@ -46,10 +47,13 @@ public class RecentchangeTitles extends BaseQuery<String> {
 
   private static final Logger log = LoggerFactory.getLogger(RecentchangeTitles.class);
 
-  /**
-   * value for the bllimit-parameter. *
-   */
-  private static final int LIMIT = 50;
+  private static final ListResponseParser<String> RESPONSE_PARSER = new ListResponseParser<>(
+      "recentchanges", "rc", "rcstart", "rccontinue", new Function<StreamElement, String>() {
+        @Override
+        public String apply(StreamElement element) {
+          return MediaWiki.htmlUnescape(element.getAttributeValue("title"));
+        }
+      });
 
   private final MediaWikiBot bot;
 
@@ -66,9 +70,9 @@ public class RecentchangeTitles extends BaseQuery<String> {
 
     RequestBuilder requestBuilder = new ApiRequestBuilder() //
         .action("query") //
-        .formatXml() //
+        .format(format()) //
         .param("list", "recentchanges") //
-        .param("rclimit", LIMIT) //
+        .param("rclimit", limit()) //
         ;
     if (namespace != null) {
       requestBuilder.param("rcnamespace", MediaWiki.urlEncode(MWAction.createNsString(namespace)));
@@ -109,24 +113,12 @@ public class RecentchangeTitles extends BaseQuery<String> {
    */
   @Override
   protected ImmutableList<String> parseArticleTitles(String s) {
-    XmlElement root = XmlConverter.getRootElement(s);
-    List<String> titleCollection = Lists.newArrayList();
-    findContent(root, titleCollection);
-    return ImmutableList.copyOf(titleCollection);
-
+    return RESPONSE_PARSER.parse(s).getItems();
   }
 
-  private void findContent(final XmlElement root, List<String> titleCollection) {
-
-    for (XmlElement xmlElement : root.getChildren()) {
-      if (xmlElement.getQualifiedName().equalsIgnoreCase("rc")) {
-        titleCollection.add(MediaWiki.htmlUnescape(xmlElement.getAttributeValue("title")));
-        setNextPageInfo(xmlElement.getAttributeValue("timestamp"));
-      } else {
-        findContent(xmlElement, titleCollection);
-      }
-
-    }
+  @Override
+  protected Page<String> parsePage(InputStream in, Charset charset) throws IOException {
+    return new Page<>(RESPONSE_PARSER.parse(in).getItems(), Optional.<String>absent());
   }
 
   @Override
@@ -19,8 +19,9 @@
  */
 package net.sourceforge.jwbf.mediawiki.actions.queries;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
 
 import com.google.common.base.Optional;
 import com.google.common.base.Strings;
@@ -46,14 +47,9 @@ public class TemplateUserTitles extends BaseQuery<String> {
 
   private static final Logger log = LoggerFactory.getLogger(TemplateUserTitles.class);
 
-  // TODO do not work with patterns
-  private static final Pattern TEMPLATE_USAGE_PATTERN =
-      Pattern.compile("<ei pageid=\".*?\" ns=\".*?\" title=\"(.*?)\" />");
+  private static final ListResponseParser<String> RESPONSE_PARSER = new ListResponseParser<>(
+      "embeddedin", "ei", "eicontinue", "eicontinue", ListResponseParser.toTitle());
 
-  /**
-   * constant value for the eilimit-parameter. *
-   */
-  private static final int LIMIT = 50;
   private final MediaWikiBot bot;
 
   private final String templateName;
@@ -86,9 +82,9 @@ public class TemplateUserTitles extends BaseQuery<String> {
     String namespacesValue = MWAction.createNsString(namespaces);
     RequestBuilder requestBuilder = new ApiRequestBuilder() //
         .action("query") //
-        .formatXml() //
+        .format(format()) //
         .param("list", "embeddedin") //
-        .param("eilimit", LIMIT) //
+        .param("eilimit", limit()) //
         .param("eititle", MediaWiki.urlEncode(templateName)) //
         ;
 
@@ -111,22 +107,7 @@ public class TemplateUserTitles extends BaseQuery<String> {
    */
   @Override
   protected Optional<String> parseHasMore(final String s) {
-
-    // get the eicontinue-value
-
-    Pattern p = Pattern.compile(
-        "<query-continue>.*?" + "<embeddedin *eicontinue=\"([^\"]*)\" */>" + ".*?</query-continue>",
-        Pattern.DOTALL | Pattern.MULTILINE);
-
-    Matcher m = p.matcher(s);
-
-    if (m.find()) {
-      return Optional.of(m.group(1));
-    } else {
-      return Optional.absent();
-
-    }
-
+    return parsePage(s).getNextPageInfo();
   }
 
   /**
@@ -136,14 +117,17 @@ public class TemplateUserTitles extends BaseQuery<String> {
    */
   @Override
   protected ImmutableList<String> parseArticleTitles(String s) {
+    return parsePage(s).getItems();
+  }
 
-    Matcher m = TEMPLATE_USAGE_PATTERN.matcher(s);
-    ImmutableList.Builder<String> titleCollection = ImmutableList.builder();
-    while (m.find()) {
-      titleCollection.add(m.group(1));
-    }
+  @Override
+  protected Page<String> parsePage(String s) {
+    return RESPONSE_PARSER.parse(s);
+  }
 
-    return titleCollection.build();
+  @Override
+  protected Page<String> parsePage(InputStream in, Charset charset) throws IOException {
+    return RESPONSE_PARSER.parse(in);
   }
 
   @Override
@@ -2,13 +2,24 @@ package net.sourceforge.jwbf.mediawiki.bots;
 
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
+import java.io.Writer;
 import java.net.URL;
+import java.util.List;
+import java.util.Map;
 
+import com.google.common.base.Function;
 import com.google.common.base.Optional;
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import net.sourceforge.jwbf.core.actions.ContentProcessable;
 import net.sourceforge.jwbf.core.actions.HttpActionClient;
 import net.sourceforge.jwbf.core.actions.util.ActionException;
 import net.sourceforge.jwbf.core.bots.HttpBot;
+import net.sourceforge.jwbf.core.bots.MetadataReader;
 import net.sourceforge.jwbf.core.bots.WikiBot;
 import net.sourceforge.jwbf.core.contentRep.Article;
 import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
@@ -16,13 +27,19 @@ import net.sourceforge.jwbf.core.contentRep.Userinfo;
 import net.sourceforge.jwbf.core.internal.Checked;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.MediaWiki.Version;
+import net.sourceforge.jwbf.mediawiki.ResponseFormat;
 import net.sourceforge.jwbf.mediawiki.actions.editing.GetRevision;
+import net.sourceforge.jwbf.mediawiki.actions.editing.GetRevisions;
+import net.sourceforge.jwbf.mediawiki.actions.editing.MovePage;
 import net.sourceforge.jwbf.mediawiki.actions.editing.PostDelete;
 import net.sourceforge.jwbf.mediawiki.actions.editing.PostModifyContent;
+import net.sourceforge.jwbf.mediawiki.actions.editing.RevisionCache;
+import net.sourceforge.jwbf.mediawiki.actions.editing.TokenCache;
 import net.sourceforge.jwbf.mediawiki.actions.login.PostLogin;
 import net.sourceforge.jwbf.mediawiki.actions.meta.GetUserinfo;
 import net.sourceforge.jwbf.mediawiki.actions.meta.GetVersion;
 import net.sourceforge.jwbf.mediawiki.actions.meta.Siteinfo;
+import net.sourceforge.jwbf.mediawiki.contentRep.ArticleSection;
 import net.sourceforge.jwbf.mediawiki.contentRep.LoginData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,7 +66,7 @@ import org.slf4j.LoggerFactory;
  * @author Tobias Knerr
  * @author Justus Bisser
  */
-public class MediaWikiBot implements WikiBot {
+public class MediaWikiBot implements WikiBot, MetadataReader {
 
   private static final Logger log = LoggerFactory.getLogger(MediaWikiBot.class);
 
@@ -66,6 +83,12 @@ public class MediaWikiBot implements WikiBot {
 
   private HttpActionClient client;
 
+  private final TokenCache tokenCache = new TokenCache();
+
+  private Optional<RevisionCache> revisionCache = Optional.absent();
+
+  private volatile ResponseFormat responseFormat = ResponseFormat.XML;
+
   /**
    * These chars are not allowed in article names.
    */
@@ -74,6 +97,9 @@ public class MediaWikiBot implements WikiBot {
       GetRevision.CONTENT | GetRevision.COMMENT | GetRevision.USER | GetRevision.TIMESTAMP |
           GetRevision.IDS |
           GetRevision.FLAGS;
+  private static final int METADATA_READ_PROPERTIES =
+      DEFAULT_READ_PROPERTIES & ~GetRevision.CONTENT;
+  private static final int REVALIDATE_PROPERTIES = GetRevision.IDS | GetRevision.TIMESTAMP;
 
   /**
    * use this constructor, if you want to work with IoC.
@@ -130,6 +156,7 @@ public class MediaWikiBot implements WikiBot {
   public void login(final String username, final String passwd, final String domain) {
 
     this.login = getPerformedAction(new PostLogin(username, passwd, domain)).getLoginData();
+    tokenCache.invalidate();
     loginChangeUserInfo = true;
     if (getVersion() == Version.UNKNOWN) {
       loginChangeVersion = true;
@@ -165,7 +192,46 @@ public class MediaWikiBot implements WikiBot {
    */
   @Override
   public synchronized SimpleArticle readData(final String name, final int properties) {
-    return getPerformedAction(new GetRevision(getVersion(), name, properties)).getArticle();
+    if (revisionCache.isPresent()) {
+      Optional<SimpleArticle> cached = revisionCache.get().get(name, properties);
+      if (cached.isPresent()) {
+        return cached.get();
+      }
+    }
+    SimpleArticle article =
+        getPerformedAction(new GetRevision(getVersion(), name, properties, responseFormat))
+            .getArticle();
+    if (revisionCache.isPresent()) {
+      revisionCache.get().put(name, properties, article);
+    }
+    return article;
+  }
+
+  /**
+   * Like {@link #readData(String, int)}, but the text is written to the given writer instead of
+   * the returned article, whose text stays empty; so very large pages can be copied e.g. to a
+   * file without holding them in memory. The {@link RevisionCache} is not used.
+   *
+   * @param properties {@link GetRevision}, should contain {@link GetRevision#CONTENT}
+   * @param text       receives the text; it is not closed
+   */
+  public synchronized SimpleArticle readData(String name, int properties, Writer text) {
+    return getPerformedAction(new GetRevision(getVersion(), name, properties, text)).getArticle();
+  }
+
+  /**
+   * Reads only one section of the latest revision; the section can be changed and written with
+   * {@link #writeContent(SimpleArticle)}, which then sends only the text of the section. The
+   * {@link RevisionCache} is not used.
+   *
+   * @param section number of the section, where 0 is the text before the first heading
+   * @see GetRevision#GetRevision(Version, ArticleSection, int)
+   */
+  public synchronized ArticleSection readSection(String name, int section) {
+    ArticleSection articleSection = new ArticleSection(name, section);
+    getPerformedAction(new GetRevision(getVersion(), articleSection, DEFAULT_READ_PROPERTIES,
+        responseFormat));
+    return articleSection;
   }
 
   /**
@@ -176,6 +242,167 @@ public class MediaWikiBot implements WikiBot {
     return readData(name, DEFAULT_READ_PROPERTIES);
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public SimpleArticle readMetadata(String name) {
+    return readData(name, METADATA_READ_PROPERTIES);
+  }
+
+  /**
+   * Reads the latest revisions of many articles with one request per batch of titles. Batches are
+   * requested lazily while iterating; the batch size is {@link GetRevisions#MAX_TITLES_HIGH_LIMITS}
+   * if the current user has the {@code apihighlimits} right, else {@link GetRevisions#MAX_TITLES}.
+   *
+   * @param names      of articles in a mediawiki like "Main Page"
+   * @param properties {@link GetRevision}
+   * @return one article per name, in the same order, titled with the normalized title
+   * @see GetRevisions
+   */
+  public Iterable<SimpleArticle> readData(Iterable<String> names, int properties) {
+    return readData(names, properties, readBatchSize());
+  }
+
+  /**
+   * @param names of articles in a mediawiki like "Main Page"
+   * @return one article per name, in the same order
+   * @see #readData(Iterable, int)
+   */
+  public Iterable<SimpleArticle> readData(Iterable<String> names) {
+    return readData(names, DEFAULT_READ_PROPERTIES);
+  }
+
+  /**
+   * If a {@link RevisionCache} is set and a batch contains cached titles, only the revision ids
+   * of the batch are requested first; the texts are then requested only for titles, whose
+   * revision has changed or is not cached.
+   *
+   * @param batchSize number of titles per request, at most {@link
+   *                  GetRevisions#MAX_TITLES_HIGH_LIMITS}
+   * @see #readData(Iterable, int)
+   */
+  public Iterable<SimpleArticle> readData(Iterable<String> names, final int properties,
+      int batchSize) {
+    if (batchSize < 1 || batchSize > GetRevisions.MAX_TITLES_HIGH_LIMITS) {
+      throw new IllegalArgumentException("batch size must be between 1 and " +
+          GetRevisions.MAX_TITLES_HIGH_LIMITS + ", but was " + batchSize);
+    }
+    return FluentIterable.from(Iterables.partition(Checked.nonNull(names, "names"), batchSize)) //
+        .transformAndConcat(new Function<List<String>, Iterable<SimpleArticle>>() {
+
+          @Override
+          public Iterable<SimpleArticle> apply(List<String> batch) {
+            if (revisionCache.isPresent() && RevisionCache.isCacheable(properties)) {
+              return readRevalidated(batch, properties, revisionCache.get());
+            }
+            return getPerformedAction(new GetRevisions(batch, properties)).getArticles();
+          }
+        });
+  }
+
+  private ImmutableList<SimpleArticle> readRevalidated(List<String> batch, int properties,
+      RevisionCache cache) {
+    Map<String, SimpleArticle> articles = Maps.newHashMap();
+    List<String> changed = Lists.newArrayList();
+    if (containsAny(cache, batch, properties)) {
+      ImmutableList<SimpleArticle> currents = readRevisionIds(batch);
+      for (int i = 0; i < batch.size(); i++) {
+        String title = batch.get(i);
+        SimpleArticle current = currents.get(i);
+        Optional<SimpleArticle> cached = cache.get(title, current.getRevisionId(), properties);
+        if (cached.isPresent() && !cached.get().getTitle().equals(current.getTitle())) {
+          // a stored revision knows only the title it was read by
+          cached.get().setTitle(current.getTitle());
+          cache.put(title, properties, cached.get());
+        }
+        if (cached.isPresent()) {
+          articles.put(title, cached.get());
+        } else if (current.getRevisionId().isEmpty()) {
+          // a missing page has no text to read
+          cache.invalidate(title);
+          articles.put(title, current);
+        } else {
+          changed.add(title);
+        }
+      }
+    } else {
+      for (String title : batch) {
+        cache.get(title, properties); // counts the miss
+        changed.add(title);
+      }
+    }
+    if (!changed.isEmpty()) {
+      ImmutableList<SimpleArticle> read =
+          getPerformedAction(new GetRevisions(changed, properties)).getArticles();
+      for (int i = 0; i < changed.size(); i++) {
+        cache.put(changed.get(i), properties, read.get(i));
+        articles.put(changed.get(i), read.get(i));
+      }
+    }
+    ImmutableList.Builder<SimpleArticle> inOrder = ImmutableList.builder();
+    for (String title : batch) {
+      inOrder.add(articles.get(title));
+    }
+    return inOrder.build();
+  }
+
+  private static boolean containsAny(RevisionCache cache, List<String> titles, int properties) {
+    for (String title : titles) {
+      if (cache.getRevisionId(title, properties).isPresent()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Reads the latest revisions of those articles, whose revision id differs from the given one,
+   * e.g. to poll watched pages. Per batch of titles, only the revision ids and timestamps are
+   * requested first; the given properties are then requested only for the changed articles.
+   *
+   * @param revisionIds of the known revisions by title; an empty revision id means, that the
+   *                    article did not exist
+   * @param properties  {@link GetRevision}; {@link GetRevision#IDS} is always requested
+   * @return the changed articles, in the order of the given titles
+   * @see #readData(Iterable, int)
+   */
+  public Iterable<SimpleArticle> readChangedData(Map<String, String> revisionIds,
+      int properties) {
+    final ImmutableMap<String, String> known =
+        ImmutableMap.copyOf(Checked.nonNull(revisionIds, "revision ids"));
+    final int propertiesWithIds = properties | GetRevision.IDS;
+    return FluentIterable.from(Iterables.partition(known.keySet(), readBatchSize())) //
+        .transformAndConcat(new Function<List<String>, Iterable<SimpleArticle>>() {
+
+          @Override
+          public Iterable<SimpleArticle> apply(List<String> batch) {
+            List<String> changed = Lists.newArrayList();
+            ImmutableList<SimpleArticle> currents = readRevisionIds(batch);
+            for (int i = 0; i < batch.size(); i++) {
+              if (!currents.get(i).getRevisionId().equals(known.get(batch.get(i)))) {
+                changed.add(batch.get(i));
+              }
+            }
+            if (changed.isEmpty()) {
+              return ImmutableList.of();
+            }
+            return getPerformedAction(new GetRevisions(changed, propertiesWithIds)).getArticles();
+          }
+        });
+  }
+
+  private ImmutableList<SimpleArticle> readRevisionIds(List<String> titles) {
+    return getPerformedAction(new GetRevisions(titles, REVALIDATE_PROPERTIES)).getArticles();
+  }
+
+  private int readBatchSize() {
+    if (getUserinfo().getRights().contains("apihighlimits")) {
+      return GetRevisions.MAX_TITLES_HIGH_LIMITS;
+    }
+    return GetRevisions.MAX_TITLES;
+  }
+
   /**
    * @param name of article in a mediawiki like "Main Page"
    * @return a content representation of requested article, never null
@@ -197,7 +424,11 @@ public class MediaWikiBot implements WikiBot {
     SimpleArticle nonNullArticle = Checked.nonNull(simpleArticle, "content");
     checkTitle(nonNullArticle.getTitle());
 
-    getPerformedAction(new PostModifyContent(this, simpleArticle));
+    try {
+      getPerformedAction(new PostModifyContent(this, simpleArticle, responseFormat));
+    } finally {
+      invalidateRevision(nonNullArticle.getTitle());
+    }
     if (nonNullArticle.getText().trim().length() < 1) {
       throw new RuntimeException("Content is empty, still written");
     }
@@ -213,6 +444,53 @@ public class MediaWikiBot implements WikiBot {
     return Optional.of(title);
   }
 
+  /**
+   * @return the tokens of write actions of the current session
+   */
+  public TokenCache getTokenCache() {
+    return tokenCache;
+  }
+
+  /**
+   * @return the cache of read revisions, if one was set
+   */
+  public Optional<RevisionCache> getRevisionCache() {
+    return revisionCache;
+  }
+
+  /**
+   * Caches the revisions, that are read by {@link #readData(String, int)} and {@link
+   * #readData(Iterable, int)}; the latter revalidates cached revisions. They are invalidated
+   * by {@link #writeContent(SimpleArticle)}, {@link #delete(String)} and {@link MovePage}.
+   * Changes by other clients are seen only after the revision was evicted or has expired.
+   */
+  public void setRevisionCache(RevisionCache revisionCache) {
+    this.revisionCache = Optional.of(Checked.nonNull(revisionCache, "revision cache"));
+  }
+
+  /**
+   * @return the format, that is requested by the actions this bot creates
+   */
+  public ResponseFormat getResponseFormat() {
+    return responseFormat;
+  }
+
+  /**
+   * Changes the format, that is requested by the actions this bot creates to read revisions,
+   * sections, the version, the siteinfo and the userinfo and to edit; default is {@link
+   * ResponseFormat#XML}. Responses are parsed in the format they actually have. Queries choose
+   * their format with their own {@code withFormat}.
+   */
+  public void setResponseFormat(ResponseFormat responseFormat) {
+    this.responseFormat = Checked.nonNull(responseFormat, "response format");
+  }
+
+  private void invalidateRevision(String title) {
+    if (revisionCache.isPresent()) {
+      revisionCache.get().invalidate(title);
+    }
+  }
+
   /**
    * @return true if
    */
@@ -226,7 +504,7 @@ public class MediaWikiBot implements WikiBot {
   @Override
   public Userinfo getUserinfo() {
     if (ui == null || loginChangeUserInfo) {
-      ui = getPerformedAction(GetUserinfo.class);
+      ui = getPerformedAction(new GetUserinfo(responseFormat));
       loginChangeUserInfo = false;
     }
     return ui;
@@ -237,14 +515,18 @@ public class MediaWikiBot implements WikiBot {
    */
   @Override
   public void delete(String title) {
-    getPerformedAction(new PostDelete(getUserinfo(), title));
+    delete(title, null);
   }
 
   /**
    * deletes an article with a reason
    */
   public void delete(String title, String reason) {
-    getPerformedAction(new PostDelete(getUserinfo(), title, reason));
+    try {
+      getPerformedAction(new PostDelete(this, title, reason));
+    } finally {
+      invalidateRevision(title);
+    }
   }
 
   /**
@@ -289,7 +571,7 @@ public class MediaWikiBot implements WikiBot {
   @Nonnull
   public Version getVersion() {
     if (version == null || loginChangeVersion) {
-      GetVersion gs = getPerformedAction(GetVersion.class);
+      GetVersion gs = getPerformedAction(new GetVersion(responseFormat));
       version = gs.getVersion();
       loginChangeVersion = false;
       log.debug("Version is: {}", version.name());
@@ -304,7 +586,7 @@ public class MediaWikiBot implements WikiBot {
   @Nonnull
   public Siteinfo getSiteinfo() {
     // TODO cache value see getVersion
-    return getPerformedAction(Siteinfo.class);
+    return getPerformedAction(new Siteinfo(responseFormat));
   }
 
   /**
@@ -0,0 +1,85 @@
+package net.sourceforge.jwbf.mediawiki.contentRep;
+
+import javax.annotation.Nullable;
+import java.util.Objects;
+
+import com.google.common.base.Optional;
+import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
+import net.sourceforge.jwbf.core.internal.Checked;
+
+/**
+ * The text of one section of an article. A section is read with {@code rvsection} and written
+ * with the {@code section} parameter of the edit API, so only its text is transferred instead of
+ * the whole, possibly very large, article; its text never replaces the whole article.
+ *
+ * @see net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot#readSection(String, int)
+ */
+public class ArticleSection extends SimpleArticle {
+
+  private static final long serialVersionUID = 6414364327045287541L;
+
+  /**
+   * The section of a section, that is appended to the article.
+   */
+  public static final String NEW = "new";
+
+  private final String section;
+  @Nullable
+  private final String sectionTitle;
+
+  /**
+   * @param section number of the section, where 0 is the text before the first heading
+   */
+  public ArticleSection(String title, int section) {
+    this(title, Integer.toString(section), null);
+    if (section < 0) {
+      throw new IllegalArgumentException("section must not be negative, but was " + section);
+    }
+  }
+
+  private ArticleSection(String title, String section, @Nullable String sectionTitle) {
+    setTitle(Checked.nonNull(title, "title"));
+    this.section = section;
+    this.sectionTitle = sectionTitle;
+  }
+
+  /**
+   * @param sectionTitle the heading of the new section
+   * @return a section, that is appended to the article, when it is written
+   */
+  public static ArticleSection newSection(String title, String sectionTitle) {
+    return new ArticleSection(title, NEW, Checked.nonNull(sectionTitle, "section title"));
+  }
+
+  /**
+   * @return the number of this section or {@link #NEW}
+   */
+  public String getSection() {
+    return section;
+  }
+
+  public Optional<String> getSectionTitle() {
+    return Optional.fromNullable(sectionTitle);
+  }
+
+  public boolean isNewSection() {
+    return NEW.equals(section);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof ArticleSection) {
+      ArticleSection that = (ArticleSection) obj;
+      return super.equals(obj) && //
+          Objects.equals(this.section, that.section) && //
+          Objects.equals(this.sectionTitle, that.sectionTitle);
+    } else {
+      return false;
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(super.hashCode(), section, sectionTitle);
+  }
+}
@@ -11,7 +11,10 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.base.Predicate;
@@ -128,6 +131,77 @@ public class JettyServer extends Server {
     };
   }
 
+  public static ContextHandler gzipTextHandler(final String text) {
+    return new ContextHandler() {
+      @Override
+      public void doHandle(String arg0, Request request, HttpServletRequest arg2,
+          HttpServletResponse response) throws IOException, ServletException {
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        try (GZIPOutputStream out = new GZIPOutputStream(response.getOutputStream())) {
+          out.write(text.getBytes(Charsets.UTF_8));
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        request.setHandled(true);
+      }
+
+    };
+  }
+
+  public static ContextHandler maxlagHandler() {
+    return new ContextHandler() {
+      @Override
+      public void doHandle(String arg0, Request request, HttpServletRequest arg2,
+          HttpServletResponse response) throws IOException, ServletException {
+        response.setHeader("MediaWiki-API-Error", "maxlag");
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        PrintWriter writer = response.getWriter();
+        writer.print(request.getQueryString());
+        response.setStatus(HttpServletResponse.SC_OK);
+        request.setHandled(true);
+      }
+
+    };
+  }
+
+  public static ContextHandler failingTextHandler(final String text, final int failures,
+      final int status) {
+    final AtomicInteger requests = new AtomicInteger();
+    return new ContextHandler() {
+      @Override
+      public void doHandle(String arg0, Request request, HttpServletRequest arg2,
+          HttpServletResponse response) throws IOException, ServletException {
+        if (requests.incrementAndGet() <= failures) {
+          response.setStatus(status);
+        } else {
+          PrintWriter writer = response.getWriter();
+          writer.print(text);
+          response.setStatus(HttpServletResponse.SC_OK);
+        }
+        request.setHandled(true);
+      }
+
+    };
+  }
+
+  public static ContextHandler delayedTextHandler(final String text, final long millis) {
+    return new ContextHandler() {
+      @Override
+      public void doHandle(String arg0, Request request, HttpServletRequest arg2,
+          HttpServletResponse response) throws IOException, ServletException {
+        try {
+          Thread.sleep(millis);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        PrintWriter writer = response.getWriter();
+        writer.print(text);
+        response.setStatus(HttpServletResponse.SC_OK);
+        request.setHandled(true);
+      }
+
+    };
+  }
+
   public static String entry(String key, String value) {
     return key + "=" + value + "";
   }
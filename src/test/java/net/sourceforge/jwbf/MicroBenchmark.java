@@ -0,0 +1,68 @@
+package net.sourceforge.jwbf;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Stopwatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Minimal timing loop for benchmarks, that run as JUnit classes named {@code *Benchmark}; they
+ * are not part of the default test run, start them with e.g.
+ * {@code mvn test -Dtest=XmlParserBenchmark}.
+ */
+public final class MicroBenchmark {
+
+  private static final Logger log = LoggerFactory.getLogger(MicroBenchmark.class);
+
+  private MicroBenchmark() {
+    // no instances
+  }
+
+  /**
+   * @return the average duration of one operation in nanoseconds, after warmup
+   */
+  public static double nanosPerOp(String name, int warmups, int iterations, Runnable operation) {
+    for (int i = 0; i < warmups; i++) {
+      operation.run();
+    }
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    for (int i = 0; i < iterations; i++) {
+      operation.run();
+    }
+    double nanosPerOp = stopwatch.elapsed(TimeUnit.NANOSECONDS) / (double) iterations;
+    log.info(String.format("%-40s %12.1f ns/op %12.0f ops/s", name, nanosPerOp,
+        TimeUnit.SECONDS.toNanos(1) / nanosPerOp));
+    return nanosPerOp;
+  }
+
+  /**
+   * @return the average number of bytes, that one operation allocates on the heap, after warmup;
+   * or a negative value, if the JVM can not measure it
+   */
+  public static double bytesPerOp(String name, int warmups, int iterations, Runnable operation) {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+      log.info(String.format("%-40s %12s", name, "n/a B/op"));
+      return -1;
+    }
+    com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) bean;
+    long threadId = Thread.currentThread().getId();
+    for (int i = 0; i < warmups; i++) {
+      operation.run();
+    }
+    long before = allocations.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < iterations; i++) {
+      operation.run();
+    }
+    double bytesPerOp =
+        (allocations.getThreadAllocatedBytes(threadId) - before) / (double) iterations;
+    log.info(String.format("%-40s %12.0f B/op", name, bytesPerOp));
+    return bytesPerOp;
+  }
+
+  public static void logRatio(String name, double baselineNanos, double candidateNanos) {
+    log.info(String.format("%-40s %12.2f x", name, baselineNanos / candidateNanos));
+  }
+}
@@ -0,0 +1,105 @@
+package net.sourceforge.jwbf.core.actions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Ticker;
+import org.junit.Test;
+
+public class AdaptiveRateLimiterTest {
+
+  private static final double DELTA = 0.0001;
+
+  private final FakeTicker ticker = new FakeTicker();
+
+  @Test
+  public void testOnThrottle() {
+    // GIVEN
+    AdaptiveRateLimiter testee = new AdaptiveRateLimiter(1, 10, ticker);
+
+    // WHEN
+    testee.onThrottle(2000);
+
+    // THEN
+    assertEquals(5, testee.getRate(), DELTA);
+    assertEquals(TimeUnit.SECONDS.toNanos(2), testee.getPausedNanos());
+  }
+
+  @Test
+  public void testOnThrottle_minRate() {
+    // GIVEN
+    AdaptiveRateLimiter testee = new AdaptiveRateLimiter(3, 10, ticker);
+
+    // WHEN
+    testee.onThrottle(-1);
+    testee.onThrottle(-1);
+
+    // THEN
+    assertEquals(3, testee.getRate(), DELTA);
+    assertEquals(0, testee.getPausedNanos());
+  }
+
+  @Test
+  public void testOnSuccess() {
+    // GIVEN
+    AdaptiveRateLimiter testee = new AdaptiveRateLimiter(1, 21, ticker);
+    testee.onThrottle(-1);
+    testee.onThrottle(-1);
+
+    // WHEN
+    testee.onSuccess();
+
+    // THEN
+    assertEquals(6.25, testee.getRate(), DELTA);
+  }
+
+  @Test
+  public void testOnSuccess_maxRate() {
+    // GIVEN
+    AdaptiveRateLimiter testee = new AdaptiveRateLimiter(1, 21, ticker);
+    testee.onThrottle(-1);
+
+    // WHEN
+    for (int i = 0; i < 20; i++) {
+      testee.onSuccess();
+    }
+
+    // THEN
+    assertEquals(21, testee.getRate(), DELTA);
+  }
+
+  @Test
+  public void testPause_elapsed() {
+    // GIVEN
+    AdaptiveRateLimiter testee = new AdaptiveRateLimiter(1, 10, ticker);
+    testee.onThrottle(1000);
+
+    // WHEN
+    ticker.nanos += TimeUnit.MILLISECONDS.toNanos(1500);
+
+    // THEN
+    assertEquals(0, testee.getPausedNanos());
+  }
+
+  @Test
+  public void testInvalidRates() {
+    try {
+      new AdaptiveRateLimiter(5, 1);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("rates must be 0 < min <= max, but were 5.0 and 1.0", e.getMessage());
+    }
+  }
+
+  private static class FakeTicker extends Ticker {
+
+    private long nanos = 1;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package net.sourceforge.jwbf.core.actions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Range;
+import org.junit.Test;
+
+public class ExponentialBackoffRetryPolicyTest {
+
+  private static final Get GET = new Get("/");
+  private static final IllegalStateException FAILURE = new IllegalStateException("failure");
+
+  @Test
+  public void testRetryDelayMillis() {
+    // GIVEN
+    ExponentialBackoffRetryPolicy testee = new ExponentialBackoffRetryPolicy( //
+        ExponentialBackoffRetryPolicy.builder() //
+            .withMaxRetries(4) //
+            .withInitialDelay(100, TimeUnit.MILLISECONDS) //
+            .withMaxDelay(300, TimeUnit.MILLISECONDS), new Random(1));
+
+    // WHEN / THEN
+    assertInRange(Range.closed(50L, 100L), testee.retryDelayMillis(GET, 1, FAILURE));
+    assertInRange(Range.closed(100L, 200L), testee.retryDelayMillis(GET, 2, FAILURE));
+    assertInRange(Range.closed(150L, 300L), testee.retryDelayMillis(GET, 3, FAILURE));
+    assertInRange(Range.closed(150L, 300L), testee.retryDelayMillis(GET, 4, FAILURE));
+    assertEquals(-1, testee.retryDelayMillis(GET, 5, FAILURE));
+  }
+
+  @Test
+  public void testRetryDelayMillis_budget() {
+    // GIVEN
+    ExponentialBackoffRetryPolicy testee = ExponentialBackoffRetryPolicy.builder() //
+        .withRetryBudget(1, TimeUnit.MINUTES) //
+        .build();
+
+    // WHEN
+    long first = testee.retryDelayMillis(GET, 1, FAILURE);
+    long second = testee.retryDelayMillis(GET, 1, FAILURE);
+
+    // THEN
+    assertTrue(first >= 0);
+    assertEquals(-1, second);
+  }
+
+  @Test
+  public void testRetryDelayMillis_budgetOfSubSecondUnit() {
+    // GIVEN
+    ExponentialBackoffRetryPolicy testee = ExponentialBackoffRetryPolicy.builder() //
+        .withRetryBudget(0.001, TimeUnit.MILLISECONDS) //
+        .build();
+
+    // WHEN
+    long first = testee.retryDelayMillis(GET, 1, FAILURE);
+    long second = testee.retryDelayMillis(GET, 1, FAILURE);
+
+    // THEN
+    assertTrue(first >= 0);
+    assertEquals(-1, second);
+  }
+
+  @Test
+  public void testWithRetryBudget_invalid() {
+    try {
+      ExponentialBackoffRetryPolicy.builder().withRetryBudget(0, TimeUnit.SECONDS);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("retry budget must be positive, but was 0.0", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testBuild_invalidDelays() {
+    try {
+      ExponentialBackoffRetryPolicy.builder() //
+          .withInitialDelay(2, TimeUnit.SECONDS) //
+          .withMaxDelay(1, TimeUnit.SECONDS) //
+          .build();
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("delays must be 0 < initial <= max, but were 2000 ms and 1000 ms",
+          e.getMessage());
+    }
+  }
+
+  private static void assertInRange(Range<Long> expected, long actual) {
+    assertTrue(expected + " does not contain " + actual, expected.contains(actual));
+  }
+}
@@ -2,12 +2,14 @@ package net.sourceforge.jwbf.core.actions;
 
 import static com.google.common.net.HttpHeaders.ACCEPT_ENCODING;
 import static com.google.common.net.HttpHeaders.CONNECTION;
+import static com.google.common.net.HttpHeaders.CONTENT_ENCODING;
 import static com.google.common.net.HttpHeaders.CONTENT_LENGTH;
 import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
 import static com.google.common.net.HttpHeaders.HOST;
 import static com.google.common.net.HttpHeaders.USER_AGENT;
 import static net.sourceforge.jwbf.JettyServer.entry;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
@@ -23,22 +25,31 @@ import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 import com.google.common.base.Charsets;
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
+import com.google.common.base.Optional;
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Strings;
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Range;
 import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import com.google.common.net.HttpHeaders;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import net.sourceforge.jwbf.GAssert;
 import net.sourceforge.jwbf.JWBF;
 import net.sourceforge.jwbf.JettyServer;
 import net.sourceforge.jwbf.Logging;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
@@ -47,6 +58,8 @@ import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.pool.PoolStats;
 import org.junit.Test;
 import org.mockito.Mockito;
 
@@ -598,6 +611,25 @@ public class HttpActionClientTest {
     return testee.writeToString(action, response);
   }
 
+  @Test
+  public void testWriteToString_unsupportedContentEncoding() throws IOException {
+    // GIVEN
+    testee = HttpActionClient.of("http://localhost/");
+    HttpAction action = mock(HttpAction.class);
+    when(action.getCharset()).thenReturn("UTF-8");
+    HttpResponse response = mock(HttpResponse.class);
+    HttpEntity httpEntity = mock(HttpEntity.class);
+    when(httpEntity.getContent()).thenReturn(ByteSource.wrap("abc".getBytes()).openStream());
+    when(httpEntity.getContentEncoding()).thenReturn(new BasicHeader(CONTENT_ENCODING, "br"));
+    when(response.getEntity()).thenReturn(httpEntity);
+
+    // WHEN
+    String result = testee.writeToString(action, response);
+
+    // THEN
+    assertEquals("abc\n", result);
+  }
+
   @Test
   public void testWriteToString_withException() throws IOException {
     // GIVEN
@@ -753,4 +785,483 @@ public class HttpActionClientTest {
     }
 
   }
+
+  @Test
+  public void testPerformActionAsync() throws Exception {
+    JettyServer server = new JettyServer();
+    try {
+      // GIVEN
+      server.setHandler(JettyServer.delayedTextHandler("slow", 300));
+      server.startSilent();
+      testee = HttpActionClient.of(server.getTestUrl());
+      int count = 8;
+      ImmutableList.Builder<ListenableFuture<String>> futures = ImmutableList.builder();
+      Stopwatch stopwatch = Stopwatch.createStarted();
+
+      // WHEN
+      for (int i = 0; i < count; i++) {
+        futures.add(testee.performActionAsync(new TextAction(new Get("/?n=" + i))));
+      }
+      List<String> results = Futures.allAsList(futures.build()).get(10, TimeUnit.SECONDS);
+
+      // THEN
+      assertEquals(count, results.size());
+      for (String result : results) {
+        assertEquals("slow\n", result);
+      }
+      long elapsed = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+      assertTrue("requests were not executed concurrently: " + elapsed, elapsed < 300 * count / 2);
+    } finally {
+      server.stopSilent();
+    }
+  }
+
+  @Test
+  public void testPerformActionAsync_withError() throws Exception {
+    JettyServer server = new JettyServer();
+    try {
+      // GIVEN
+      server.startSilent();
+      testee = HttpActionClient.of(server.getTestUrl());
+
+      // WHEN
+      ListenableFuture<String> future = testee.performActionAsync(new TextAction(new Get("/")));
+      try {
+        future.get(10, TimeUnit.SECONDS);
+        fail();
+      } catch (ExecutionException e) {
+        // THEN
+        assertTrue(e.getCause() instanceof IllegalStateException);
+        GAssert.assertStartsWith("invalid status: HTTP/1.1 404", e.getCause().getMessage());
+      }
+    } finally {
+      server.stopSilent();
+    }
+  }
+
+  @Test
+  public void testPerformActionAsync_actionHandler() throws Exception {
+    JettyServer server = new JettyServer();
+    try {
+      // GIVEN
+      server.setHandler(JettyServer.textHandler("a"));
+      server.startSilent();
+      testee = HttpActionClient.of(server.getTestUrl());
+      ActionHandler actionHandler = mock(ActionHandler.class);
+      when(actionHandler.hasMoreActions()).thenReturn(Boolean.TRUE, Boolean.FALSE);
+      Get get = new RequestBuilder("/").buildGet();
+      when(actionHandler.popAction()).thenReturn(get);
+
+      // WHEN
+      testee.performActionAsync(actionHandler).get(10, TimeUnit.SECONDS);
+
+      // THEN
+      Mockito.verify(actionHandler).processReturningText("a\n", get);
+    } finally {
+      server.stopSilent();
+    }
+  }
+
+  @Test
+  public void testPoolStats() throws Exception {
+    JettyServer server = new JettyServer();
+    try {
+      // GIVEN
+      server.setHandler(JettyServer.textHandler("a"));
+      server.startSilent();
+      testee = HttpActionClient.builder() //
+          .withUrl(server.getTestUrl()) //
+          .withMaxConnections(10) //
+          .withMaxConnectionsPerRoute(3) //
+          .withConnectionTimeToLive(1, TimeUnit.MINUTES) //
+          .withKeepAlive(30, TimeUnit.SECONDS) //
+          .withIdleConnectionEviction(10, TimeUnit.SECONDS) //
+          .build();
+      ImmutableList.Builder<ListenableFuture<String>> futures = ImmutableList.builder();
+
+      // WHEN
+      for (int i = 0; i < 6; i++) {
+        futures.add(testee.performActionAsync(new TextAction(new Get("/"))));
+      }
+      Futures.allAsList(futures.build()).get(10, TimeUnit.SECONDS);
+
+      // THEN
+      PoolStats stats = testee.getPoolStats().get();
+      assertEquals(10, stats.getMax());
+      assertEquals(0, stats.getLeased());
+      assertEquals(0, stats.getPending());
+      assertTrue("connections were not reused: " + stats, stats.getAvailable() <= 3);
+    } finally {
+      server.stopSilent();
+    }
+  }
+
+  @Test
+  public void testPoolStats_customClient() {
+    // GIVEN
+    testee = HttpActionClient.builder() //
+        .withClient(HttpClientBuilder.create().build()) //
+        .withUrl("http://localhost/") //
+        .build();
+
+    // WHEN / THEN
+    assertEquals(Optional.absent(), testee.getPoolStats());
+  }
+
+  @Test
+  public void testClose() throws IOException {
+    // GIVEN
+    testee = HttpActionClient.builder() //
+        .withUrl("http://localhost/") //
+        .withIdleConnectionEviction(10, TimeUnit.SECONDS) //
+        .build();
+    assertTrue(testee.isEvictionRunning());
+
+    // WHEN
+    testee.close();
+
+    // THEN
+    assertFalse(testee.isEvictionRunning());
+    try {
+      testee.get(new Get("http://localhost/"));
+      fail();
+    } catch (IllegalStateException e) {
+      assertEquals("Connection pool shut down", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testClose_customClient() throws IOException {
+    // GIVEN
+    CloseableHttpClient client = mock(CloseableHttpClient.class);
+    testee = HttpActionClient.builder() //
+        .withClient(client) //
+        .withUrl("http://localhost/") //
+        .build();
+
+    // WHEN
+    testee.close();
+
+    // THEN
+    verify(client, Mockito.never()).close();
+  }
+
+  @Test
+  public void testMaxConnections_invalid() {
+    try {
+      HttpActionClient.builder().withMaxConnectionsPerRoute(0);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("maxConnectionsPerRoute must be positive, but was 0", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testPerformAction_streamProcessor() {
+    JettyServer server = new JettyServer();
+    try {
+      // GIVEN
+      server.setHandler(JettyServer.textHandler("a\r\nb"));
+      server.startSilent();
+      testee = HttpActionClient.of(server.getTestUrl());
+
+      // WHEN
+      String result = testee.performAction(new StreamAction(new Get("/")));
+
+      // THEN
+      assertEquals("4", result);
+    } finally {
+      server.stopSilent();
+    }
+  }
+
+  @Test
+  public void testPerformAction_gzip() {
+    JettyServer server = new JettyServer();
+    try {
+      // GIVEN
+      String text = Strings.repeat("<page title=\"A\" />", 1000);
+      server.setHandler(JettyServer.gzipTextHandler(text));
+      server.startSilent();
+      testee = HttpActionClient.of(server.getTestUrl());
+
+      // WHEN
+      String result = testee.performAction(new TextAction(new Get("/")));
+
+      // THEN
+      assertEquals(text + "\n", result);
+      TransferStats stats = testee.getTransferStats().get(TextAction.class.getName());
+      assertEquals(text.length(), stats.getUncompressedBytes());
+      assertTrue(stats.toString(), stats.getCompressedBytes() < text.length() / 10);
+    } finally {
+      server.stopSilent();
+    }
+  }
+
+  @Test
+  public void testPerformAction_gzipStoppedEarly() {
+    JettyServer server = new JettyServer();
+    try {
+      // GIVEN
+      String text = Strings.repeat("<page title=\"A\" />", 1000);
+      server.setHandler(JettyServer.gzipTextHandler(text));
+      server.startSilent();
+      testee = HttpActionClient.of(server.getTestUrl());
+
+      // WHEN
+      String result = testee.performAction(new FirstByteAction(new Get("/")));
+
+      // THEN
+      assertEquals("<", result);
+      TransferStats stats = testee.getTransferStats().get(FirstByteAction.class.getName());
+      assertEquals(text.length(), stats.getUncompressedBytes());
+    } finally {
+      server.stopSilent();
+    }
+  }
+
+  @Test
+  public void testGet_headers_withoutCompression() {
+    JettyServer server = new JettyServer();
+    try {
+      // GIVEN
+      server.setHandler(JettyServer.headerMapHandler());
+      server.startSilent();
+      String url = server.getTestUrl();
+      testee = HttpActionClient.builder() //
+          .withUrl(url) //
+          .withCompression(false) //
+          .build();
+
+      // WHEN
+      String result = testee.get(new Get(url));
+
+      // THEN
+      GAssert.assertStartsWith(entry(CONNECTION, "keep-alive"), result);
+      TransferStats stats = testee.getTransferStats().get(Get.class.getName());
+      assertEquals(stats.getUncompressedBytes(), stats.getCompressedBytes());
+    } finally {
+      server.stopSilent();
+    }
+  }
+
+  @Test
+  public void testPerformAction_maxlag() {
+    JettyServer server = new JettyServer();
+    try {
+      // GIVEN
+      server.setHandler(JettyServer.maxlagHandler());
+      server.startSilent();
+      testee = HttpActionClient.builder() //
+          .withUrl(server.getTestUrl()) //
+          .withAdaptiveRequestsPerUnit(1, 20, TimeUnit.SECONDS) //
+          .withMaxlag(5) //
+          .build();
+      Stopwatch stopwatch = Stopwatch.createStarted();
+
+      // WHEN
+      String first = testee.performAction(new TextAction(new Get("/?a=b")));
+      String second = testee.performAction(new TextAction(new Get("/")));
+
+      // THEN
+      assertEquals("a=b&maxlag=5\n", first);
+      assertEquals("maxlag=5\n", second);
+      assertTrue(stopwatch.elapsed(TimeUnit.MILLISECONDS) >= 1000);
+    } finally {
+      server.stopSilent();
+    }
+  }
+
+  @Test
+  public void testPerSecond() {
+    assertEquals(2000, HttpActionClient.Builder.perSecond(2, TimeUnit.MILLISECONDS), 0.001);
+    assertEquals(2, HttpActionClient.Builder.perSecond(2, TimeUnit.SECONDS), 0.001);
+    assertEquals(0.5, HttpActionClient.Builder.perSecond(30, TimeUnit.MINUTES), 0.001);
+  }
+
+  @Test
+  public void testWithAdaptiveRequestsPerUnit_invalid() {
+    try {
+      HttpActionClient.builder().withAdaptiveRequestsPerUnit(0, 1, TimeUnit.SECONDS);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("rates must be 0 < min <= max, but were 0.0 and 1.0", e.getMessage());
+    }
+    try {
+      HttpActionClient.builder().withAdaptiveRequestsPerUnit(2, 1, TimeUnit.MILLISECONDS);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("rates must be 0 < min <= max, but were 2.0 and 1.0", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testRetryAfterMillisOf() {
+    assertEquals(-1, HttpActionClient.retryAfterMillisOf(null));
+    assertEquals(3000, HttpActionClient.retryAfterMillisOf(retryAfter(" 3")));
+    assertEquals(-1, HttpActionClient.retryAfterMillisOf(retryAfter("Wed, 21 Oct 2015 07:28:00")));
+  }
+
+  private static Header retryAfter(String value) {
+    return new BasicHeader(HttpHeaders.RETRY_AFTER, value);
+  }
+
+  @Test
+  public void testPerformAction_retry() {
+    JettyServer server = new JettyServer();
+    try {
+      // GIVEN
+      server.setHandler(JettyServer.failingTextHandler("a", 2, 503));
+      server.startSilent();
+      testee = retryingClient(server.getTestUrl(), 3);
+
+      // WHEN
+      String result = testee.performAction(new TextAction(new Get("/")));
+
+      // THEN
+      assertEquals("a\n", result);
+      assertEquals(2, testee.getRetryCount());
+      assertEquals(0, testee.getRetriesExhaustedCount());
+    } finally {
+      server.stopSilent();
+    }
+  }
+
+  @Test
+  public void testPerformAction_retryExhausted() {
+    JettyServer server = new JettyServer();
+    try {
+      // GIVEN
+      server.setHandler(JettyServer.failingTextHandler("a", 3, 502));
+      server.startSilent();
+      testee = retryingClient(server.getTestUrl(), 1);
+
+      try {
+        // WHEN
+        testee.performAction(new TextAction(new Get("/")));
+        fail();
+      } catch (IllegalStateException e) {
+        // THEN
+        GAssert.assertStartsWith("invalid status: HTTP/1.1 502", e.getMessage());
+      }
+      assertEquals(1, testee.getRetryCount());
+      assertEquals(1, testee.getRetriesExhaustedCount());
+    } finally {
+      server.stopSilent();
+    }
+  }
+
+  @Test
+  public void testPerformAction_noRetryOfPost() {
+    JettyServer server = new JettyServer();
+    try {
+      // GIVEN
+      server.setHandler(JettyServer.failingTextHandler("a", 1, 503));
+      server.startSilent();
+      testee = retryingClient(server.getTestUrl(), 3);
+
+      try {
+        // WHEN
+        testee.performAction(new TextAction(RequestBuilder.of("/").buildPost()));
+        fail();
+      } catch (IllegalStateException e) {
+        // THEN
+        GAssert.assertStartsWith("invalid status: HTTP/1.1 503", e.getMessage());
+      }
+      assertEquals(0, testee.getRetryCount());
+    } finally {
+      server.stopSilent();
+    }
+  }
+
+  @Test
+  public void testPerformAction_retryOfIdempotentPost() {
+    JettyServer server = new JettyServer();
+    try {
+      // GIVEN
+      server.setHandler(JettyServer.failingTextHandler("a", 1, 503));
+      server.startSilent();
+      testee = retryingClient(server.getTestUrl(), 3);
+      Post post = RequestBuilder.of("/").postParam("a", "b").idempotent().buildPost();
+
+      // WHEN
+      String result = testee.performAction(new TextAction(post));
+
+      // THEN
+      assertEquals("a\n", result);
+      assertEquals(1, testee.getRetryCount());
+    } finally {
+      server.stopSilent();
+    }
+  }
+
+  private static HttpActionClient retryingClient(String url, int maxRetries) {
+    return HttpActionClient.builder() //
+        .withUrl(url) //
+        .withRetryPolicy(ExponentialBackoffRetryPolicy.builder() //
+            .withMaxRetries(maxRetries) //
+            .withInitialDelay(10, TimeUnit.MILLISECONDS) //
+            .build()) //
+        .build();
+  }
+
+  private static class TextAction implements ContentProcessable {
+
+    private final HttpAction action;
+    private boolean hasMore = true;
+
+    TextAction(HttpAction action) {
+      this.action = action;
+    }
+
+    @Override
+    public HttpAction getNextMessage() {
+      hasMore = false;
+      return action;
+    }
+
+    @Override
+    public boolean hasMoreMessages() {
+      return hasMore;
+    }
+
+    @Override
+    public boolean isSelfExecuter() {
+      return false;
+    }
+
+    @Override
+    public String processReturningText(String s, HttpAction action) {
+      return s;
+    }
+  }
+
+  private static class StreamAction extends TextAction implements ReturningStreamProcessor {
+
+    StreamAction(HttpAction action) {
+      super(action);
+    }
+
+    @Override
+    public String processReturningStream(InputStream in, HttpAction action) throws IOException {
+      return String.valueOf(ByteStreams.toByteArray(in).length);
+    }
+
+    @Override
+    public String processReturningText(String s, HttpAction action) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  private static class FirstByteAction extends StreamAction {
+
+    FirstByteAction(HttpAction action) {
+      super(action);
+    }
+
+    @Override
+    public String processReturningStream(InputStream in, HttpAction action) throws IOException {
+      return String.valueOf((char) in.read());
+    }
+  }
 }
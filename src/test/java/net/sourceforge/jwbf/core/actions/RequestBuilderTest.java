@@ -2,6 +2,8 @@ package net.sourceforge.jwbf.core.actions;
 
 import static net.sourceforge.jwbf.core.actions.RequestBuilder.HashCodeEqualsMemoizingSupplier;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import com.google.common.base.Supplier;
@@ -226,4 +228,10 @@ public class RequestBuilderTest {
     fail();
   }
 
+
+  @Test
+  public void testIdempotent() {
+    assertFalse(new RequestBuilder("/a").buildPost().isIdempotent());
+    assertTrue(new RequestBuilder("/a").idempotent().buildPost().isIdempotent());
+  }
 }
@@ -0,0 +1,68 @@
+package net.sourceforge.jwbf.core.actions;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Strings;
+import net.sourceforge.jwbf.core.actions.util.HttpAction;
+import org.junit.Test;
+
+public class TextStreamAdapterTest {
+
+  @Test
+  public void testToText() throws IOException {
+    assertEquals("\n", toText(""));
+    assertEquals("a\n", toText("a"));
+    assertEquals("a\n", toText("a\n"));
+    assertEquals("a\nb\n", toText("a\r\nb"));
+    assertEquals("a\nb\n", toText("a\rb\r"));
+    assertEquals("a\n\nb\n", toText("a\n\r\nb"));
+    assertEquals("ä€\n", toText("ä€"));
+  }
+
+  @Test
+  public void testToText_lineBreakAtBufferBoundary() throws IOException {
+    // GIVEN
+    String prefix = Strings.repeat("x", 8191);
+
+    // WHEN
+    String result = toText(prefix + "\r\ny");
+
+    // THEN
+    assertEquals(prefix + "\ny\n", result);
+  }
+
+  @Test
+  public void testProcessReturningStream() throws IOException {
+    // GIVEN
+    HttpAction action = mock(HttpAction.class);
+    when(action.getCharset()).thenReturn("UTF-8");
+    ReturningTextProcessor textProcessor = new ReturningTextProcessor() {
+      @Override
+      public String processReturningText(String s, HttpAction action) {
+        return s.toUpperCase();
+      }
+    };
+
+    // WHEN
+    String result = new TextStreamAdapter(textProcessor) //
+        .processReturningStream(streamOf("a\r\nb"), action);
+
+    // THEN
+    assertEquals("A\nB\n", result);
+  }
+
+  private static String toText(String text) throws IOException {
+    return TextStreamAdapter.toText(streamOf(text), Charsets.UTF_8);
+  }
+
+  private static InputStream streamOf(String text) {
+    return new ByteArrayInputStream(text.getBytes(Charsets.UTF_8));
+  }
+}
@@ -0,0 +1,182 @@
+package net.sourceforge.jwbf.core.contentRep;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+
+import net.sourceforge.jwbf.core.bots.MetadataReader;
+import net.sourceforge.jwbf.core.bots.WikiBot;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class ArticleTest {
+
+  private MetadataBot bot;
+
+  @Before
+  public void before() {
+    bot = mock(MetadataBot.class);
+  }
+
+  @Test
+  public void testGetters_readOnce() {
+    // GIVEN
+    when(bot.readData("A")).thenReturn(revision("7", "text"));
+    Article article = new Article(bot, "A");
+
+    // WHEN
+    String text = article.getText();
+    String editor = article.getEditor();
+    String summary = article.getEditSummary();
+    boolean minor = article.isMinorEdit();
+    String revisionId = article.getRevisionId();
+    Date timestamp = article.getEditTimestamp();
+
+    // THEN
+    assertEquals("text", text);
+    assertEquals("Editor", editor);
+    assertEquals("summary", summary);
+    assertTrue(minor);
+    assertEquals("7", revisionId);
+    assertEquals(new Date(1000), timestamp);
+    verify(bot, times(1)).readData("A");
+  }
+
+  @Test
+  public void testGetters_keepLocalValues() {
+    // GIVEN
+    when(bot.readData("A")).thenReturn(revision("7", "text"));
+    Article article = new Article(bot, "A");
+    article.setText("local");
+    article.setEditSummary("local summary");
+
+    // WHEN
+    String editor = article.getEditor();
+
+    // THEN
+    assertEquals("Editor", editor);
+    assertEquals("local", article.getText());
+    assertEquals("local summary", article.getEditSummary());
+    verify(bot, times(1)).readData("A");
+  }
+
+  @Test
+  public void testRefreshMetadata() {
+    // GIVEN
+    when(bot.readMetadata("A")).thenReturn(revision("8", ""));
+    Article article = new Article(bot, "A");
+
+    // WHEN
+    article.refreshMetadata();
+
+    // THEN
+    assertEquals("8", article.getRevisionId());
+    assertEquals("Editor", article.getEditor());
+    verify(bot, never()).readData("A");
+  }
+
+  @Test
+  public void testRefreshMetadata_withoutMetadataReader() {
+    // GIVEN
+    WikiBot wikiBot = mock(WikiBot.class);
+    when(wikiBot.readData("A")).thenReturn(revision("8", "text"));
+    Article article = new Article(wikiBot, "A");
+
+    // WHEN
+    article.refreshMetadata();
+
+    // THEN
+    assertEquals("8", article.getRevisionId());
+    verify(wikiBot, times(1)).readData("A");
+  }
+
+  @Test
+  public void testRefreshMetadata_changedRevisionReadsTextAgain() {
+    // GIVEN
+    when(bot.readData("A")).thenReturn(revision("7", "old"), revision("8", "new"));
+    when(bot.readMetadata("A")).thenReturn(revision("8", ""));
+    Article article = new Article(bot, "A");
+    assertEquals("old", article.getText());
+
+    // WHEN
+    article.refreshMetadata();
+
+    // THEN
+    assertEquals("new", article.getText());
+    verify(bot, times(2)).readData("A");
+  }
+
+  @Test
+  public void testRefreshMetadata_sameRevisionKeepsText() {
+    // GIVEN
+    when(bot.readData("A")).thenReturn(revision("7", "text"));
+    when(bot.readMetadata("A")).thenReturn(revision("7", ""));
+    Article article = new Article(bot, "A");
+    assertEquals("text", article.getText());
+
+    // WHEN
+    article.refreshMetadata();
+
+    // THEN
+    assertEquals("text", article.getText());
+    verify(bot, times(1)).readData("A");
+  }
+
+  @Test
+  public void testRefreshMetadata_changedRevisionKeepsModifiedText() {
+    // GIVEN
+    when(bot.readMetadata("A")).thenReturn(revision("8", ""));
+    Article article = new Article(bot, "A");
+    article.setText("local");
+
+    // WHEN
+    article.refreshMetadata();
+
+    // THEN
+    assertEquals("local", article.getText());
+    verify(bot, never()).readData("A");
+  }
+
+  @Test
+  public void testRefreshMetadata_keepsLocalSummary() {
+    // GIVEN
+    when(bot.readMetadata("A")).thenReturn(revision("8", ""));
+    Article article = new Article(bot, "A");
+    article.setText("local");
+    article.setEditSummary("local summary");
+    article.setMinorEdit(false);
+
+    // WHEN
+    article.refreshMetadata();
+    article.save();
+
+    // THEN
+    ArgumentCaptor<SimpleArticle> saved = ArgumentCaptor.forClass(SimpleArticle.class);
+    verify(bot).writeContent(saved.capture());
+    assertEquals("local summary", saved.getValue().getEditSummary());
+    assertFalse(saved.getValue().isMinorEdit());
+    assertEquals("8", saved.getValue().getRevisionId());
+    assertEquals("Editor", saved.getValue().getEditor());
+  }
+
+  private interface MetadataBot extends WikiBot, MetadataReader {
+  }
+
+  private static SimpleArticle revision(String revisionId, String text) {
+    SimpleArticle revision = new SimpleArticle(text, "A");
+    revision.setRevisionId(revisionId);
+    revision.setEditor("Editor");
+    revision.setEditSummary("summary");
+    revision.setMinorEdit(true);
+    revision.setEditTimestamp(new Date(1000));
+    return revision;
+  }
+}
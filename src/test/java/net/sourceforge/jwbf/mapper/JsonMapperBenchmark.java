@@ -0,0 +1,77 @@
+package net.sourceforge.jwbf.mapper;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Charsets;
+import net.sourceforge.jwbf.MicroBenchmark;
+import net.sourceforge.jwbf.TestHelper;
+import net.sourceforge.jwbf.mediawiki.MediaWiki.Version;
+import org.junit.Test;
+
+/**
+ * Compares a new {@link ObjectMapper} per call, like {@link JsonMapper} did it before, with the
+ * shared mapper and its cached readers, for text, bytes and streams.
+ */
+public class JsonMapperBenchmark {
+
+  private static final int WARMUPS = 2000;
+  private static final int ITERATIONS = 10000;
+
+  private final String json = TestHelper.wikiResponse(Version.MW1_22, "siteinfo.json");
+  private final byte[] bytes = json.getBytes(Charsets.UTF_8);
+  private final JsonMapper mapper = new JsonMapper();
+
+  @Test
+  public void benchmarkMapping() {
+    assertEquals(newMapperPerCall(), mapper.get(json, Map.class));
+
+    Runnable before = new Runnable() {
+      @Override
+      public void run() {
+        newMapperPerCall();
+      }
+    };
+    Runnable string = new Runnable() {
+      @Override
+      public void run() {
+        mapper.get(json, Map.class);
+      }
+    };
+    Runnable byteArray = new Runnable() {
+      @Override
+      public void run() {
+        mapper.get(bytes, Map.class);
+      }
+    };
+    Runnable stream = new Runnable() {
+      @Override
+      public void run() {
+        mapper.get(new ByteArrayInputStream(bytes), Map.class);
+      }
+    };
+
+    double baseline = MicroBenchmark.nanosPerOp("new mapper per call", WARMUPS, ITERATIONS, before);
+    double cached = MicroBenchmark.nanosPerOp("cached reader string", WARMUPS, ITERATIONS, string);
+    MicroBenchmark.nanosPerOp("cached reader bytes", WARMUPS, ITERATIONS, byteArray);
+    MicroBenchmark.nanosPerOp("cached reader stream", WARMUPS, ITERATIONS, stream);
+    MicroBenchmark.logRatio("new mapper/cached reader", baseline, cached);
+
+    MicroBenchmark.bytesPerOp("new mapper per call", WARMUPS, ITERATIONS, before);
+    MicroBenchmark.bytesPerOp("cached reader string", WARMUPS, ITERATIONS, string);
+    MicroBenchmark.bytesPerOp("cached reader bytes", WARMUPS, ITERATIONS, byteArray);
+    MicroBenchmark.bytesPerOp("cached reader stream", WARMUPS, ITERATIONS, stream);
+  }
+
+  private Map<?, ?> newMapperPerCall() {
+    try {
+      return new ObjectMapper().readValue(json, Map.class);
+    } catch (IOException e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+}
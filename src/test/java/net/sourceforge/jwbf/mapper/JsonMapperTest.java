@@ -1,18 +1,22 @@
 package net.sourceforge.jwbf.mapper;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.isA;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 
 import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.util.Map;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.google.common.base.Charsets;
 import com.google.common.io.Files;
 import com.google.common.io.Resources;
@@ -46,7 +50,7 @@ public class JsonMapperTest {
   public void testNullInput() {
     try {
       // GIVEN / WHEN
-      testee.get(null, SiteInfoData.class);
+      testee.get((String) null, SiteInfoData.class);
     } catch (NullPointerException npe) {
       // THEN
       assertEquals("json must not be null", npe.getMessage());
@@ -74,27 +78,88 @@ public class JsonMapperTest {
     }
   }
 
-  @Test(expected = IllegalArgumentException.class)
-  public void testGet_withException() {
+  @Test
+  public void testGet_bytes() {
     // GIVEN
-    JsonMapper.JacksonToJsonFunction testee = new JsonMapper.JacksonToJsonFunction() {
+    byte[] content = siteinfo().getBytes(Charsets.UTF_8);
+
+    // WHEN
+    SiteInfoData siteInfoData = testee.get(content, SiteInfoData.class);
+
+    // THEN
+    assertEquals("Main Page", siteInfoData.getMainpage());
+  }
+
+  @Test
+  public void testGet_stream() {
+    // GIVEN
+    ByteArrayInputStream content = new ByteArrayInputStream(siteinfo().getBytes(Charsets.UTF_8));
+
+    // WHEN
+    SiteInfoData siteInfoData = testee.get(content, SiteInfoData.class);
+
+    // THEN
+    assertEquals("Main Page", siteInfoData.getMainpage());
+  }
+
+  @Test
+  public void testGet_streamWithStringFunction() {
+    // GIVEN
+    final JsonMapper.JacksonToJsonFunction jackson = new JsonMapper.JacksonToJsonFunction();
+    testee = new JsonMapper(new JsonMapper.ToJsonFunction() {
+      @Nonnull
       @Override
-      ObjectMapper newObjectMapper() {
-        ObjectMapper mock = mock(ObjectMapper.class);
-        try {
-          doThrow(IOException.class).when(mock).readValue(isA(String.class), isA(Class.class));
-        } catch (IOException e) {
-          fail();
-        }
-        return mock;
+      public Object toJson(@Nonnull String jsonString, Class<?> clazz) {
+        return jackson.toJson(jsonString, clazz);
       }
-    };
+    });
+    ByteArrayInputStream content = new ByteArrayInputStream(siteinfo().getBytes(Charsets.UTF_8));
+
+    // WHEN
+    SiteInfoData siteInfoData = testee.get(content, SiteInfoData.class);
+
+    // THEN
+    assertEquals("Main Page", siteInfoData.getMainpage());
+  }
+
+  @Test
+  public void testReaderFor_isCached() {
+    // GIVEN
+    JsonMapper.JacksonToJsonFunction function = new JsonMapper.JacksonToJsonFunction();
+
+    // WHEN
+    ObjectReader first = function.readerFor(SiteInfoData.class);
+    ObjectReader second = function.readerFor(SiteInfoData.class);
+
+    // THEN
+    assertSame(first, second);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGet_withException() throws IOException {
+    // GIVEN
+    ObjectReader reader = mock(ObjectReader.class);
+    doThrow(IOException.class).when(reader).readValue(isA(String.class));
+    ObjectMapper mapper = mock(ObjectMapper.class);
+    doReturn(reader).when(mapper).reader(Object.class);
+    JsonMapper.JacksonToJsonFunction testee = new JsonMapper.JacksonToJsonFunction(mapper);
 
     // WHEN / THEN
     testee.toJson("", Object.class);
     fail();
   }
 
+  @Test(expected = IllegalArgumentException.class)
+  public void testGet_invalidBytes() {
+    // GIVEN / WHEN / THEN
+    testee.get("{".getBytes(Charsets.UTF_8), SiteInfoData.class);
+    fail();
+  }
+
+  private String siteinfo() {
+    return getContent(JWBF.urlToFile(Resources.getResource("mediawiki/v1-22/siteinfo.json")));
+  }
+
   String getContent(File file) {
     String content;
     try {
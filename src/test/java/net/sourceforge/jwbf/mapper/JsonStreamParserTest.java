@@ -0,0 +1,169 @@
+package net.sourceforge.jwbf.mapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import net.sourceforge.jwbf.GAssert;
+import net.sourceforge.jwbf.TestHelper;
+import net.sourceforge.jwbf.mediawiki.MediaWiki.Version;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
+import org.junit.Test;
+
+public class JsonStreamParserTest {
+
+  private final List<String> values = Lists.newArrayList();
+
+  @Test
+  public void testParse() {
+    // GIVEN
+    String json = "{\"continue\":{\"apcontinue\":\"C\",\"continue\":\"-||\"}," //
+        + "\"query\":{\"allpages\":[{\"pageid\":1,\"ns\":0,\"title\":\"A\"}," //
+        + "{\"pageid\":2,\"ns\":0,\"title\":\"B\"}]}}";
+
+    // WHEN
+    new JsonStreamParser() //
+        .on(collect("title"), "query", "allpages", "p") //
+        .on(collect("apcontinue"), "continue") //
+        .parse(json);
+
+    // THEN
+    assertEquals(ImmutableList.of("C", "A", "B"), values);
+  }
+
+  @Test
+  public void testParse_stream() {
+    // GIVEN
+    String json = "{\"query\":{\"allpages\":[{\"title\":\"Ä\"},{\"title\":\"B\"}]}}";
+
+    // WHEN
+    new JsonStreamParser() //
+        .on(collect("title"), "query", "allpages", "p") //
+        .parse(new ByteArrayInputStream(json.getBytes(Charsets.UTF_8)));
+
+    // THEN
+    assertEquals(ImmutableList.of("Ä", "B"), values);
+  }
+
+  @Test
+  public void testParse_scalarItems() {
+    // GIVEN
+    String json = TestHelper.wikiResponse(Version.MW1_22, "userinfo.json");
+
+    // WHEN
+    new JsonStreamParser().on(new StreamParser.ElementHandler() {
+      @Override
+      public void handle(StreamElement element) {
+        values.add(element.getText());
+      }
+    }, "query", "userinfo", "groups", "g").parse(json);
+
+    // THEN
+    assertEquals(ImmutableList.of("bureaucrat", "sysop", "*", "user", "autoconfirmed"), values);
+  }
+
+  @Test
+  public void testParse_scalarFields() {
+    // GIVEN
+    String json = TestHelper.wikiResponse(Version.MW1_22, "siteinfo.json");
+
+    // WHEN
+    new JsonStreamParser() //
+        .on(collect("generator"), "query", "general") //
+        .on(collect("timeoffset"), "query", "general") //
+        .parse(json);
+
+    // THEN
+    assertEquals(ImmutableList.of("MediaWiki 1.22.0", "120"), values);
+  }
+
+  @Test
+  public void testParse_text() {
+    // GIVEN
+    String json = "{\"query\":{\"pages\":{\"7\":{\"title\":\"A\",\"revisions\":" //
+        + "[{\"revid\":1,\"comment\":null,\"*\":\"a & b <c>\"}]}}}}";
+
+    // WHEN
+    new JsonStreamParser() //
+        .on(new StreamParser.ElementHandler() {
+          @Override
+          public void handle(StreamElement element) {
+            values.add(element.getAttributeValueNonNull("revid") + ":" + element.getText());
+            assertFalse(element.hasAttribute("comment"));
+          }
+        }, "query", "pages", StreamParser.ANY, "revisions", "rev") //
+        .on(collect("title"), "query", "pages", StreamParser.ANY) //
+        .parse(json);
+
+    // THEN
+    assertEquals(ImmutableList.of("1:a & b <c>", "A"), values);
+  }
+
+  @Test
+  public void testParse_pathsAreRelativeToRoot() {
+    // GIVEN
+    String json = "{\"p\":{\"title\":\"A\",\"p\":{\"title\":\"B\"}}," //
+        + "\"q\":{\"p\":{\"title\":\"C\"}}}";
+
+    // WHEN
+    new JsonStreamParser().on(collect("title"), "p").parse(json);
+
+    // THEN
+    assertEquals(ImmutableList.of("A"), values);
+  }
+
+  @Test
+  public void testParse_error() {
+    // GIVEN
+    String json = TestHelper.wikiResponse(Version.MW1_22, "siteinfo_fail.json");
+
+    try {
+      // WHEN
+      new JsonStreamParser().on(collect("generator"), "query", "general").parse(json);
+      fail();
+    } catch (ApiException e) {
+      // THEN
+      assertEquals("readapidenied", e.getCode());
+      assertEquals("You need read permission to use this module", e.getValue());
+    }
+  }
+
+  @Test
+  public void testParse_invalid() {
+    try {
+      // WHEN
+      new JsonStreamParser().parse("{\"query\":[}");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      GAssert.assertStartsWith("Invalid JSON: ", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testParse_empty() {
+    try {
+      // WHEN
+      new JsonStreamParser().parse("");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals("Invalid JSON: ", e.getMessage());
+    }
+  }
+
+  private StreamParser.ElementHandler collect(final String attribute) {
+    return new StreamParser.ElementHandler() {
+      @Override
+      public void handle(StreamElement element) {
+        values.add(element.getAttributeValueNonNull(attribute));
+      }
+    };
+  }
+}
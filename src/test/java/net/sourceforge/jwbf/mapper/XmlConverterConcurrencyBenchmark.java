@@ -0,0 +1,107 @@
+package net.sourceforge.jwbf.mapper;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import net.sourceforge.jwbf.MicroBenchmark;
+import net.sourceforge.jwbf.TestHelper;
+import org.jdom2.input.SAXBuilder;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Parses the recorded query responses from several threads, once with a new {@link SAXBuilder}
+ * per document and once with the thread-confined builders of {@link XmlConverter}.
+ */
+public class XmlConverterConcurrencyBenchmark {
+
+  private static final int THREADS = 8;
+  private static final int WARMUPS = 200;
+  private static final int ITERATIONS = 500;
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+  @After
+  public void after() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void benchmarkConcurrentParsing() {
+    final List<String> responses = recordedResponses();
+    for (String xml : responses) {
+      assertEquals(newBuilder(xml), reusedBuilder(xml));
+    }
+
+    double fresh = MicroBenchmark.nanosPerOp("new builder", WARMUPS, ITERATIONS, new Runnable() {
+      @Override
+      public void run() {
+        inParallel(responses, false);
+      }
+    });
+    double reused = MicroBenchmark.nanosPerOp("reused builder", WARMUPS, ITERATIONS,
+        new Runnable() {
+          @Override
+          public void run() {
+            inParallel(responses, true);
+          }
+        });
+    MicroBenchmark.logRatio("new/reused builder", fresh, reused);
+  }
+
+  private void inParallel(final List<String> responses, final boolean reuse) {
+    List<Future<Integer>> futures = Lists.newArrayList();
+    for (int i = 0; i < THREADS; i++) {
+      futures.add(executor.submit(new Callable<Integer>() {
+        @Override
+        public Integer call() {
+          int children = 0;
+          for (String xml : responses) {
+            children += reuse ? reusedBuilder(xml) : newBuilder(xml);
+          }
+          return children;
+        }
+      }));
+    }
+    try {
+      for (Future<Integer> future : futures) {
+        future.get();
+      }
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static int newBuilder(String xml) {
+    try {
+      return new SAXBuilder().build(new StringReader(xml)).getRootElement().getChildren().size();
+    } catch (Exception e) {
+      throw new IllegalArgumentException(e);
+    }
+  }
+
+  private static int reusedBuilder(String xml) {
+    return XmlConverter.getRootElement(xml).getChildren().size();
+  }
+
+  private static List<String> recordedResponses() {
+    ImmutableList.Builder<String> responses = ImmutableList.builder();
+    File root = new File("src/test/resources/mediawiki");
+    for (File file : Files.fileTreeTraverser().preOrderTraversal(root)) {
+      if (file.getName().matches("(allPageTitles|category)\\d\\.xml")) {
+        responses.add(TestHelper.textOf(file));
+      }
+    }
+    return responses.build();
+  }
+}
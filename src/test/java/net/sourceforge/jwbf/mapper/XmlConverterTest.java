@@ -4,8 +4,19 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 
+import javax.xml.xpath.XPathExpressionException;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
 import com.google.common.io.Resources;
+import net.sourceforge.jwbf.GAssert;
 import net.sourceforge.jwbf.TestHelper;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
 import org.junit.Test;
 
 public class XmlConverterTest {
@@ -67,4 +78,129 @@ public class XmlConverterTest {
     // THEN
     assertEquals(XmlElement.NULL_XML, first);
   }
+
+  @Test
+  public void testGetChecked_stream() throws IOException {
+    // GIVEN
+    URL resource = Resources.getResource("mediawiki/any/embeddedin_1.xml");
+
+    // WHEN
+    XmlElement result;
+    try (InputStream in = Resources.asByteSource(resource).openStream()) {
+      result = XmlConverter.getChecked(in);
+    }
+
+    // THEN
+    XmlElement expected = XmlConverter.getChecked(TestHelper.textOf(resource));
+    assertEquals(expected.getChild("query").getChild("embeddedin").getChildren().size(),
+        result.getChild("query").getChild("embeddedin").getChildren().size());
+  }
+
+  @Test
+  public void testGetChecked_streamWithError() {
+    // GIVEN
+    InputStream in = new ByteArrayInputStream(
+        "<api><error code=\"a\" info=\"b\" /></api>".getBytes(Charsets.UTF_8));
+
+    try {
+      // WHEN
+      XmlConverter.getChecked(in);
+      fail();
+    } catch (ApiException e) {
+      // THEN
+      assertEquals("API ERROR CODE: a VALUE: b", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testGetChecked_streamInvalid() {
+    // GIVEN
+    InputStream in = new ByteArrayInputStream("<api>".getBytes(Charsets.UTF_8));
+
+    try {
+      // WHEN
+      XmlConverter.getChecked(in);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      GAssert.assertStartsWith("Invalid XML: ", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testEvaluateXpath() {
+    // GIVEN
+    String xml = TestHelper.textOf(Resources.getResource("mediawiki/any/embeddedin_1.xml"));
+    String xpath = "/api/query/embeddedin/ei[2]/@title";
+
+    // WHEN
+    String first = XmlConverter.evaluateXpath(xml, xpath);
+    String second = XmlConverter.evaluateXpath("<api><query><embeddedin><ei title=\"A\"/>"
+        + "<ei title=\"B\"/></embeddedin></query></api>", xpath);
+
+    // THEN
+    assertEquals("User:Piotr Gasiorowski", first);
+    assertEquals("B", second);
+  }
+
+  @Test
+  public void testEvaluateXpath_invalid() {
+    try {
+      // WHEN
+      XmlConverter.evaluateXpath("<api/>", "/api/[");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals(XPathExpressionException.class, e.getCause().getClass());
+    }
+  }
+
+  @Test
+  public void testGetChecked_streamWithErrorBeforeInvalidContent() {
+    // GIVEN
+    InputStream in = new ByteArrayInputStream(
+        "<api><error code=\"a\" info=\"b\" /><query><unclosed></api>".getBytes(Charsets.UTF_8));
+
+    try {
+      // WHEN
+      XmlConverter.getChecked(in);
+      fail();
+    } catch (ApiException e) {
+      // THEN
+      assertEquals("API ERROR CODE: a VALUE: b", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testGetRootElement_externalEntitiesAreNotLoaded() throws IOException {
+    // GIVEN
+    File secret = File.createTempFile("secret", ".txt");
+    secret.deleteOnExit();
+    Files.write("secret", secret, Charsets.UTF_8);
+    String xml = "<!DOCTYPE api [<!ENTITY x SYSTEM \"" + secret.toURI() + "\">]>" //
+        + "<api><text>&x;</text></api>";
+
+    // WHEN
+    XmlElement root = XmlConverter.getRootElement(xml);
+
+    // THEN
+    assertEquals("", root.getChild("text").getText());
+  }
+
+  @Test
+  public void testGetRootElement_reusesParserAfterFailure() {
+    // GIVEN
+    try {
+      XmlConverter.getRootElement("<api>");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+
+    // WHEN
+    XmlElement root = XmlConverter.getRootElement("<api><query /></api>");
+
+    // THEN
+    assertEquals("query", root.getChild("query").getQualifiedName());
+  }
 }
@@ -0,0 +1,82 @@
+package net.sourceforge.jwbf.mapper;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import com.google.common.collect.Lists;
+import net.sourceforge.jwbf.MicroBenchmark;
+import org.junit.Test;
+
+/**
+ * Compares a recursive walk over {@link XmlElement#getChildren()} with the cursor of {@link
+ * XmlElement#forEachDescendant(String, StreamParser.ElementHandler)} on a parsed {@code
+ * recentchanges} response; both read all titles. Time and allocated bytes are measured, because
+ * the cursor is meant to save the list and the wrapper per element.
+ */
+public class XmlElementBenchmark {
+
+  private static final int ITEMS = 5000;
+
+  @Test
+  public void benchmarkWalk() {
+    final XmlElement root = XmlConverter.getRootElement(recentchanges(ITEMS));
+    assertEquals(ITEMS, children(root));
+    assertEquals(ITEMS, cursor(root));
+
+    Runnable children = new Runnable() {
+      @Override
+      public void run() {
+        children(root);
+      }
+    };
+    Runnable cursor = new Runnable() {
+      @Override
+      public void run() {
+        cursor(root);
+      }
+    };
+    double childrenNanos = MicroBenchmark.nanosPerOp("children walk", 200, 2000, children);
+    double cursorNanos = MicroBenchmark.nanosPerOp("cursor walk", 200, 2000, cursor);
+    MicroBenchmark.logRatio("children/cursor walk", childrenNanos, cursorNanos);
+    double childrenBytes = MicroBenchmark.bytesPerOp("children walk", 200, 2000, children);
+    double cursorBytes = MicroBenchmark.bytesPerOp("cursor walk", 200, 2000, cursor);
+    MicroBenchmark.logRatio("children/cursor allocation", childrenBytes, cursorBytes);
+  }
+
+  static int children(XmlElement root) {
+    List<String> titles = Lists.newArrayList();
+    walk(root, titles);
+    return titles.size();
+  }
+
+  private static void walk(XmlElement element, List<String> titles) {
+    for (XmlElement child : element.getChildren()) {
+      if (child.getQualifiedName().equals("rc")) {
+        titles.add(child.getAttributeValue("title"));
+      } else {
+        walk(child, titles);
+      }
+    }
+  }
+
+  static int cursor(XmlElement root) {
+    final List<String> titles = Lists.newArrayList();
+    root.forEachDescendant("rc", new StreamParser.ElementHandler() {
+      @Override
+      public void handle(StreamElement element) {
+        titles.add(element.getAttributeValue("title"));
+      }
+    });
+    return titles.size();
+  }
+
+  private static String recentchanges(int items) {
+    StringBuilder xml = new StringBuilder("<?xml version=\"1.0\"?><api><query><recentchanges>");
+    for (int i = 0; i < items; i++) {
+      xml.append("<rc type=\"edit\" ns=\"0\" title=\"Title ").append(i)
+          .append("\" timestamp=\"2014-01-01T00:00:00Z\" />");
+    }
+    return xml.append("</recentchanges></query></api>").toString();
+  }
+}
@@ -0,0 +1,133 @@
+package net.sourceforge.jwbf.mapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+public class XmlElementTest {
+
+  private final XmlElement root = XmlConverter.getRootElement("<api><query>" //
+      + "<rc title=\"A\" ns=\"0\"><rc title=\"nested\" /></rc>" //
+      + "<x><rc title=\"B\" /></x>" //
+      + "<rc title=\"C\" />" //
+      + "</query><parse><text>html</text></parse></api>");
+
+  private final List<String> titles = Lists.newArrayList();
+
+  @Test
+  public void testForEachChild() {
+    // GIVEN
+    XmlElement query = root.getChild("query");
+
+    // WHEN
+    query.forEachChild("rc", collectTitles());
+
+    // THEN
+    assertEquals(ImmutableList.of("A", "C"), titles);
+  }
+
+  @Test
+  public void testForEachChild_all() {
+    // GIVEN
+    final List<String> names = Lists.newArrayList();
+
+    // WHEN
+    root.getChild("query").forEachChild(null, new StreamParser.ElementHandler() {
+      @Override
+      public void handle(StreamElement element) {
+        names.add(element.getQualifiedName());
+      }
+    });
+
+    // THEN
+    assertEquals(ImmutableList.of("rc", "x", "rc"), names);
+  }
+
+  @Test
+  public void testForEachChild_reusesCursor() {
+    // GIVEN
+    final List<StreamElement> elements = Lists.newArrayList();
+
+    // WHEN
+    root.getChild("query").forEachChild("rc", new StreamParser.ElementHandler() {
+      @Override
+      public void handle(StreamElement element) {
+        elements.add(element);
+      }
+    });
+
+    // THEN
+    assertEquals(2, elements.size());
+    assertSame(elements.get(0), elements.get(1));
+  }
+
+  @Test
+  public void testForEachDescendant() {
+    // WHEN
+    root.forEachDescendant("rc", collectTitles());
+
+    // THEN
+    assertEquals(ImmutableList.of("A", "B", "C"), titles);
+  }
+
+  @Test
+  public void testForEach_nullXml() {
+    // WHEN
+    XmlElement.NULL_XML.forEachChild("rc", collectTitles());
+    XmlElement.NULL_XML.forEachDescendant("rc", collectTitles());
+
+    // THEN
+    assertEquals(ImmutableList.of(), titles);
+  }
+
+  @Test
+  public void testGetDescendant() {
+    assertEquals("html", root.getDescendant("text").getText());
+    assertEquals("nested", root.getChild("query").getChild("rc").getDescendant("rc")
+        .getAttributeValue("title"));
+    assertSame(XmlElement.NULL_XML, root.getDescendant("missing"));
+    assertSame(XmlElement.NULL_XML, XmlElement.NULL_XML.getDescendant("text"));
+  }
+
+  @Test
+  public void testAttributeByIndex() {
+    // GIVEN
+    XmlElement rc = root.getChild("query").getChild("rc");
+
+    // WHEN / THEN
+    assertEquals(2, rc.getAttributeCount());
+    assertEquals("title", rc.getAttributeName(0));
+    assertEquals("A", rc.getAttributeValue(0));
+    assertEquals("ns", rc.getAttributeName(1));
+    assertEquals("0", rc.getAttributeValue(1));
+    assertEquals(0, root.getAttributeCount());
+    assertEquals(0, XmlElement.NULL_XML.getAttributeCount());
+  }
+
+  @Test
+  public void testAttributeByIndex_outOfBounds() {
+    try {
+      // WHEN
+      root.getAttributeValue(0);
+      fail();
+    } catch (IndexOutOfBoundsException e) {
+      // THEN
+      assertEquals("index 0 of 0 attributes", e.getMessage());
+    }
+  }
+
+  private StreamParser.ElementHandler collectTitles() {
+    return new StreamParser.ElementHandler() {
+      @Override
+      public void handle(StreamElement element) {
+        titles.add(element.getAttributeValue("title"));
+      }
+    };
+  }
+}
@@ -0,0 +1,164 @@
+package net.sourceforge.jwbf.mapper;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.List;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import net.sourceforge.jwbf.MicroBenchmark;
+import net.sourceforge.jwbf.TestHelper;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
+import org.junit.Test;
+
+/**
+ * Compares the JDOM tree with the StAX stream on recorded query responses and on a large
+ * synthetic {@code categorymembers} response; both read all titles and the continuation. Also
+ * compares the tree with the streamed error check on a large response, that starts with an
+ * error.
+ */
+public class XmlParserBenchmark {
+
+  private static final int WARMUPS = 2000;
+  private static final int ITERATIONS = 5000;
+
+  @Test
+  public void benchmarkRecordedResponses() {
+    final List<String> responses = recordedResponses();
+    for (String xml : responses) {
+      assertEquals(jdom(xml), stax(xml));
+    }
+
+    double jdom = MicroBenchmark.nanosPerOp("jdom recorded", WARMUPS, ITERATIONS, new Runnable() {
+      @Override
+      public void run() {
+        for (String xml : responses) {
+          jdom(xml);
+        }
+      }
+    });
+    double stax = MicroBenchmark.nanosPerOp("stax recorded", WARMUPS, ITERATIONS, new Runnable() {
+      @Override
+      public void run() {
+        for (String xml : responses) {
+          stax(xml);
+        }
+      }
+    });
+    MicroBenchmark.logRatio("jdom/stax recorded", jdom, stax);
+  }
+
+  @Test
+  public void benchmarkLargeResponse() {
+    final String xml = largeResponse(5000);
+    assertEquals(jdom(xml), stax(xml));
+
+    double jdom = MicroBenchmark.nanosPerOp("jdom 5000 items", 20, 200, new Runnable() {
+      @Override
+      public void run() {
+        jdom(xml);
+      }
+    });
+    double stax = MicroBenchmark.nanosPerOp("stax 5000 items", 20, 200, new Runnable() {
+      @Override
+      public void run() {
+        stax(xml);
+      }
+    });
+    MicroBenchmark.logRatio("jdom/stax 5000 items", jdom, stax);
+  }
+
+  @Test
+  public void benchmarkLargeErrorResponse() {
+    final String xml = largeResponse(5000).replace("<api>", "<api><error code=\"a\" info=\"b\" />");
+    final byte[] bytes = xml.getBytes(Charsets.UTF_8);
+
+    double tree = MicroBenchmark.nanosPerOp("jdom error", 20, 200, new Runnable() {
+      @Override
+      public void run() {
+        XmlConverter.getRootElementWithError(xml).getErrorElement().get();
+      }
+    });
+    double stream = MicroBenchmark.nanosPerOp("stream error", 2000, 20000, new Runnable() {
+      @Override
+      public void run() {
+        try {
+          XmlConverter.getChecked(new ByteArrayInputStream(bytes));
+          throw new IllegalStateException();
+        } catch (ApiException e) {
+          e.getCode();
+        }
+      }
+    });
+    MicroBenchmark.logRatio("jdom/stream error", tree, stream);
+  }
+
+  static ImmutableList<String> jdom(String xml) {
+    ImmutableList.Builder<String> result = ImmutableList.builder();
+    XmlElement root = XmlConverter.getRootElement(xml);
+    XmlElement query = root.getChild("query");
+    addTitles(result, query.getChild("categorymembers"), "cm");
+    addTitles(result, query.getChild("allpages"), "p");
+    Optional<String> next = root.getChild("continue").getAttributeValueOpt("cmcontinue");
+    result.add(next.or(""));
+    return result.build();
+  }
+
+  private static void addTitles(ImmutableList.Builder<String> result, XmlElement list,
+      String name) {
+    if (list != XmlElement.NULL_XML) {
+      for (XmlElement element : list.getChildren(name)) {
+        result.add(element.getAttributeValueNonNull("title"));
+      }
+    }
+  }
+
+  static ImmutableList<String> stax(String xml) {
+    final ImmutableList.Builder<String> result = ImmutableList.builder();
+    final StringBuilder next = new StringBuilder();
+    StreamParser.ElementHandler titles = new StreamParser.ElementHandler() {
+      @Override
+      public void handle(StreamElement element) {
+        result.add(element.getAttributeValueNonNull("title"));
+      }
+    };
+    new XmlStreamParser() //
+        .on(titles, "query", "categorymembers", "cm") //
+        .on(titles, "query", "allpages", "p") //
+        .on(new StreamParser.ElementHandler() {
+          @Override
+          public void handle(StreamElement element) {
+            next.append(element.getAttributeValueOpt("cmcontinue").or(""));
+          }
+        }, "continue") //
+        .parse(xml);
+    result.add(next.toString());
+    return result.build();
+  }
+
+  private static List<String> recordedResponses() {
+    ImmutableList.Builder<String> responses = ImmutableList.builder();
+    File root = new File("src/test/resources/mediawiki");
+    for (File file : Files.fileTreeTraverser().preOrderTraversal(root)) {
+      String name = file.getName();
+      if (name.matches("(allPageTitles|category)\\d\\.xml")) {
+        responses.add(TestHelper.textOf(file));
+      }
+    }
+    return responses.build();
+  }
+
+  private static String largeResponse(int items) {
+    StringBuilder xml = new StringBuilder("<?xml version=\"1.0\"?><api><query><categorymembers>");
+    for (int i = 0; i < items; i++) {
+      xml.append("<cm pageid=\"").append(i).append("\" ns=\"0\" title=\"Title ").append(i)
+          .append("\" />");
+    }
+    return xml.append("</categorymembers></query><continue cmcontinue=\"page|1|2\" />")
+        .append("</api>").toString();
+  }
+}
@@ -0,0 +1,100 @@
+package net.sourceforge.jwbf.mapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+public class XmlPathTest {
+
+  private final XmlElement root = XmlConverter.getRootElement("<api><query><pages>" //
+      + "<page title=\"A\"><revisions><rev revid=\"1\"/></revisions></page>" //
+      + "<page title=\"B\"/></pages></query></api>");
+
+  @Test
+  public void testEvaluate() {
+    // GIVEN
+    XmlPath path = XmlPath.of("query", "pages", "page");
+
+    // WHEN
+    XmlElement result = path.evaluate(root);
+
+    // THEN
+    assertEquals("A", result.getAttributeValue("title"));
+  }
+
+  @Test
+  public void testEvaluate_missing() {
+    // GIVEN
+    XmlPath path = XmlPath.of("query", "normalized", "n");
+
+    // WHEN
+    XmlElement result = path.evaluate(root);
+
+    // THEN
+    assertSame(XmlElement.NULL_XML, result);
+  }
+
+  @Test
+  public void testEvaluateAll() {
+    // GIVEN
+    XmlPath path = XmlPath.of("query", "pages", "page");
+
+    // WHEN
+    List<XmlElement> result = path.evaluateAll(root);
+
+    // THEN
+    List<String> titles = Lists.newArrayList();
+    for (XmlElement element : result) {
+      titles.add(element.getAttributeValue("title"));
+    }
+    assertEquals(ImmutableList.of("A", "B"), titles);
+  }
+
+  @Test
+  public void testEvaluateAll_missing() {
+    // GIVEN
+    XmlPath path = XmlPath.of("query", "redirects", "r");
+
+    // WHEN
+    List<XmlElement> result = path.evaluateAll(root);
+
+    // THEN
+    assertTrue(result.isEmpty());
+  }
+
+  @Test
+  public void testAttributeValue() {
+    // GIVEN
+    XmlPath path = XmlPath.of("query", "pages", "page", "revisions", "rev");
+
+    // WHEN / THEN
+    assertEquals("1", path.attributeValue(root, "revid"));
+    assertNull(path.attributeValue(root, "comment"));
+    assertNull(XmlPath.of("query", "random").attributeValue(root, "title"));
+  }
+
+  @Test
+  public void testOf_nullName() {
+    try {
+      // WHEN
+      XmlPath.of("query", "pages", null);
+      fail();
+    } catch (NullPointerException e) {
+      // THEN
+      assertEquals("name must not be null", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testToString() {
+    assertEquals("query/pages/page", XmlPath.of("query", "pages", "page").toString());
+  }
+}
@@ -0,0 +1,198 @@
+package net.sourceforge.jwbf.mapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import net.sourceforge.jwbf.GAssert;
+import net.sourceforge.jwbf.TestHelper;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
+import org.junit.Test;
+
+public class XmlStreamParserTest {
+
+  private final List<String> values = Lists.newArrayList();
+
+  @Test
+  public void testParse() {
+    // GIVEN
+    String xml = TestHelper.anyWikiResponse("embeddedin_1.xml");
+
+    // WHEN
+    new XmlStreamParser() //
+        .on(collect("title"), "query", "embeddedin", "ei") //
+        .on(collect("eicontinue"), "query-continue", "embeddedin") //
+        .parse(xml);
+
+    // THEN
+    assertEquals(ImmutableList.of("10|Babel|37163", "User:AxelBoldt", "User:Piotr Gasiorowski",
+        "User:RobLa", "User:Taral", "User:Ap"), values);
+  }
+
+  @Test
+  public void testParse_stream() {
+    // GIVEN
+    String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+        + "<api><query><p title=\"Ä\"/><p title=\"B\"/></query></api>";
+
+    // WHEN
+    new XmlStreamParser() //
+        .on(collect("title"), "query", "p") //
+        .parse(new ByteArrayInputStream(xml.getBytes(Charsets.UTF_8)));
+
+    // THEN
+    assertEquals(ImmutableList.of("Ä", "B"), values);
+  }
+
+  @Test
+  public void testParse_pathsAreRelativeToRoot() {
+    // GIVEN
+    String xml = "<api><p title=\"A\"><p title=\"B\"/></p><q><p title=\"C\"/></q></api>";
+
+    // WHEN
+    new XmlStreamParser().on(collect("title"), "p").parse(xml);
+
+    // THEN
+    assertEquals(ImmutableList.of("A"), values);
+  }
+
+  @Test
+  public void testParse_text() {
+    // GIVEN
+    String xml = "<api><rev id=\"1\">a &amp; b<![CDATA[ <c>]]></rev><rev id=\"2\">d</rev></api>";
+
+    // WHEN
+    new XmlStreamParser().on(new StreamParser.ElementHandler() {
+      @Override
+      public void handle(StreamElement element) {
+        values.add(element.getAttributeValueNonNull("id") + ":" + element.getText());
+      }
+    }, "rev").parse(xml);
+
+    // THEN
+    assertEquals(ImmutableList.of("1:a & b <c>", "2:d"), values);
+  }
+
+  @Test
+  public void testWriteText() {
+    // GIVEN
+    StringBuilder text = new StringBuilder();
+    while (text.length() < 100000) {
+      text.append("line ").append(text.length()).append(" & more\n");
+    }
+    String xml = "<api><rev id=\"1\">" + text.toString().replace("&", "&amp;") + "</rev>" //
+        + "<rev id=\"2\"><![CDATA[<d>]]></rev></api>";
+    final StringWriter out = new StringWriter();
+    final List<Integer> writes = Lists.newArrayList();
+
+    // WHEN
+    new XmlStreamParser().on(new StreamParser.ElementHandler() {
+      @Override
+      public void handle(StreamElement element) {
+        values.add(element.getAttributeValueNonNull("id"));
+        try {
+          writes.add((int) element.writeText(new StringWriter() {
+            @Override
+            public void write(char[] cbuf, int off, int len) {
+              writes.add(len);
+              out.write(cbuf, off, len);
+            }
+
+            @Override
+            public void write(String str) {
+              out.write(str);
+            }
+          }));
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+    }, "rev").parse(new ByteArrayInputStream(xml.getBytes(Charsets.UTF_8)));
+
+    // THEN
+    assertEquals(ImmutableList.of("1", "2"), values);
+    assertEquals(text + "<d>", out.toString());
+    assertTrue("text was not written in chunks: " + writes, writes.size() > 4);
+  }
+
+  @Test
+  public void testWriteText_childElement() {
+    // GIVEN
+    String xml = "<api><rev>a<b /></rev></api>";
+
+    try {
+      // WHEN
+      new XmlStreamParser().on(new StreamParser.ElementHandler() {
+        @Override
+        public void handle(StreamElement element) {
+          try {
+            element.writeText(new StringWriter());
+          } catch (IOException e) {
+            throw new IllegalStateException(e);
+          }
+        }
+      }, "rev").parse(xml);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals("Invalid XML: rev has no text only content", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testParse_error() {
+    // GIVEN
+    String xml = "<api><error code=\"readapidenied\" info=\"denied\" /></api>";
+
+    try {
+      // WHEN
+      new XmlStreamParser().on(collect("title"), "query", "pages", "page").parse(xml);
+      fail();
+    } catch (ApiException e) {
+      // THEN
+      assertEquals("readapidenied", e.getCode());
+      assertEquals("denied", e.getValue());
+    }
+  }
+
+  @Test
+  public void testParse_invalid() {
+    try {
+      // WHEN
+      new XmlStreamParser().parse("<api><a></api>");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      GAssert.assertStartsWith("Invalid XML: ", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testParse_empty() {
+    try {
+      // WHEN
+      new XmlStreamParser().parse("");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals("Invalid XML: ", e.getMessage());
+    }
+  }
+
+  private StreamParser.ElementHandler collect(final String attribute) {
+    return new StreamParser.ElementHandler() {
+      @Override
+      public void handle(StreamElement element) {
+        values.add(element.getAttributeValueNonNull(attribute));
+      }
+    };
+  }
+}
@@ -0,0 +1,67 @@
+package net.sourceforge.jwbf.mediawiki;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+
+public class ResponseFormatTest {
+
+  @Test
+  public void testOf() {
+    assertEquals(ResponseFormat.JSON, ResponseFormat.of(" \n{\"query\":{}}"));
+    assertEquals(ResponseFormat.XML, ResponseFormat.of("<?xml version=\"1.0\"?><api />"));
+    assertEquals(ResponseFormat.XML, ResponseFormat.of(""));
+  }
+
+  @Test
+  public void testOf_stream() throws IOException {
+    // GIVEN
+    String json = "\uFEFF\r\n {\"query\":{}}";
+    InputStream in = new ByteArrayInputStream(json.getBytes(Charsets.UTF_8));
+
+    // WHEN
+    ResponseFormat format = ResponseFormat.of(in);
+
+    // THEN
+    assertEquals(ResponseFormat.JSON, format);
+    assertEquals(json, new String(ByteStreams.toByteArray(in), Charsets.UTF_8));
+  }
+
+  @Test
+  public void testOf_streamXml() throws IOException {
+    // GIVEN
+    InputStream in = new ByteArrayInputStream("<api />".getBytes(Charsets.UTF_8));
+
+    // WHEN / THEN
+    assertEquals(ResponseFormat.XML, ResponseFormat.of(in));
+    assertEquals(ResponseFormat.XML, ResponseFormat.of(new ByteArrayInputStream(new byte[0])));
+  }
+
+  @Test
+  public void testOf_streamWithoutMark() throws IOException {
+    // GIVEN
+    InputStream in = new BufferedInputStream(new ByteArrayInputStream(new byte[0])) {
+      @Override
+      public boolean markSupported() {
+        return false;
+      }
+    };
+
+    try {
+      // WHEN
+      ResponseFormat.of(in);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals("the stream must support mark", e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package net.sourceforge.jwbf.mediawiki.actions.editing;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.CharStreams;
+import net.sourceforge.jwbf.MicroBenchmark;
+import net.sourceforge.jwbf.mediawiki.MediaWiki.Version;
+import org.junit.Test;
+
+/**
+ * Compares the bytes allocated to read a revision of about 5 MB into the article with writing it
+ * on to a writer, like an archive would do.
+ */
+public class GetRevisionBenchmark {
+
+  private static final int PROPERTIES = GetRevision.CONTENT | GetRevision.IDS;
+
+  @Test
+  public void benchmarkLargeRevision() {
+    StringBuilder text = new StringBuilder();
+    while (text.length() < 5 * 1024 * 1024) {
+      text.append("Line ").append(text.length()).append(" of a very large page.\n");
+    }
+    final byte[] response = ("<?xml version=\"1.0\"?><api><query><pages>" //
+        + "<page pageid=\"1\" ns=\"0\" title=\"Big\"><revisions>" //
+        + "<rev revid=\"7\" xml:space=\"preserve\">" + text + "</rev>" //
+        + "</revisions></page></pages></query></api>").getBytes(Charsets.UTF_8);
+    assertEquals(text.length(), read(response, false));
+
+    double article = MicroBenchmark.bytesPerOp("revision into article", 3, 10, new Runnable() {
+      @Override
+      public void run() {
+        read(response, false);
+      }
+    });
+    double writer = MicroBenchmark.bytesPerOp("revision to writer", 3, 10, new Runnable() {
+      @Override
+      public void run() {
+        read(response, true);
+      }
+    });
+    MicroBenchmark.logRatio("article/writer allocation", article, writer);
+  }
+
+  private static int read(byte[] response, boolean toWriter) {
+    GetRevision action;
+    if (toWriter) {
+      action = new GetRevision(Version.UNKNOWN, "Big", PROPERTIES, CharStreams.nullWriter());
+    } else {
+      action = new GetRevision(Version.UNKNOWN, "Big", PROPERTIES);
+    }
+    action.processReturningStream(new ByteArrayInputStream(response), action.getNextMessage());
+    return action.getArticle().getText().length();
+  }
+}
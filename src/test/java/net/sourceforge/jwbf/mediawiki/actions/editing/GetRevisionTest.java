@@ -0,0 +1,120 @@
+package net.sourceforge.jwbf.mediawiki.actions.editing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import com.google.common.base.Charsets;
+import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
+import net.sourceforge.jwbf.mediawiki.MediaWiki.Version;
+import net.sourceforge.jwbf.mediawiki.ResponseFormat;
+import net.sourceforge.jwbf.mediawiki.contentRep.ArticleSection;
+import org.junit.Test;
+
+public class GetRevisionTest {
+
+  private static final int PROPERTIES = GetRevision.CONTENT | GetRevision.USER |
+      GetRevision.IDS;
+
+  private static final String XML = "<?xml version=\"1.0\"?><api><query><pages>" //
+      + "<page pageid=\"1\" ns=\"0\" title=\"Big\"><revisions>" //
+      + "<rev revid=\"7\" user=\"Admin\" xml:space=\"preserve\">a &amp; b\nc</rev>" //
+      + "</revisions></page></pages></query></api>";
+
+  @Test
+  public void testProcessReturningStream() {
+    // GIVEN
+    GetRevision testee = new GetRevision(Version.UNKNOWN, "Big", PROPERTIES);
+
+    // WHEN
+    testee.processReturningStream(toStream(XML), testee.getNextMessage());
+
+    // THEN
+    SimpleArticle article = testee.getArticle();
+    assertEquals("a & b\nc", article.getText());
+    assertEquals("7", article.getRevisionId());
+  }
+
+  @Test
+  public void testProcessReturningStream_otherFormat() {
+    // GIVEN
+    GetRevision testee = new GetRevision(Version.UNKNOWN, "Big", PROPERTIES, ResponseFormat.JSON);
+
+    // WHEN
+    String request = testee.getNextMessage().getRequest();
+    testee.processReturningStream(toStream(XML), testee.getNextMessage());
+
+    // THEN
+    assertTrue(request, request.contains("format=json"));
+    assertEquals("a & b\nc", testee.getArticle().getText());
+  }
+
+  @Test
+  public void testProcessReturningStream_textWriter() {
+    // GIVEN
+    Writer out = new StringWriter();
+    GetRevision testee = new GetRevision(Version.UNKNOWN, "Big", PROPERTIES, out);
+
+    // WHEN
+    testee.processReturningStream(toStream(XML), testee.getNextMessage());
+
+    // THEN
+    SimpleArticle article = testee.getArticle();
+    assertEquals("a & b\nc", out.toString());
+    assertEquals("", article.getText());
+    assertEquals("7", article.getRevisionId());
+    assertEquals("Admin", article.getEditor());
+  }
+
+  @Test
+  public void testProcessReturningText_jsonTextWriter() {
+    // GIVEN
+    String json = "{\"query\":{\"pages\":{\"1\":{\"pageid\":1,\"ns\":0,\"title\":\"Big\"," //
+        + "\"revisions\":[{\"revid\":7,\"user\":\"Admin\",\"*\":\"a & b\\nc\"}]}}}}";
+    Writer out = new StringWriter();
+    GetRevision testee = new GetRevision(Version.UNKNOWN, "Big", PROPERTIES, out);
+
+    // WHEN
+    testee.processReturningText(json, testee.getNextMessage());
+
+    // THEN
+    assertEquals("a & b\nc", out.toString());
+    assertEquals("7", testee.getArticle().getRevisionId());
+  }
+
+  @Test
+  public void testSection() {
+    // GIVEN
+    ArticleSection section = new ArticleSection("Big", 2);
+    GetRevision testee = new GetRevision(Version.UNKNOWN, section, GetRevision.IDS);
+
+    // WHEN
+    String request = testee.getNextMessage().getRequest();
+    testee.processReturningStream(toStream(XML), testee.getNextMessage());
+
+    // THEN
+    assertEquals("/api.php?action=query&format=xml&prop=revisions&rvlimit=1" + //
+        "&rvprop=content%7Cids&rvdir=older&rvsection=2&titles=Big", request);
+    assertSame(section, testee.getArticle());
+    assertEquals("a & b\nc", section.getText());
+    assertEquals("7", section.getRevisionId());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSection_new() {
+    new GetRevision(Version.UNKNOWN, ArticleSection.newSection("Big", "Heading"), PROPERTIES);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testNullTextWriter() {
+    new GetRevision(Version.UNKNOWN, "Big", PROPERTIES, (Writer) null);
+  }
+
+  private static ByteArrayInputStream toStream(String response) {
+    return new ByteArrayInputStream(response.getBytes(Charsets.UTF_8));
+  }
+}
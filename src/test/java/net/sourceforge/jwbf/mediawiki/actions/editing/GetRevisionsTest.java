@@ -0,0 +1,148 @@
+package net.sourceforge.jwbf.mediawiki.actions.editing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import com.google.common.collect.ImmutableList;
+import net.sourceforge.jwbf.GAssert;
+import net.sourceforge.jwbf.TestHelper;
+import net.sourceforge.jwbf.core.actions.Post;
+import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
+import org.junit.Test;
+
+public class GetRevisionsTest {
+
+  private static final int PROPERTIES = GetRevision.CONTENT | GetRevision.USER |
+      GetRevision.IDS | GetRevision.FLAGS;
+
+  @Test
+  public void testRequest() {
+    // GIVEN
+    ImmutableList<String> titles = ImmutableList.of("A", "B", "A");
+
+    // WHEN
+    GetRevisions testee = new GetRevisions(titles, PROPERTIES);
+
+    // THEN
+    String request = testee.getNextMessage().getRequest();
+    assertTrue(request, request.contains("prop=revisions"));
+    assertFalse(request, request.contains("titles="));
+  }
+
+  @Test
+  public void testGetArticles() {
+    // GIVEN
+    ImmutableList<String> titles = ImmutableList.of("Other", "main Page", "Missing");
+    GetRevisions testee = new GetRevisions(titles, PROPERTIES);
+    String xml = TestHelper.anyWikiResponse("revisions_batch.xml");
+
+    // WHEN
+    testee.processReturningStream(
+        new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), null);
+
+    // THEN
+    ImmutableList<SimpleArticle> articles = testee.getArticles();
+    assertEquals(3, articles.size());
+    assertArticle(articles.get(0), "Other", "Other text", "Bob", "22");
+    assertTrue(articles.get(0).isMinorEdit());
+    assertArticle(articles.get(1), "Main Page", "Main text", "Admin", "12");
+    assertFalse(articles.get(1).isMinorEdit());
+    assertEquals("Missing", articles.get(2).getTitle());
+    assertEquals("", articles.get(2).getText());
+  }
+
+  @Test
+  public void testGetArticles_continue() {
+    // GIVEN
+    GetRevisions testee = new GetRevisions(ImmutableList.of("A", "B"), PROPERTIES);
+    assertTrue(testee.hasMoreMessages());
+    assertFalse(testee.hasMoreMessages());
+
+    // WHEN
+    testee.processAllReturningText("<api><continue rvcontinue=\"2\" continue=\"||\" />" +
+        "<query><pages><page pageid=\"1\" title=\"A\"><revisions>" +
+        "<rev revid=\"11\" user=\"Bob\">a</rev></revisions></page>" +
+        "<page pageid=\"2\" title=\"B\" /></pages></query></api>");
+
+    // THEN
+    assertTrue(testee.getArticles().isEmpty());
+    assertTrue(testee.hasMoreMessages());
+    Post request = (Post) testee.getNextMessage();
+    assertEquals("2", request.getParams().get("rvcontinue").iterator().next());
+    assertEquals("||", request.getParams().get("continue").iterator().next());
+
+    // WHEN
+    testee.processAllReturningText("<api><query><pages><page pageid=\"1\" title=\"A\" />" +
+        "<page pageid=\"2\" title=\"B\"><revisions>" +
+        "<rev revid=\"22\" user=\"Bob\">b</rev></revisions></page></pages></query></api>");
+
+    // THEN
+    assertFalse(testee.hasMoreMessages());
+    ImmutableList<SimpleArticle> articles = testee.getArticles();
+    assertArticle(articles.get(0), "A", "a", "Bob", "11");
+    assertArticle(articles.get(1), "B", "b", "Bob", "22");
+  }
+
+  @Test
+  public void testGetArticles_queryContinue() {
+    // GIVEN
+    GetRevisions testee = new GetRevisions(ImmutableList.of("A", "B"), PROPERTIES);
+
+    // WHEN
+    testee.processAllReturningText("<api><query-continue><revisions rvcontinue=\"2\" />" +
+        "</query-continue><query><pages><page pageid=\"2\" title=\"B\" />" +
+        "</pages></query></api>");
+
+    // THEN
+    Post request = (Post) testee.getNextMessage();
+    assertEquals("2", request.getParams().get("rvcontinue").iterator().next());
+    assertFalse(request.getParams().containsKey("continue"));
+  }
+
+  @Test
+  public void testGetArticles_continueWithoutProgress() {
+    // GIVEN
+    GetRevisions testee = new GetRevisions(ImmutableList.of("A"), PROPERTIES);
+    String xml = "<api><continue rvcontinue=\"1\" continue=\"||\" />" +
+        "<query><pages><page pageid=\"1\" title=\"A\" /></pages></query></api>";
+    testee.processAllReturningText(xml);
+
+    try {
+      // WHEN
+      testee.processAllReturningText(xml);
+      fail();
+    } catch (IllegalStateException e) {
+      // THEN
+      GAssert.assertStartsWith("revisions do not continue after", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testTooManyTitles() {
+    // GIVEN
+    ImmutableList<String> titles =
+        TestHelper.createNames("T", GetRevisions.MAX_TITLES_HIGH_LIMITS + 1);
+
+    try {
+      // WHEN
+      new GetRevisions(titles, PROPERTIES);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      GAssert.assertStartsWith("between 1 and 500 titles are allowed", e.getMessage());
+    }
+  }
+
+  private static void assertArticle(SimpleArticle article, String title, String text,
+      String editor, String revisionId) {
+    assertEquals(title, article.getTitle());
+    assertEquals(text, article.getText());
+    assertEquals(editor, article.getEditor());
+    assertEquals(revisionId, article.getRevisionId());
+  }
+}
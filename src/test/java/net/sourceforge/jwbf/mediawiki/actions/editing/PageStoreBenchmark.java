@@ -0,0 +1,71 @@
+package net.sourceforge.jwbf.mediawiki.actions.editing;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.google.common.base.Strings;
+import net.sourceforge.jwbf.MicroBenchmark;
+import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Measures a warm start with 20000 stored pages: opening the store with its mapped index or
+ * after the index was lost, and reading the revision ids of all pages from the index.
+ */
+public class PageStoreBenchmark {
+
+  private static final int PAGES = 20000;
+  private static final int PROPERTIES = GetRevision.CONTENT | GetRevision.IDS;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void benchmarkWarmStart() throws IOException {
+    final File directory = folder.newFolder();
+    try (final PageStore store = PageStore.open(directory)) {
+      String text = Strings.repeat("{{Template|value}}\n", 200);
+      for (int i = 0; i < PAGES; i++) {
+        SimpleArticle revision = new SimpleArticle(text, "Page " + i);
+        revision.setRevisionId(Integer.toString(i));
+        store.put("Page " + i, PROPERTIES, revision);
+      }
+      MicroBenchmark.nanosPerOp("revision ids of all pages", 5, 20, new Runnable() {
+        @Override
+        public void run() {
+          for (int i = 0; i < PAGES; i++) {
+            store.getRevisionId("Page " + i, PROPERTIES);
+          }
+        }
+      });
+    }
+
+    double mapped = MicroBenchmark.nanosPerOp("open with index", 5, 20, new Runnable() {
+      @Override
+      public void run() {
+        open(directory);
+      }
+    });
+    final File index = new File(directory, PageStore.INDEX_FILE);
+    double rebuilt = MicroBenchmark.nanosPerOp("open without index", 2, 5, new Runnable() {
+      @Override
+      public void run() {
+        index.delete();
+        open(directory);
+      }
+    });
+    MicroBenchmark.logRatio("rebuild/mapped open", rebuilt, mapped);
+  }
+
+  private static void open(File directory) {
+    try (PageStore store = PageStore.open(directory)) {
+      assertEquals(PAGES, store.size());
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,257 @@
+package net.sourceforge.jwbf.mediawiki.actions.editing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Date;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Strings;
+import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PageStoreTest {
+
+  private static final int PROPERTIES = GetRevision.CONTENT | GetRevision.IDS;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private File directory;
+  private PageStore testee;
+
+  @Before
+  public void before() throws IOException {
+    directory = folder.newFolder("store");
+    testee = PageStore.open(directory);
+  }
+
+  @After
+  public void after() throws IOException {
+    testee.close();
+  }
+
+  @Test
+  public void testGet() {
+    // GIVEN
+    SimpleArticle revision = revision("A", "7", "a & b\nc");
+    revision.setEditor("Admin");
+    revision.setEditSummary("summary");
+    revision.setMinorEdit(true);
+    revision.setEditTimestamp(new Date(1000));
+
+    // WHEN
+    testee.put("A", PROPERTIES, revision);
+
+    // THEN
+    assertEquals(Optional.of(revision), testee.get("A", PROPERTIES));
+    assertEquals(Optional.of("7"), testee.getRevisionId("A", GetRevision.IDS));
+    assertFalse(testee.get("A", PROPERTIES | GetRevision.USER).isPresent());
+    assertFalse(testee.get("B", PROPERTIES).isPresent());
+  }
+
+  @Test
+  public void testGet_notNumericRevisionId() {
+    // WHEN
+    testee.put("A", PROPERTIES, revision("A", "x7", "text"));
+
+    // THEN
+    assertEquals(Optional.of("x7"), testee.getRevisionId("A", PROPERTIES));
+  }
+
+  @Test
+  public void testGet_revisionId() {
+    // GIVEN
+    testee.put("A", PROPERTIES, revision("A", "7", "text"));
+    testee.put("B", PROPERTIES, revision("B", "x7", "text"));
+
+    // WHEN / THEN
+    assertEquals("text", testee.get("A", "7", PROPERTIES).get().getText());
+    assertFalse(testee.get("A", "8", PROPERTIES).isPresent());
+    assertFalse(testee.get("A", "07", PROPERTIES).isPresent());
+    assertEquals("text", testee.get("B", "x7", PROPERTIES).get().getText());
+    assertFalse(testee.get("B", "x8", PROPERTIES).isPresent());
+    assertFalse(testee.get("C", "7", PROPERTIES).isPresent());
+  }
+
+  @Test
+  public void testPut_replaces() {
+    // GIVEN
+    testee.put("A", PROPERTIES, revision("A", "7", "old"));
+
+    // WHEN
+    testee.put("A", PROPERTIES, revision("A", "8", "new"));
+
+    // THEN
+    assertEquals("new", testee.get("A", PROPERTIES).get().getText());
+    assertEquals(1, testee.size());
+  }
+
+  @Test
+  public void testPut_compressesText() {
+    // WHEN
+    testee.put("A", PROPERTIES, revision("A", "7", Strings.repeat("{{Template}}\n", 10000)));
+
+    // THEN
+    assertTrue(testee.dataLength() < 2000);
+  }
+
+  @Test
+  public void testRemove() {
+    // GIVEN
+    testee.put("A", PROPERTIES, revision("A", "7", "text"));
+
+    // WHEN
+    testee.remove("A");
+
+    // THEN
+    assertFalse(testee.get("A", PROPERTIES).isPresent());
+    assertFalse(testee.getRevisionId("A", PROPERTIES).isPresent());
+    assertEquals(0, testee.size());
+  }
+
+  @Test
+  public void testOpen_afterClose() throws IOException {
+    // GIVEN
+    testee.put("A", PROPERTIES, revision("A", "7", "a"));
+    testee.put("B", PROPERTIES, revision("B", "8", "b"));
+    testee.remove("B");
+    testee.close();
+
+    // WHEN
+    testee = PageStore.open(directory);
+
+    // THEN
+    assertEquals("a", testee.get("A", PROPERTIES).get().getText());
+    assertFalse(testee.get("B", PROPERTIES).isPresent());
+    assertEquals(1, testee.size());
+  }
+
+  @Test
+  public void testOpen_rebuildsMissingIndex() throws IOException {
+    // GIVEN
+    testee.put("A", PROPERTIES, revision("A", "7", "a"));
+    testee.close();
+    assertTrue(new File(directory, PageStore.INDEX_FILE).delete());
+
+    // WHEN
+    testee = PageStore.open(directory);
+
+    // THEN
+    assertEquals(Optional.of("7"), testee.getRevisionId("A", PROPERTIES));
+  }
+
+  @Test
+  public void testOpen_dropsTornRecord() throws IOException {
+    // GIVEN
+    testee.put("A", PROPERTIES, revision("A", "7", "a"));
+    testee.put("B", PROPERTIES, revision("B", "8", "b"));
+    testee.close();
+    File data = new File(directory, PageStore.DATA_FILE);
+    long length = data.length();
+    try (RandomAccessFile file = new RandomAccessFile(data, "rw")) {
+      file.setLength(length - 3);
+    }
+    assertTrue(new File(directory, PageStore.INDEX_FILE).delete());
+
+    // WHEN
+    testee = PageStore.open(directory);
+
+    // THEN
+    assertTrue(testee.get("A", PROPERTIES).isPresent());
+    assertFalse(testee.get("B", PROPERTIES).isPresent());
+    testee.put("C", PROPERTIES, revision("C", "9", "c"));
+    testee.close();
+    testee = PageStore.open(directory);
+    assertEquals("c", testee.get("C", PROPERTIES).get().getText());
+  }
+
+  @Test
+  public void testCompact() throws IOException {
+    // GIVEN
+    for (int i = 0; i < 10; i++) {
+      testee.put("A", PROPERTIES, revision("A", "" + i, Strings.repeat("a", i)));
+    }
+    testee.put("B", PROPERTIES, revision("B", "20", "b"));
+    testee.put("C", PROPERTIES, revision("C", "30", "c"));
+    testee.remove("C");
+    long length = testee.dataLength();
+
+    // WHEN
+    testee.compact();
+
+    // THEN
+    assertTrue(testee.dataLength() < length);
+    assertEquals(2, testee.size());
+    assertEquals(Strings.repeat("a", 9), testee.get("A", PROPERTIES).get().getText());
+    assertEquals("b", testee.get("B", PROPERTIES).get().getText());
+    testee.close();
+    testee = PageStore.open(directory);
+    assertEquals(Optional.of("9"), testee.getRevisionId("A", PROPERTIES));
+    assertFalse(testee.get("C", PROPERTIES).isPresent());
+  }
+
+  @Test
+  public void testCompact_failedMove() throws IOException {
+    // GIVEN
+    testee.close();
+    testee = PageStore.open(new PageStore(directory) {
+      @Override
+      void move(File from, File to) throws IOException {
+        throw new IOException("move failed");
+      }
+    });
+    testee.put("A", PROPERTIES, revision("A", "7", "a"));
+    testee.put("A", PROPERTIES, revision("A", "8", "b"));
+    long length = testee.dataLength();
+
+    try {
+      // WHEN
+      testee.compact();
+      fail();
+    } catch (IOException e) {
+      // THEN
+      assertEquals("move failed", e.getMessage());
+    }
+    assertEquals(length, testee.dataLength());
+    assertFalse(new File(directory, PageStore.DATA_FILE + ".compact").exists());
+    assertEquals("b", testee.get("A", PROPERTIES).get().getText());
+    testee.put("B", PROPERTIES, revision("B", "9", "c"));
+    testee.close();
+    testee = PageStore.open(directory);
+    assertEquals(Optional.of("9"), testee.getRevisionId("B", PROPERTIES));
+  }
+
+  @Test
+  public void testPut_growsIndex() throws IOException {
+    // WHEN
+    for (int i = 0; i < 3000; i++) {
+      testee.put("T" + i, PROPERTIES, revision("T" + i, "" + i, ""));
+    }
+    for (int i = 0; i < 3000; i += 2) {
+      testee.remove("T" + i);
+    }
+    testee.close();
+    testee = PageStore.open(directory);
+
+    // THEN
+    assertEquals(1500, testee.size());
+    assertEquals(Optional.of("2999"), testee.getRevisionId("T2999", PROPERTIES));
+    assertFalse(testee.getRevisionId("T2998", PROPERTIES).isPresent());
+  }
+
+  private static SimpleArticle revision(String title, String revisionId, String text) {
+    SimpleArticle revision = new SimpleArticle(text, title);
+    revision.setRevisionId(revisionId);
+    return revision;
+  }
+}
@@ -18,20 +18,25 @@ import net.sourceforge.jwbf.core.actions.Post;
 import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
 import net.sourceforge.jwbf.core.contentRep.Userinfo;
 import net.sourceforge.jwbf.mediawiki.MediaWiki.Version;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
 import net.sourceforge.jwbf.mediawiki.actions.util.VersionException;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+import net.sourceforge.jwbf.mediawiki.contentRep.ArticleSection;
 import org.junit.Before;
 import org.junit.Test;
 
 public class PostModifyContentTest {
 
   private static final String editFailMsg = "editing is not allowed";
+  private static final String BADTOKEN_XML =
+      "<api><error code=\"badtoken\" info=\"Invalid token\" /></api>";
   private PostModifyContent testee;
   private MediaWikiBot bot;
   private Userinfo userinfo;
   private static final ImmutableSet<String> rights =
       of(Userinfo.RIGHT_WRITEAPI, Userinfo.RIGHT_EDIT);
   private SimpleArticle simpleArticle;
+  private TokenCache tokenCache;
 
   @Before
   public void before() {
@@ -39,9 +44,15 @@ public class PostModifyContentTest {
     when(bot.getVersion()).thenReturn(Version.DEVELOPMENT);
     userinfo = mock(Userinfo.class);
     when(bot.getUserinfo()).thenReturn(userinfo);
+    tokenCache = new TokenCache();
+    when(bot.getTokenCache()).thenReturn(tokenCache);
     simpleArticle = new SimpleArticle();
     simpleArticle.setTitle("Test");
-    testee = new PostModifyContent(bot, simpleArticle) {
+    testee = newTestee(simpleArticle);
+  }
+
+  private PostModifyContent newTestee(SimpleArticle article) {
+    return new PostModifyContent(bot, article) {
       @Override
       GetApiToken newTokenRequest() {
         GetApiToken mockToken = mock(GetApiToken.class);
@@ -96,6 +107,36 @@ public class PostModifyContentTest {
     assertEquals("{summary=[], text=[], notminor=[], token=[!testToken]}", params.toString());
   }
 
+  @Test
+  public void testGetNextMessageSection() {
+    // GIVEN
+    ArticleSection section = new ArticleSection("Test", 2);
+    section.setText("== Heading ==");
+    testee = newTestee(section);
+
+    // WHEN
+    ImmutableMultimap<String, Object> params = getParams();
+
+    // THEN
+    assertEquals("{summary=[], text=[== Heading ==], section=[2], notminor=[], " + //
+        "token=[!testToken]}", params.toString());
+  }
+
+  @Test
+  public void testGetNextMessageNewSection() {
+    // GIVEN
+    ArticleSection section = ArticleSection.newSection("Test", "Heading");
+    section.setText("text");
+    testee = newTestee(section);
+
+    // WHEN
+    ImmutableMultimap<String, Object> params = getParams();
+
+    // THEN
+    assertEquals("{summary=[], text=[text], section=[new], sectiontitle=[Heading], " + //
+        "notminor=[], token=[!testToken]}", params.toString());
+  }
+
   @Test
   public void testGetNextMessageBotEdit() {
     when(userinfo.getGroups()).thenReturn(of("bot", "user"));
@@ -112,6 +153,46 @@ public class PostModifyContentTest {
     return params;
   }
 
+  @Test
+  public void testGetNextMessageCachedToken() {
+    // GIVEN
+    when(userinfo.getRights()).thenReturn(rights);
+    tokenCache.put(GetApiToken.Intoken.EDIT, "cached+");
+
+    // WHEN
+    Post message = (Post) testee.getNextMessage();
+
+    // THEN
+    assertEquals("{summary=[], text=[], notminor=[], token=[cached+]}",
+        message.getParams().toString());
+    assertFalse(testee.hasMoreMessages());
+  }
+
+  @Test
+  public void testProcessReturningTextBadToken() {
+    // GIVEN
+    when(userinfo.getRights()).thenReturn(rights);
+    tokenCache.put(GetApiToken.Intoken.EDIT, "expired");
+    Post edit = (Post) testee.getNextMessage();
+
+    // WHEN
+    testee.processReturningText(BADTOKEN_XML, edit);
+
+    // THEN
+    assertFalse(tokenCache.get(GetApiToken.Intoken.EDIT).isPresent());
+    assertTrue(testee.hasMoreMessages());
+    testee.getNextMessage();
+    Post retry = (Post) testee.getNextMessage();
+    assertEquals("{summary=[], text=[], notminor=[], token=[!testToken]}",
+        retry.getParams().toString());
+    try {
+      testee.processReturningText(BADTOKEN_XML, retry);
+      fail();
+    } catch (ApiException e) {
+      assertEquals("badtoken", e.getCode());
+    }
+  }
+
   @Test
   public void testGetNextMessageFailConsumeMessages() {
     when(userinfo.getRights()).thenReturn(rights);
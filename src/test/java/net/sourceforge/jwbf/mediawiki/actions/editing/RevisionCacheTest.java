@@ -0,0 +1,199 @@
+package net.sourceforge.jwbf.mediawiki.actions.editing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Strings;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheStats;
+import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RevisionCacheTest {
+
+  private static final int PROPERTIES = GetRevision.CONTENT | GetRevision.IDS;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private final FakeTicker ticker = new FakeTicker();
+  private final RevisionCache testee = new RevisionCache(100, 10, TimeUnit.MINUTES, ticker);
+
+  @Test
+  public void testGet() {
+    // GIVEN
+    SimpleArticle revision = revision("A", "7", "text");
+    testee.put("A", PROPERTIES, revision);
+
+    // WHEN
+    Optional<SimpleArticle> cached = testee.get("A", PROPERTIES);
+
+    // THEN
+    assertEquals(Optional.of(revision), cached);
+    assertNotSame(revision, cached.get());
+    assertFalse(testee.get("B", PROPERTIES).isPresent());
+    assertEquals(new CacheStats(1, 1, 0, 0, 0, 0), testee.stats());
+  }
+
+  @Test
+  public void testGet_moreProperties() {
+    // GIVEN
+    testee.put("A", PROPERTIES, revision("A", "7", "text"));
+
+    // WHEN / THEN
+    assertFalse(testee.get("A", PROPERTIES | GetRevision.USER).isPresent());
+    assertEquals("7", testee.get("A", GetRevision.IDS).get().getRevisionId());
+  }
+
+  @Test
+  public void testGet_revisionId() {
+    // GIVEN
+    testee.put("A", PROPERTIES, revision("A", "7", "text"));
+
+    // WHEN / THEN
+    assertEquals("text", testee.get("A", "7", PROPERTIES).get().getText());
+    assertFalse(testee.get("A", "8", PROPERTIES).isPresent());
+    assertEquals(new CacheStats(1, 1, 0, 0, 0, 0), testee.stats());
+  }
+
+  @Test
+  public void testPut_notCacheable() {
+    // WHEN
+    testee.put("A", GetRevision.CONTENT, revision("A", "7", "text"));
+    testee.put("B", PROPERTIES | GetRevision.FIRST, revision("B", "7", "text"));
+    testee.put("C", PROPERTIES, revision("C", "", ""));
+
+    // THEN
+    assertEquals(0, testee.size());
+  }
+
+  @Test
+  public void testPut_evictsBySize() {
+    // GIVEN
+    testee.put("A", PROPERTIES, revision("A", "1", Strings.repeat("a", 60)));
+
+    // WHEN
+    testee.put("B", PROPERTIES, revision("B", "2", Strings.repeat("b", 60)));
+
+    // THEN
+    assertFalse(testee.get("A", PROPERTIES).isPresent());
+    assertEquals("2", testee.get("B", PROPERTIES).get().getRevisionId());
+    assertEquals(1, testee.stats().evictionCount());
+  }
+
+  @Test
+  public void testGet_expired() {
+    // GIVEN
+    testee.put("A", PROPERTIES, revision("A", "7", "text"));
+
+    // WHEN
+    ticker.nanos += TimeUnit.MINUTES.toNanos(10);
+
+    // THEN
+    assertFalse(testee.get("A", PROPERTIES).isPresent());
+  }
+
+  @Test
+  public void testInvalidate() {
+    // GIVEN
+    testee.put("main Page", PROPERTIES, revision("Main Page", "7", "text"));
+    testee.put("B", PROPERTIES, revision("B", "8", "text"));
+
+    // WHEN
+    testee.invalidate("Main Page");
+
+    // THEN
+    assertFalse(testee.get("main Page", PROPERTIES).isPresent());
+    assertEquals(1, testee.size());
+    assertEquals(0, testee.aliasCount());
+  }
+
+  @Test
+  public void testInvalidate_evictedAlias() {
+    // GIVEN
+    testee.put("main Page", PROPERTIES, revision("Main Page", "7", Strings.repeat("a", 60)));
+    assertEquals(1, testee.aliasCount());
+
+    // WHEN
+    testee.put("B", PROPERTIES, revision("B", "8", Strings.repeat("b", 60)));
+
+    // THEN
+    assertEquals(0, testee.aliasCount());
+    testee.invalidate("Main Page");
+    assertEquals(1, testee.size());
+  }
+
+  @Test
+  public void testGet_store() throws IOException {
+    // GIVEN
+    try (PageStore store = PageStore.open(folder.newFolder())) {
+      new RevisionCache(100, 0, TimeUnit.MINUTES, store)
+          .put("A", PROPERTIES, revision("A", "7", "text"));
+      RevisionCache restarted = new RevisionCache(100, 0, TimeUnit.MINUTES, store);
+
+      // WHEN
+      Optional<String> revisionId = restarted.getRevisionId("A", PROPERTIES);
+
+      // THEN
+      assertEquals(Optional.of("7"), revisionId);
+      assertFalse(restarted.get("A", PROPERTIES).isPresent());
+      assertFalse(restarted.get("A", "8", PROPERTIES).isPresent());
+      assertEquals("text", restarted.get("A", "7", PROPERTIES).get().getText());
+      assertEquals("text", restarted.get("A", PROPERTIES).get().getText());
+    }
+  }
+
+  @Test
+  public void testInvalidate_store() throws IOException {
+    // GIVEN
+    try (PageStore store = PageStore.open(folder.newFolder())) {
+      RevisionCache cache = new RevisionCache(100, 0, TimeUnit.MINUTES, store);
+      cache.put("main Page", PROPERTIES, revision("Main Page", "7", "text"));
+      cache.put("B", PROPERTIES, revision("B", "8", "text"));
+
+      // WHEN
+      cache.invalidate("Main Page");
+      cache.invalidateAll();
+
+      // THEN
+      assertFalse(store.get("main Page", PROPERTIES).isPresent());
+      assertEquals(Optional.of("8"), cache.getRevisionId("B", PROPERTIES));
+    }
+  }
+
+  @Test
+  public void testInvalidMaxChars() {
+    try {
+      // WHEN
+      new RevisionCache(0);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals("max chars must be positive, but was 0", e.getMessage());
+    }
+  }
+
+  private static SimpleArticle revision(String title, String revisionId, String text) {
+    SimpleArticle revision = new SimpleArticle(text, title);
+    revision.setRevisionId(revisionId);
+    return revision;
+  }
+
+  private static class FakeTicker extends Ticker {
+
+    private long nanos = 1;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+  }
+}
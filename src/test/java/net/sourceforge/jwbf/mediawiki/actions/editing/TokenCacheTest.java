@@ -0,0 +1,78 @@
+package net.sourceforge.jwbf.mediawiki.actions.editing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Ticker;
+import net.sourceforge.jwbf.mediawiki.actions.editing.GetApiToken.Intoken;
+import org.junit.Test;
+
+public class TokenCacheTest {
+
+  private final FakeTicker ticker = new FakeTicker();
+  private final TokenCache testee = new TokenCache(10, TimeUnit.MINUTES, ticker);
+
+  @Test
+  public void testGet() {
+    // GIVEN
+    testee.put(Intoken.EDIT, "a+\\");
+
+    // WHEN / THEN
+    assertEquals(Optional.of("a+\\"), testee.get(Intoken.EDIT));
+    assertFalse(testee.get(Intoken.DELETE).isPresent());
+  }
+
+  @Test
+  public void testGet_expired() {
+    // GIVEN
+    testee.put(Intoken.EDIT, "a");
+
+    // WHEN
+    ticker.nanos += TimeUnit.MINUTES.toNanos(9);
+
+    // THEN
+    assertEquals(Optional.of("a"), testee.get(Intoken.EDIT));
+    ticker.nanos += TimeUnit.MINUTES.toNanos(1);
+    assertFalse(testee.get(Intoken.EDIT).isPresent());
+  }
+
+  @Test
+  public void testInvalidate() {
+    // GIVEN
+    testee.put(Intoken.EDIT, "a");
+    testee.put(Intoken.MOVE, "a");
+
+    // WHEN
+    testee.invalidate();
+
+    // THEN
+    assertFalse(testee.get(Intoken.EDIT).isPresent());
+    assertFalse(testee.get(Intoken.MOVE).isPresent());
+  }
+
+  @Test
+  public void testInvalidMaxAge() {
+    try {
+      // WHEN
+      new TokenCache(0, TimeUnit.MINUTES);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals("max age must be positive, but was 0", e.getMessage());
+    }
+  }
+
+  private static class FakeTicker extends Ticker {
+
+    private long nanos = 1;
+
+    @Override
+    public long read() {
+      return nanos;
+    }
+  }
+}
@@ -3,8 +3,10 @@ package net.sourceforge.jwbf.mediawiki.actions.queries;
 import static org.junit.Assert.assertEquals;
 
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
 import net.sourceforge.jwbf.core.actions.Get;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
+import net.sourceforge.jwbf.mediawiki.ResponseFormat;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
 import net.sourceforge.jwbf.mediawiki.actions.util.RedirectFilter;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
@@ -44,6 +46,63 @@ public class AllPageTitlesTest {
         allPagesRequest.getRequest());
   }
 
+  @Test
+  public void testGenerateRequest_withLimit() {
+    // GIVEN
+    testee.withLimit(QueryLimit.of(500));
+
+    // WHEN
+    Get allPagesRequest = testee.generateRequest(Optional.<String>absent(), null, null, null);
+
+    // THEN
+    assertEquals(
+        "/api.php?action=query&apfilterredir=nonredirects&aplimit=500&format=xml&list=allpages",
+        allPagesRequest.getRequest());
+  }
+
+  @Test
+  public void testGenerateRequest_withFormat() {
+    // GIVEN
+    testee.withFormat(ResponseFormat.JSON);
+
+    // WHEN
+    Get allPagesRequest = testee.generateRequest(Optional.<String>absent(), null, null, null);
+
+    // THEN
+    assertEquals(
+        "/api.php?action=query&apfilterredir=nonredirects&aplimit=50&format=json&list=allpages",
+        allPagesRequest.getRequest());
+  }
+
+  @Test
+  public void testParse_json() {
+    // GIVEN
+    String json = "{\"continue\":{\"apcontinue\":\"C\",\"continue\":\"-||\"}," //
+        + "\"query\":{\"allpages\":[{\"pageid\":1,\"ns\":0,\"title\":\"A\"}," //
+        + "{\"pageid\":2,\"ns\":0,\"title\":\"B\"}]}}";
+
+    // WHEN
+    ImmutableList<String> titles = testee.parseArticleTitles(json);
+    Optional<String> next = testee.parseHasMore(json);
+
+    // THEN
+    assertEquals(ImmutableList.of("A", "B"), titles);
+    assertEquals(Optional.of("C"), next);
+  }
+
+  @Test
+  public void testParse_jsonQueryContinue() {
+    // GIVEN
+    String json = "{\"query-continue\":{\"allpages\":{\"apfrom\":\"C\"}}," //
+        + "\"query\":{\"allpages\":[]}}";
+
+    // WHEN
+    Optional<String> next = testee.parseHasMore(json);
+
+    // THEN
+    assertEquals(Optional.of("C"), next);
+  }
+
   @Test
   public void testGenerateRequest_with_prefix() {
     // GIVEN
@@ -1,10 +1,36 @@
 package net.sourceforge.jwbf.mediawiki.actions.queries;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import net.sourceforge.jwbf.core.actions.ContentProcessable;
+import net.sourceforge.jwbf.core.actions.RequestBuilder;
+import net.sourceforge.jwbf.core.actions.ReturningStreamProcessor;
+import net.sourceforge.jwbf.core.actions.util.HttpAction;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Answers;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
 @RunWith(MockitoJUnitRunner.class)
 public class BaseQueryTest {
@@ -16,4 +42,183 @@ public class BaseQueryTest {
   public void testRemove() {
     testee.remove();
   }
+
+  @Test
+  public void testPrefetch() throws InterruptedException {
+    // GIVEN
+    List<String> events = Collections.synchronizedList(Lists.<String>newArrayList());
+    CountDownLatch secondPageRequested = new CountDownLatch(1);
+    MediaWikiBot bot = newBot(events, secondPageRequested, "a|b", "c", "d|e|f");
+    PageQuery query = new PageQuery(bot);
+    query.withPrefetch(2);
+
+    // WHEN
+    ImmutableList.Builder<String> builder = ImmutableList.builder();
+    for (String title : query) {
+      if ("a".equals(title)) {
+        // without prefetching, page 2 is requested only after "b" was consumed
+        assertTrue("page 2 was not requested while page 1 was consumed",
+            secondPageRequested.await(10, TimeUnit.SECONDS));
+      }
+      events.add("consume " + title);
+      builder.add(title);
+    }
+
+    // THEN
+    assertEquals(ImmutableList.of("a", "b", "c", "d", "e", "f"), builder.build());
+    assertTrue(events.toString(), events.indexOf("request 2") < events.indexOf("consume b"));
+  }
+
+  @Test
+  public void testPrefetch_failure() {
+    // GIVEN
+    MediaWikiBot bot = newBot("a", "FAIL");
+    PageQuery query = new PageQuery(bot);
+    query.withPrefetch(1);
+
+    // WHEN
+    assertEquals("a", query.next());
+    try {
+      query.next();
+      fail();
+    } catch (IllegalStateException e) {
+      // THEN
+      assertEquals("page 2 failed", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testGetMetrics() {
+    // GIVEN
+    MediaWikiBot bot = newBot("a|b", "c", "d|e|f");
+    PageQuery query = new PageQuery(bot);
+    query.withLimit(QueryLimit.max());
+
+    // WHEN
+    ImmutableList<String> titles = ImmutableList.copyOf(query.lazy());
+
+    // THEN
+    assertEquals(6, titles.size());
+    QueryMetrics metrics = query.getMetrics();
+    assertEquals(Optional.of("max"), metrics.getLimit());
+    assertEquals(3, metrics.getPages());
+    assertEquals(6, metrics.getItems());
+  }
+
+  @Test
+  public void testGetMetrics_beforeFirstRequest() {
+    // GIVEN
+    PageQuery query = new PageQuery(mock(MediaWikiBot.class));
+
+    // WHEN
+    QueryMetrics metrics = query.getMetrics();
+
+    // THEN
+    assertEquals(Optional.<String>absent(), metrics.getLimit());
+    assertEquals(0, metrics.getPages());
+  }
+
+  @Test
+  public void testPrefetch_invalidDepth() {
+    try {
+      new PageQuery(mock(MediaWikiBot.class)).withPrefetch(0);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("depth must be positive, but was 0", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testStream() {
+    // GIVEN
+    MediaWikiBot bot = mock(MediaWikiBot.class);
+    doAnswer(new Answer<ContentProcessable>() {
+      @Override
+      public ContentProcessable answer(InvocationOnMock invocation) throws IOException {
+        ContentProcessable action = (ContentProcessable) invocation.getArguments()[0];
+        HttpAction msg = action.getNextMessage();
+        ((ReturningStreamProcessor) action).processReturningStream(
+            new ByteArrayInputStream("a|b;false".getBytes(Charsets.UTF_8)), msg);
+        return action;
+      }
+    }).when(bot).getPerformedAction(any(ContentProcessable.class));
+    PageQuery query = new PageQuery(bot);
+
+    // WHEN
+    ImmutableList<String> titles = ImmutableList.copyOf(query.lazy());
+
+    // THEN
+    assertEquals(ImmutableList.of("a", "b"), titles);
+    assertEquals(1, query.getMetrics().getPages());
+  }
+
+  private static MediaWikiBot newBot(String... pages) {
+    return newBot(Lists.<String>newArrayList(), new CountDownLatch(1), pages);
+  }
+
+  /**
+   * @param events receives {@code "request <page>"} for every requested page
+   * @param secondPageRequested is counted down, when the second page is requested
+   */
+  private static MediaWikiBot newBot(final List<String> events,
+      final CountDownLatch secondPageRequested, final String... pages) {
+    MediaWikiBot bot = mock(MediaWikiBot.class);
+    doAnswer(new Answer<ContentProcessable>() {
+      @Override
+      public ContentProcessable answer(InvocationOnMock invocation) {
+        ContentProcessable action = (ContentProcessable) invocation.getArguments()[0];
+        HttpAction msg = action.getNextMessage();
+        String request = msg.getRequest();
+        int page = Integer.parseInt(request.substring(0, request.indexOf('?')));
+        events.add("request " + (page + 1));
+        if (page == 1) {
+          secondPageRequested.countDown();
+        }
+        if ("FAIL".equals(pages[page])) {
+          throw new IllegalStateException("page " + (page + 1) + " failed");
+        }
+        action.processReturningText(pages[page] + ";" + (page + 1 < pages.length), msg);
+        return action;
+      }
+    }).when(bot).getPerformedAction(any(ContentProcessable.class));
+    return bot;
+  }
+
+  /**
+   * Parses responses like {@code "a|b;true"}, where the last part tells if more pages exist.
+   */
+  private static class PageQuery extends BaseQuery<String> {
+
+    private int page = 0;
+
+    PageQuery(MediaWikiBot bot) {
+      super(bot);
+    }
+
+    @Override
+    protected Object clone() throws CloneNotSupportedException {
+      return new PageQuery(bot());
+    }
+
+    @Override
+    protected HttpAction prepareCollection() {
+      return new RequestBuilder(Integer.toString(page++)) //
+          .param("limit", limit()) //
+          .buildGet();
+    }
+
+    @Override
+    protected ImmutableList<String> parseArticleTitles(String s) {
+      List<String> parts = Splitter.on(";").splitToList(s);
+      return ImmutableList.copyOf(Splitter.on("|").split(parts.get(0)));
+    }
+
+    @Override
+    protected Optional<String> parseHasMore(String s) {
+      if (s.endsWith(";true")) {
+        return Optional.of("next");
+      }
+      return Optional.absent();
+    }
+  }
 }
@@ -0,0 +1,81 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.ImmutableMap;
+import net.sourceforge.jwbf.core.actions.util.ProcessException;
+import net.sourceforge.jwbf.mediawiki.ResponseFormat;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ImageInfoTest {
+
+  private static final String URL = "http://localhost/images/a/ab/A.png";
+
+  @Mock
+  private MediaWikiBot bot;
+
+  @Test
+  public void testGetNextMessage_withFormat() {
+    // GIVEN
+    ImageInfo testee =
+        new ImageInfo(bot, "A.png", ImmutableMap.<String, String>of(), ResponseFormat.JSON);
+
+    // WHEN
+    String request = testee.getNextMessage().getRequest();
+
+    // THEN
+    assertEquals("/api.php?action=query&format=json&iiprop=url&prop=imageinfo" +
+        "&titles=File:A.png", request);
+  }
+
+  @Test
+  public void testProcessAllReturningText_xml() {
+    // GIVEN
+    ImageInfo testee = new ImageInfo(bot, "A.png");
+    String xml = "<api><query><pages><page ns=\"6\" title=\"File:A.png\">" +
+        "<imageinfo><ii url=\"" + URL + "\" /></imageinfo></page></pages></query></api>";
+
+    // WHEN
+    testee.processAllReturningText(xml);
+
+    // THEN
+    assertEquals(URL, testee.getUrlAsString());
+  }
+
+  @Test
+  public void testProcessAllReturningText_json() {
+    // GIVEN
+    ImageInfo testee = new ImageInfo(bot, "A.png");
+    String json = "{\"query\":{\"pages\":{\"-1\":{\"ns\":6,\"title\":\"File:A.png\"," +
+        "\"imageinfo\":[{\"url\":\"" + URL + "\"}]}}}}";
+
+    // WHEN
+    testee.processAllReturningText(json);
+
+    // THEN
+    assertEquals(URL, testee.getUrlAsString());
+  }
+
+  @Test
+  public void testProcessAllReturningText_missing() {
+    // GIVEN
+    ImageInfo testee = new ImageInfo(bot, "A.png");
+    String json = "{\"query\":{\"pages\":{\"-1\":{\"ns\":6,\"title\":\"File:A.png\"," +
+        "\"missing\":\"\"}}}}";
+
+    try {
+      // WHEN
+      testee.processAllReturningText(json);
+      fail();
+    } catch (ProcessException e) {
+      // THEN
+      assertEquals("Could not find this image " + json, e.getMessage());
+    }
+  }
+}
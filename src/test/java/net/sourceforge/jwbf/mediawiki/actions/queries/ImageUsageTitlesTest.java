@@ -0,0 +1,73 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import net.sourceforge.jwbf.mediawiki.MediaWiki;
+import net.sourceforge.jwbf.mediawiki.ResponseFormat;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ImageUsageTitlesTest {
+
+  @Mock
+  private MediaWikiBot bot;
+
+  private ImageUsageTitles testee;
+
+  @Before
+  public void before() {
+    testee = new ImageUsageTitles(bot, "File:A.png", MediaWiki.NS_MAIN);
+  }
+
+  @Test
+  public void testPrepareCollection_withFormat() {
+    // GIVEN
+    testee.withFormat(ResponseFormat.JSON);
+
+    // WHEN
+    String request = testee.prepareCollection().getRequest();
+
+    // THEN
+    assertEquals("/api.php?action=query&format=json&iulimit=50&iunamespace=0" +
+        "&iutitle=File%3AA.png&list=imageusage", request);
+  }
+
+  @Test
+  public void testParse_xml() {
+    // GIVEN
+    String xml = "<api><query-continue><imageusage iucontinue=\"6|A|2\" /></query-continue>" +
+        "<query><imageusage><iu pageid=\"1\" ns=\"0\" title=\"A &amp; B\" />" +
+        "</imageusage></query></api>";
+
+    // WHEN
+    ImmutableList<String> titles = testee.parseArticleTitles(xml);
+    Optional<String> next = testee.parseHasMore(xml);
+
+    // THEN
+    assertEquals(ImmutableList.of("A & B"), titles);
+    assertEquals(Optional.of("6|A|2"), next);
+  }
+
+  @Test
+  public void testParse_json() {
+    // GIVEN
+    String json = "{\"continue\":{\"iucontinue\":\"6|A|2\",\"continue\":\"-||\"}," +
+        "\"query\":{\"imageusage\":[{\"pageid\":1,\"ns\":0,\"title\":\"A\"}," +
+        "{\"pageid\":2,\"ns\":0,\"title\":\"B\"}]}}";
+
+    // WHEN
+    ImmutableList<String> titles = testee.parseArticleTitles(json);
+    Optional<String> next = testee.parseHasMore(json);
+
+    // THEN
+    assertEquals(ImmutableList.of("A", "B"), titles);
+    assertEquals(Optional.of("6|A|2"), next);
+  }
+}
@@ -0,0 +1,87 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import net.sourceforge.jwbf.MicroBenchmark;
+import net.sourceforge.jwbf.TestHelper;
+import org.junit.Test;
+
+/**
+ * Compares the regular expressions, that {@link TemplateUserTitles} used before, with the
+ * single pass of {@link ListResponseParser}, on a recorded response and on a large response
+ * built from recorded items.
+ */
+public class ListResponseParserBenchmark {
+
+  private static final Pattern ITEM_PATTERN =
+      Pattern.compile("<ei pageid=\".*?\" ns=\".*?\" title=\"(.*?)\" />");
+
+  private final ListResponseParser<String> parser = new ListResponseParser<>("embeddedin", "ei",
+      "eicontinue", "eicontinue", ListResponseParser.toTitle());
+
+  @Test
+  public void benchmarkRecordedResponse() {
+    final String xml = TestHelper.anyWikiResponse("embeddedin_1.xml");
+    compare("recorded", xml, 5000, 20000);
+  }
+
+  @Test
+  public void benchmarkLargeResponse() {
+    final String xml = largeResponse(5000);
+    compare("5000 items", xml, 20, 200);
+  }
+
+  private void compare(String name, final String xml, int warmups, int iterations) {
+    BaseQuery.Page<String> expected = regex(xml);
+    BaseQuery.Page<String> actual = parser.parse(xml);
+    assertEquals(expected.getItems(), actual.getItems());
+    assertEquals(expected.getNextPageInfo(), actual.getNextPageInfo());
+
+    double regex = MicroBenchmark.nanosPerOp("regex " + name, warmups, iterations, new Runnable() {
+      @Override
+      public void run() {
+        regex(xml);
+      }
+    });
+    double stream = MicroBenchmark.nanosPerOp("stream " + name, warmups, iterations,
+        new Runnable() {
+          @Override
+          public void run() {
+            parser.parse(xml);
+          }
+        });
+    MicroBenchmark.logRatio("regex/stream " + name, regex, stream);
+  }
+
+  static BaseQuery.Page<String> regex(String xml) {
+    Matcher items = ITEM_PATTERN.matcher(xml);
+    ImmutableList.Builder<String> titles = ImmutableList.builder();
+    while (items.find()) {
+      titles.add(items.group(1));
+    }
+    Matcher next = Pattern.compile(
+        "<query-continue>.*?" + "<embeddedin *eicontinue=\"([^\"]*)\" */>" + ".*?</query-continue>",
+        Pattern.DOTALL | Pattern.MULTILINE).matcher(xml);
+    Optional<String> nextPageInfo = Optional.absent();
+    if (next.find()) {
+      nextPageInfo = Optional.of(next.group(1));
+    }
+    return new BaseQuery.Page<>(titles.build(), nextPageInfo);
+  }
+
+  private static String largeResponse(int items) {
+    StringBuilder xml = new StringBuilder("<?xml version=\"1.0\"?><api><query><embeddedin>");
+    for (int i = 0; i < items; i++) {
+      xml.append("<ei pageid=\"").append(i).append("\" ns=\"2\" title=\"User:Name ").append(i)
+          .append("\" />\n");
+    }
+    // the continuation at the end, like newer versions write it
+    return xml.append("</embeddedin></query><query-continue>")
+        .append("<embeddedin eicontinue=\"10|Babel|37163\" /></query-continue></api>").toString();
+  }
+}
@@ -0,0 +1,138 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import net.sourceforge.jwbf.TestHelper;
+import org.junit.Test;
+
+public class ListResponseParserTest {
+
+  private final ListResponseParser<String> testee = new ListResponseParser<>("embeddedin", "ei",
+      "eicontinue", "eicontinue", ListResponseParser.toTitle());
+
+  @Test
+  public void testParse_queryContinue() {
+    // GIVEN
+    String xml = TestHelper.anyWikiResponse("embeddedin_1.xml");
+
+    // WHEN
+    BaseQuery.Page<String> page = testee.parse(xml);
+
+    // THEN
+    assertEquals(ImmutableList.of("User:AxelBoldt", "User:Piotr Gasiorowski", "User:RobLa",
+        "User:Taral", "User:Ap"), page.getItems());
+    assertEquals(Optional.of("10|Babel|37163"), page.getNextPageInfo());
+  }
+
+  @Test
+  public void testParse_continue() {
+    // GIVEN
+    String xml = "<api><continue eicontinue=\"10|B|2\" continue=\"-||\" />" //
+        + "<query-continue><embeddedin eicontinue=\"old\" /></query-continue>" //
+        + "<query><embeddedin><ei title=\"A\" /></embeddedin></query></api>";
+
+    // WHEN
+    BaseQuery.Page<String> page = testee.parse(xml);
+
+    // THEN
+    assertEquals(ImmutableList.of("A"), page.getItems());
+    assertEquals(Optional.of("10|B|2"), page.getNextPageInfo());
+  }
+
+  @Test
+  public void testParse_continueWithoutKey() {
+    // GIVEN
+    String xml = "<api><continue continue=\"-||\" />" //
+        + "<query><embeddedin><ei title=\"A\" /></embeddedin></query></api>";
+
+    // WHEN
+    BaseQuery.Page<String> page = testee.parse(xml);
+
+    // THEN
+    assertEquals(Optional.<String>absent(), page.getNextPageInfo());
+  }
+
+  @Test
+  public void testParse_attributesInAnyOrder() {
+    // GIVEN
+    String xml = "<api><query><embeddedin>" //
+        + "<ei title=\"A &amp; B\" ns=\"0\" pageid=\"1\"/>" //
+        + "<ei ns=\"2\"\n title=\"User:&quot;C&quot;\" pageid=\"2\" redirect=\"\" />" //
+        + "</embeddedin></query></api>";
+
+    // WHEN
+    BaseQuery.Page<String> page = testee.parse(xml);
+
+    // THEN
+    assertEquals(ImmutableList.of("A & B", "User:\"C\""), page.getItems());
+    assertEquals(Optional.<String>absent(), page.getNextPageInfo());
+  }
+
+  @Test
+  public void testParse_json() {
+    // GIVEN
+    String json = "{\"continue\":{\"eicontinue\":\"10|B|2\",\"continue\":\"-||\"}," //
+        + "\"query\":{\"embeddedin\":[{\"pageid\":1,\"ns\":0,\"title\":\"A\"}]}}";
+
+    // WHEN
+    BaseQuery.Page<String> page = testee.parse(json);
+
+    // THEN
+    assertEquals(ImmutableList.of("A"), page.getItems());
+    assertEquals(Optional.of("10|B|2"), page.getNextPageInfo());
+  }
+
+  @Test
+  public void testParse_stream() throws IOException {
+    // GIVEN
+    String xml = TestHelper.anyWikiResponse("embeddedin_1.xml");
+
+    // WHEN
+    BaseQuery.Page<String> page = testee.parse(toStream(xml));
+
+    // THEN
+    assertEquals(testee.parse(xml).getItems(), page.getItems());
+    assertEquals(Optional.of("10|Babel|37163"), page.getNextPageInfo());
+  }
+
+  @Test
+  public void testParse_jsonStream() throws IOException {
+    // GIVEN
+    String json = "\uFEFF \n{\"query\":{\"embeddedin\":[{\"title\":\"\u00c4\"}]}}";
+
+    // WHEN
+    BaseQuery.Page<String> page = testee.parse(toStream(json));
+
+    // THEN
+    assertEquals(ImmutableList.of("\u00c4"), page.getItems());
+    assertEquals(Optional.<String>absent(), page.getNextPageInfo());
+  }
+
+  @Test
+  public void testParse_logEvents() {
+    // GIVEN
+    String xml = "<api><query-continue><logevents lestart=\"2014-01-01T00:00:00Z\" />" //
+        + "</query-continue><query><logevents>" //
+        + "<item logid=\"1\" type=\"move\" user=\"U\" title=\"T\" />" //
+        + "</logevents></query></api>";
+
+    // WHEN
+    BaseQuery.Page<String> page = new ListResponseParser<>("logevents", "item", "lestart",
+        "lecontinue", ListResponseParser.toTitle()).parse(xml);
+
+    // THEN
+    assertEquals(ImmutableList.of("T"), page.getItems());
+    assertEquals(Optional.of("2014-01-01T00:00:00Z"), page.getNextPageInfo());
+  }
+
+  private static InputStream toStream(String response) {
+    return new ByteArrayInputStream(response.getBytes(Charsets.UTF_8));
+  }
+}
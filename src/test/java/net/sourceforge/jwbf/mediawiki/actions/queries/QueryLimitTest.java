@@ -0,0 +1,64 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableSet;
+import net.sourceforge.jwbf.core.contentRep.Userinfo;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+import org.junit.Test;
+
+public class QueryLimitTest {
+
+  private final MediaWikiBot bot = mock(MediaWikiBot.class);
+
+  @Test
+  public void testOf() {
+    assertEquals("50", QueryLimit.DEFAULT.toParam(bot));
+    assertEquals("120", QueryLimit.of(120).toParam(bot));
+    verifyZeroInteractions(bot);
+  }
+
+  @Test
+  public void testMax() {
+    assertEquals("max", QueryLimit.max().toParam(bot));
+    verifyZeroInteractions(bot);
+  }
+
+  @Test
+  public void testAuto_highLimits() {
+    // GIVEN
+    userWithRights("read", "apihighlimits");
+
+    // WHEN / THEN
+    assertEquals("5000", QueryLimit.auto().toParam(bot));
+  }
+
+  @Test
+  public void testAuto_lowLimits() {
+    // GIVEN
+    userWithRights("read");
+
+    // WHEN / THEN
+    assertEquals("500", QueryLimit.auto().toParam(bot));
+  }
+
+  @Test
+  public void testOf_invalid() {
+    try {
+      QueryLimit.of(0);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("limit must be positive, but was 0", e.getMessage());
+    }
+  }
+
+  private void userWithRights(String... rights) {
+    Userinfo userinfo = mock(Userinfo.class);
+    when(userinfo.getRights()).thenReturn(ImmutableSet.copyOf(rights));
+    when(bot.getUserinfo()).thenReturn(userinfo);
+  }
+}
@@ -0,0 +1,44 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import static org.junit.Assert.assertEquals;
+
+import net.sourceforge.jwbf.mediawiki.ResponseFormat;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RandomPageTitleTest {
+
+  @Mock
+  private MediaWikiBot bot;
+
+  @Test
+  public void testGetNextMessage_withFormat() {
+    // GIVEN
+    RandomPageTitle testee = new RandomPageTitle(bot, ResponseFormat.JSON);
+
+    // WHEN
+    String request = testee.getNextMessage().getRequest();
+
+    // THEN
+    assertEquals("/api.php?action=query&format=json&list=random&rnlimit=1&rnnamespace=0",
+        request);
+  }
+
+  @Test
+  public void testGetTitle() {
+    // GIVEN
+    RandomPageTitle testee = new RandomPageTitle(bot, ResponseFormat.JSON);
+    testee.processAllReturningText(
+        "{\"query\":{\"random\":[{\"id\":1,\"ns\":0,\"title\":\"A\"}]}}");
+
+    // WHEN
+    String title = testee.getTitle();
+
+    // THEN
+    assertEquals("A", title);
+  }
+}
@@ -0,0 +1,56 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.common.collect.ImmutableList;
+import net.sourceforge.jwbf.mediawiki.ResponseFormat;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RecentchangeTitlesTest {
+
+  @Mock
+  private MediaWikiBot bot;
+
+  private RecentchangeTitles testee;
+
+  @Before
+  public void before() {
+    testee = new RecentchangeTitles(bot);
+  }
+
+  @Test
+  public void testPrepareCollection_withFormat() {
+    // GIVEN
+    testee.withFormat(ResponseFormat.JSON);
+
+    // WHEN
+    String request = testee.prepareCollection().getRequest();
+
+    // THEN
+    assertEquals("/api.php?action=query&format=json&list=recentchanges&rclimit=50" +
+        "&rcnamespace=0%7C1%7C2%7C3%7C4%7C5%7C6%7C7%7C8%7C9%7C10%7C11%7C12%7C13%7C14%7C15",
+        request);
+  }
+
+  @Test
+  public void testParseArticleTitles() {
+    // GIVEN
+    String xml = "<api><query><recentchanges>" +
+        "<rc type=\"edit\" ns=\"0\" title=\"A\" timestamp=\"2014-01-01T00:00:00Z\" />" +
+        "<rc type=\"new\" ns=\"0\" title=\"B\" timestamp=\"2014-01-02T00:00:00Z\" />" +
+        "</recentchanges></query></api>";
+    String json = "{\"query\":{\"recentchanges\":[" +
+        "{\"type\":\"edit\",\"ns\":0,\"title\":\"A\",\"timestamp\":\"2014-01-01T00:00:00Z\"}," +
+        "{\"type\":\"new\",\"ns\":0,\"title\":\"B\",\"timestamp\":\"2014-01-02T00:00:00Z\"}]}}";
+
+    // WHEN / THEN
+    assertEquals(ImmutableList.of("A", "B"), testee.parseArticleTitles(xml));
+    assertEquals(ImmutableList.of("A", "B"), testee.parseArticleTitles(json));
+  }
+}
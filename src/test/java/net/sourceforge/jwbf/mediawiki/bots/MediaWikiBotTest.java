@@ -8,26 +8,56 @@ import static org.junit.Assert.fail;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Function;
+import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import net.sourceforge.jwbf.GAssert;
+import net.sourceforge.jwbf.TestHelper;
+import net.sourceforge.jwbf.core.actions.ContentProcessable;
 import net.sourceforge.jwbf.core.actions.HttpActionClient;
 import net.sourceforge.jwbf.core.actions.util.ActionException;
 import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
 import net.sourceforge.jwbf.mediawiki.MediaWiki.Version;
+import net.sourceforge.jwbf.mediawiki.ResponseFormat;
+import net.sourceforge.jwbf.mediawiki.actions.editing.GetRevision;
+import net.sourceforge.jwbf.mediawiki.actions.editing.GetRevisions;
+import net.sourceforge.jwbf.mediawiki.actions.editing.PageStore;
 import net.sourceforge.jwbf.mediawiki.actions.editing.PostModifyContent;
+import net.sourceforge.jwbf.mediawiki.actions.editing.RevisionCache;
 import net.sourceforge.jwbf.mediawiki.actions.login.PostLogin;
+import net.sourceforge.jwbf.mediawiki.actions.meta.GetUserinfo;
 import net.sourceforge.jwbf.mediawiki.actions.meta.GetVersion;
 import net.sourceforge.jwbf.mediawiki.actions.meta.Siteinfo;
+import net.sourceforge.jwbf.mediawiki.contentRep.ArticleSection;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
 public class MediaWikiBotTest {
 
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
   private MediaWikiBot testee;
 
   private HttpActionClient client;
@@ -216,6 +246,296 @@ public class MediaWikiBotTest {
     assertEquals("MediaWiki UNKNOWN", testee.getWikiType());
   }
 
+  @Test
+  public void testReadDataBatched() {
+    // GIVEN
+    final String xml = TestHelper.anyWikiResponse("revisions_batch.xml");
+    doAnswer(new Answer<String>() {
+      @Override
+      public String answer(InvocationOnMock invocation) throws Throwable {
+        GetRevisions action = (GetRevisions) invocation.getArguments()[0];
+        return action.processAllReturningText(xml);
+      }
+    }).when(client).performAction(isA(GetRevisions.class));
+    ImmutableList<String> names = ImmutableList.of("Other", "main Page", "Missing");
+
+    // WHEN
+    Iterable<SimpleArticle> articles = testee.readData(names, GetRevision.CONTENT, 2);
+
+    // THEN
+    verify(client, never()).performAction(isA(GetRevisions.class));
+    ImmutableList<String> texts = FluentIterable.from(articles) //
+        .transform(new Function<SimpleArticle, String>() {
+          @Override
+          public String apply(SimpleArticle input) {
+            return input.getText();
+          }
+        }).toList();
+    assertEquals(ImmutableList.of("Other text", "Main text", ""), texts);
+    verify(client, times(2)).performAction(isA(GetRevisions.class));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testReadDataBatched_invalidBatchSize() {
+    testee.readData(ImmutableList.of("A"), GetRevision.CONTENT, 0);
+  }
+
+  @Test
+  public void testReadData_revisionCache() {
+    // GIVEN
+    RevisionCache cache = new RevisionCache(1000);
+    testee.setRevisionCache(cache);
+    mockRevision(client);
+
+    // WHEN
+    SimpleArticle first = testee.readData("Big");
+    SimpleArticle second = testee.readData("Big");
+
+    // THEN
+    assertEquals("a & b", second.getText());
+    assertEquals(first, second);
+    verify(client, times(1)).performAction(isA(GetRevision.class));
+    assertEquals(1, cache.stats().hitCount());
+  }
+
+  @Test
+  public void testReadSection() {
+    // GIVEN
+    mockRevision(client);
+
+    // WHEN
+    ArticleSection section = testee.readSection("Big", 2);
+
+    // THEN
+    assertEquals("2", section.getSection());
+    assertEquals("a & b", section.getText());
+    assertEquals("7", section.getRevisionId());
+  }
+
+  @Test
+  public void testSetResponseFormat() {
+    // GIVEN
+    MediaWikiBot other = new MediaWikiBot(client);
+    mockRevision(client);
+    ArgumentCaptor<ContentProcessable> actions = ArgumentCaptor.forClass(ContentProcessable.class);
+
+    // WHEN
+    testee.setResponseFormat(ResponseFormat.JSON);
+    SimpleArticle article = testee.readData("Big");
+    other.readData("Big");
+
+    // THEN
+    assertEquals("a & b", article.getText());
+    verify(client, Mockito.atLeastOnce()).performAction(actions.capture());
+    List<GetRevision> reads = FluentIterable.from(actions.getAllValues()) //
+        .filter(GetRevision.class).toList();
+    assertEquals(2, reads.size());
+    String jsonRequest = reads.get(0).getNextMessage().getRequest();
+    assertTrue(jsonRequest, jsonRequest.contains("format=json"));
+    String xmlRequest = reads.get(1).getNextMessage().getRequest();
+    assertTrue(xmlRequest, xmlRequest.contains("format=xml"));
+  }
+
+  @Test
+  public void testWriteContent_invalidatesRevisionCache() {
+    // GIVEN
+    testee.setRevisionCache(new RevisionCache(1000));
+    mockRevision(client);
+    mockValidLogin("username", client);
+    testee.login("username", "pw");
+    testee.readData("Big");
+
+    // WHEN
+    testee.writeContent(new SimpleArticle("new", "Big"));
+    testee.readData("Big");
+
+    // THEN
+    verify(client, times(2)).performAction(isA(GetRevision.class));
+  }
+
+  @Test
+  public void testWriteContent_invalidatesRevisionCacheOfNotNormalizedTitle() {
+    // GIVEN
+    testee.setRevisionCache(new RevisionCache(1000));
+    mockRevision(client);
+    mockValidLogin("username", client);
+    testee.login("username", "pw");
+    assertEquals("Big", testee.readData("big").getTitle());
+
+    // WHEN
+    testee.writeContent(new SimpleArticle("new", "Big"));
+    testee.readData("big");
+
+    // THEN
+    verify(client, times(2)).performAction(isA(GetRevision.class));
+  }
+
+  @Test
+  public void testDelete_invalidatesRevisionCache() {
+    // GIVEN
+    testee.setRevisionCache(new RevisionCache(1000));
+    mockRevision(client);
+    mockUserinfo(client);
+    testee.readData("Big");
+
+    // WHEN
+    testee.delete("Big");
+    testee.readData("Big");
+
+    // THEN
+    verify(client, times(2)).performAction(isA(GetRevision.class));
+  }
+
+  @Test
+  public void testReadChangedData() {
+    // GIVEN
+    mockUserinfo(client);
+    FakeWiki wiki = new FakeWiki(client);
+    wiki.revisions.put("A", "1");
+    wiki.revisions.put("B", "3");
+    ImmutableMap<String, String> known = ImmutableMap.of("A", "1", "B", "2", "C", "");
+
+    // WHEN
+    ImmutableList<SimpleArticle> changed =
+        ImmutableList.copyOf(testee.readChangedData(known, GetRevision.CONTENT));
+
+    // THEN
+    assertEquals(1, changed.size());
+    assertEquals("B", changed.get(0).getTitle());
+    assertEquals("3", changed.get(0).getRevisionId());
+    assertEquals("text 3", changed.get(0).getText());
+    assertEquals(ImmutableList.of(false, true), wiki.contentRequested);
+  }
+
+  @Test
+  public void testReadChangedData_unchanged() {
+    // GIVEN
+    mockUserinfo(client);
+    FakeWiki wiki = new FakeWiki(client);
+    wiki.revisions.put("A", "1");
+
+    // WHEN
+    Iterable<SimpleArticle> changed =
+        testee.readChangedData(ImmutableMap.of("A", "1"), GetRevision.CONTENT);
+
+    // THEN
+    assertTrue(Iterables.isEmpty(changed));
+    assertEquals(ImmutableList.of(false), wiki.contentRequested);
+  }
+
+  @Test
+  public void testReadDataBatched_revalidatesRevisionCache() {
+    // GIVEN
+    RevisionCache cache = new RevisionCache(1000);
+    testee.setRevisionCache(cache);
+    FakeWiki wiki = new FakeWiki(client);
+    wiki.revisions.put("A", "1");
+    wiki.revisions.put("B", "2");
+    ImmutableList<String> names = ImmutableList.of("A", "B", "C");
+    int properties = GetRevision.CONTENT | GetRevision.IDS;
+    ImmutableList.copyOf(testee.readData(names, properties, 10));
+    wiki.revisions.put("B", "3");
+
+    // WHEN
+    ImmutableList<SimpleArticle> articles =
+        ImmutableList.copyOf(testee.readData(names, properties, 10));
+
+    // THEN
+    assertEquals("text 1", articles.get(0).getText());
+    assertEquals("text 3", articles.get(1).getText());
+    assertEquals("", articles.get(2).getText());
+    assertEquals(ImmutableList.of(true, false, true), wiki.contentRequested);
+    assertEquals(1, cache.stats().hitCount());
+  }
+
+  @Test
+  public void testReadDataBatched_warmStartFromPageStore() throws IOException {
+    // GIVEN
+    FakeWiki wiki = new FakeWiki(client);
+    wiki.revisions.put("A", "1");
+    wiki.revisions.put("B", "2");
+    ImmutableList<String> names = ImmutableList.of("A", "B");
+    int properties = GetRevision.CONTENT | GetRevision.IDS;
+    File directory = folder.newFolder();
+    try (PageStore store = PageStore.open(directory)) {
+      testee.setRevisionCache(new RevisionCache(1000, 0, TimeUnit.MINUTES, store));
+      ImmutableList.copyOf(testee.readData(names, properties, 10));
+    }
+    wiki.revisions.put("B", "3");
+
+    try (PageStore store = PageStore.open(directory)) {
+      MediaWikiBot restarted = new MediaWikiBot(client);
+      restarted.setRevisionCache(new RevisionCache(1000, 0, TimeUnit.MINUTES, store));
+
+      // WHEN
+      ImmutableList<SimpleArticle> articles =
+          ImmutableList.copyOf(restarted.readData(names, properties, 10));
+
+      // THEN
+      assertEquals("text 1", articles.get(0).getText());
+      assertEquals("text 3", articles.get(1).getText());
+      assertEquals(ImmutableList.of(true, false, true), wiki.contentRequested);
+    }
+  }
+
+  private void mockUserinfo(HttpActionClient mockClient) {
+    final String userinfo = TestHelper.wikiResponse(Version.MW1_23, "userinfo.xml");
+    doAnswer(new Answer<String>() {
+      @Override
+      public String answer(InvocationOnMock invocation) throws Throwable {
+        GetUserinfo action = (GetUserinfo) invocation.getArguments()[0];
+        return action.processAllReturningText(userinfo);
+      }
+    }).when(mockClient).performAction(isA(GetUserinfo.class));
+  }
+
+  /**
+   * Answers every {@link GetRevisions} with the current revisions of all its pages; a text is
+   * only sent, if it was requested.
+   */
+  private static class FakeWiki implements Answer<String> {
+
+    private final Map<String, String> revisions = Maps.newLinkedHashMap();
+    private final List<Boolean> contentRequested = Lists.newArrayList();
+
+    FakeWiki(HttpActionClient mockClient) {
+      doAnswer(this).when(mockClient).performAction(isA(GetRevisions.class));
+    }
+
+    @Override
+    public String answer(InvocationOnMock invocation) throws Throwable {
+      GetRevisions action = (GetRevisions) invocation.getArguments()[0];
+      boolean content = action.getNextMessage().getRequest().contains("content");
+      contentRequested.add(content);
+      StringBuilder xml = new StringBuilder("<?xml version=\"1.0\"?><api><query><pages>");
+      for (Map.Entry<String, String> revision : revisions.entrySet()) {
+        xml.append("<page ns=\"0\" title=\"").append(revision.getKey()).append("\">") //
+            .append("<revisions><rev revid=\"").append(revision.getValue()) //
+            .append("\" timestamp=\"2014-01-01T00:00:00Z\">");
+        if (content) {
+          xml.append("text ").append(revision.getValue());
+        }
+        xml.append("</rev></revisions></page>");
+      }
+      return action.processAllReturningText(xml.append("</pages></query></api>").toString());
+    }
+  }
+
+  private void mockRevision(HttpActionClient mockClient) {
+    final String xml = "<?xml version=\"1.0\"?><api><query><pages>" //
+        + "<page pageid=\"1\" ns=\"0\" title=\"Big\"><revisions>" //
+        + "<rev revid=\"7\" user=\"Admin\" timestamp=\"2014-01-01T00:00:00Z\" comment=\"c\"" //
+        + " xml:space=\"preserve\">a &amp; b</rev>" //
+        + "</revisions></page></pages></query></api>";
+    doAnswer(new Answer<String>() {
+      @Override
+      public String answer(InvocationOnMock invocation) throws Throwable {
+        GetRevision action = (GetRevision) invocation.getArguments()[0];
+        return action.processReturningText(xml, action.getNextMessage());
+      }
+    }).when(mockClient).performAction(isA(GetRevision.class));
+  }
+
   private void mockValidLogin(final String username, HttpActionClient mockClient) {
     doAnswer(new Answer<Void>() {
       @Override
@@ -0,0 +1,50 @@
+package net.sourceforge.jwbf.mediawiki.contentRep;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.common.base.Optional;
+import org.junit.Test;
+
+public class ArticleSectionTest {
+
+  @Test
+  public void testSection() {
+    // WHEN
+    ArticleSection testee = new ArticleSection("A", 3);
+
+    // THEN
+    assertEquals("A", testee.getTitle());
+    assertEquals("3", testee.getSection());
+    assertFalse(testee.isNewSection());
+    assertEquals(Optional.<String>absent(), testee.getSectionTitle());
+    assertEquals(new ArticleSection("A", 3), testee);
+    assertNotEquals(new ArticleSection("A", 2), testee);
+  }
+
+  @Test
+  public void testNewSection() {
+    // WHEN
+    ArticleSection testee = ArticleSection.newSection("A", "Heading");
+
+    // THEN
+    assertEquals(ArticleSection.NEW, testee.getSection());
+    assertTrue(testee.isNewSection());
+    assertEquals(Optional.of("Heading"), testee.getSectionTitle());
+  }
+
+  @Test
+  public void testNegativeSection() {
+    try {
+      // WHEN
+      new ArticleSection("A", -1);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals("section must not be negative, but was -1", e.getMessage());
+    }
+  }
+}